@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.benchmark;
+
+
+import com.amazonaws.serverless.proxy.AwsHttpApiV2SecurityContextWriter;
+import com.amazonaws.serverless.proxy.AwsProxyExceptionHandler;
+import com.amazonaws.serverless.proxy.AwsProxySecurityContextWriter;
+import com.amazonaws.serverless.proxy.RequestReader;
+import com.amazonaws.serverless.proxy.SecurityContextWriter;
+import com.amazonaws.serverless.proxy.internal.servlet.*;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.serverless.proxy.model.HttpApiV2ProxyRequest;
+import com.amazonaws.services.lambda.runtime.Context;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+
+
+/**
+ * Minimal servlet container handler used by the core benchmarks. The handler registers an echo servlet that copies
+ * the request body to the response and a handful of pass-through filters, so that a request goes through the same
+ * filter chain resolution, request parsing and response writing as it would with one of the framework implementations,
+ * without measuring the framework itself.
+ *
+ * @param <RequestType> The event type, either <code>AwsProxyRequest</code> or <code>HttpApiV2ProxyRequest</code>
+ */
+public class EchoServletHandler<RequestType>
+        extends AwsLambdaServletContainerHandler<RequestType, AwsProxyResponse, HttpServletRequest, AwsHttpServletResponse> {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    static final String SERVLET_NAME = "EchoServlet";
+    static final String[] FILTER_MAPPINGS = { "/*", "/pets/*", "/static/*", "/admin/*" };
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    private EchoServletHandler(Class<RequestType> requestTypeClass,
+                               RequestReader<RequestType, HttpServletRequest> requestReader,
+                               SecurityContextWriter<RequestType> securityContextWriter) {
+        super(requestTypeClass, AwsProxyResponse.class, requestReader, new AwsProxyHttpServletResponseWriter(),
+                securityContextWriter, new AwsProxyExceptionHandler());
+        initialize();
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Public - Static
+    //-------------------------------------------------------------
+
+    public static EchoServletHandler<AwsProxyRequest> getAwsProxyHandler() {
+        RequestReader<AwsProxyRequest, HttpServletRequest> reader = new AwsProxyHttpServletRequestReader();
+        return new EchoServletHandler<>(AwsProxyRequest.class, reader, new AwsProxySecurityContextWriter());
+    }
+
+
+    public static EchoServletHandler<HttpApiV2ProxyRequest> getHttpApiV2ProxyHandler() {
+        RequestReader<HttpApiV2ProxyRequest, HttpServletRequest> reader = new AwsHttpApiV2HttpServletRequestReader();
+        return new EchoServletHandler<>(HttpApiV2ProxyRequest.class, reader, new AwsHttpApiV2SecurityContextWriter());
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Public
+    //-------------------------------------------------------------
+
+    /**
+     * Exposes the filter chain resolution so that it can be benchmarked on its own
+     */
+    @Override
+    public FilterChain getFilterChain(HttpServletRequest req, Servlet servlet) {
+        return super.getFilterChain(req, servlet);
+    }
+
+
+    public Servlet getServlet() {
+        return ((AwsServletContext) getServletContext()).getServletForPath(ProxyEvents.EVENT_PATH);
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Implementation
+    //-------------------------------------------------------------
+
+    @Override
+    protected AwsHttpServletResponse getContainerResponse(HttpServletRequest request, CountDownLatch latch) {
+        return getAwsHttpServletResponse(request, latch);
+    }
+
+
+    @Override
+    protected void handleRequest(HttpServletRequest containerRequest, AwsHttpServletResponse containerResponse, Context lambdaContext)
+            throws Exception {
+        if (containerRequest instanceof AwsHttpServletRequest) {
+            ((AwsHttpServletRequest) containerRequest).setServletContext(getServletContext());
+        }
+        doFilter(containerRequest, containerResponse, getServlet());
+    }
+
+
+    @Override
+    public void initialize() {
+        ServletRegistration.Dynamic servlet = getServletContext().addServlet(SERVLET_NAME, new EchoServlet());
+        servlet.addMapping("/*");
+        for (String mapping : FILTER_MAPPINGS) {
+            FilterRegistration.Dynamic filter = getServletContext().addFilter("PassThroughFilter" + mapping, new PassThroughFilter());
+            filter.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, mapping);
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Inner Class -
+    //-------------------------------------------------------------
+
+    /**
+     * Copies the request body and content type to the response
+     */
+    static class EchoServlet extends HttpServlet {
+        private static final long serialVersionUID = 1L;
+        private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+        @Override
+        protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            resp.setStatus(HttpServletResponse.SC_OK);
+            resp.setContentType(req.getContentType());
+            resp.setHeader("X-Request-Path", req.getRequestURI());
+
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            InputStream in = req.getInputStream();
+            OutputStream out = resp.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            resp.flushBuffer();
+        }
+    }
+
+
+    /**
+     * Filter that only continues the chain
+     */
+    static class PassThroughFilter implements Filter {
+        @Override
+        public void init(FilterConfig filterConfig) {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+                throws IOException, ServletException {
+            chain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.benchmark;
+
+
+import com.amazonaws.serverless.proxy.internal.servlet.AwsProxyHttpServletRequest;
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.FilterChain;
+import javax.servlet.Servlet;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures filter chain resolution for a request against the pass-through filters registered by the
+ * {@link EchoServletHandler}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterChainBenchmark {
+
+    @Param({ "/pets", "/pets/123/toys", "/static/img/logo.png", "/health" })
+    public String path;
+
+    private EchoServletHandler<AwsProxyRequest> handler;
+    private AwsProxyHttpServletRequest request;
+    private Servlet servlet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = EchoServletHandler.getAwsProxyHandler();
+        request = new AwsProxyHttpServletRequest(new AwsProxyRequestBuilder(path, "GET").build(), new MockLambdaContext(), null);
+        request.setServletContext(handler.getServletContext());
+        servlet = handler.getServlet();
+    }
+
+    @Benchmark
+    public FilterChain getFilterChain() {
+        return handler.getFilterChain(request, servlet);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.benchmark;
+
+
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.BodyContent;
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.BodySize;
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.EventType;
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.serverless.proxy.model.Headers;
+import com.amazonaws.serverless.proxy.model.HttpApiV2ProxyRequest;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the Jackson binding of the event models and of the proxy response with the container's
+ * <code>ObjectMapper</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({ "REST", "HTTP_API", "ALB" })
+    public EventType eventType;
+
+    @Param({ "SMALL", "LARGE" })
+    public BodySize bodySize;
+
+    @Param({ "TEXT", "BINARY" })
+    public BodyContent bodyContent;
+
+    private ObjectReader eventReader;
+    private ObjectWriter responseWriter;
+    private byte[] event;
+    private AwsProxyResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Class<?> eventClass = eventType == EventType.HTTP_API ? HttpApiV2ProxyRequest.class : AwsProxyRequest.class;
+        eventReader = LambdaContainerHandler.getObjectMapper().readerFor(eventClass);
+        responseWriter = LambdaContainerHandler.getObjectMapper().writerFor(AwsProxyResponse.class);
+        event = ProxyEvents.eventJson(eventType, bodySize, bodyContent);
+
+        Headers headers = new Headers();
+        headers.putSingle(HttpHeaders.CONTENT_TYPE, bodyContent == BodyContent.TEXT ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_OCTET_STREAM);
+        headers.putSingle("X-Request-Path", ProxyEvents.EVENT_PATH);
+        if (bodyContent == BodyContent.TEXT) {
+            response = new AwsProxyResponse(200, headers, ProxyEvents.jsonBody(bodySize.getBytes()));
+        } else {
+            response = new AwsProxyResponse(200, headers, Base64.getEncoder().encodeToString(ProxyEvents.binaryBody(bodySize.getBytes())));
+            response.setBase64Encoded(true);
+        }
+    }
+
+    @Benchmark
+    public Object deserializeEvent() throws IOException {
+        return eventReader.readValue(event);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.benchmark;
+
+
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+
+/**
+ * Builds the events used by all benchmarks with the <code>AwsProxyRequestBuilder</code>. Every event is a
+ * <code>POST</code> request with the headers and query string a browser or API client would normally send, the body
+ * is either a JSON document or random binary content.
+ */
+public final class ProxyEvents {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    public static final String EVENT_PATH = "/pets";
+    private static final long BODY_SEED = 42L;
+
+
+    //-------------------------------------------------------------
+    // Inner Class -
+    //-------------------------------------------------------------
+
+    /**
+     * The source of the event, each source has its own JSON model
+     */
+    public enum EventType {
+        /** API Gateway REST API proxy event */
+        REST,
+        /** API Gateway HTTP API payload version 2.0 */
+        HTTP_API,
+        /** Application Load Balancer event */
+        ALB
+    }
+
+    /**
+     * Size of the request and, since the benchmark servlet echoes the body, of the response
+     */
+    public enum BodySize {
+        SMALL(256),
+        LARGE(512 * 1024);
+
+        private final int bytes;
+
+        BodySize(int bytes) {
+            this.bytes = bytes;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Text bodies are sent as is, binary bodies are base64 encoded in both the event and the response
+     */
+    public enum BodyContent {
+        TEXT,
+        BINARY
+    }
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    private ProxyEvents() {
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Public
+    //-------------------------------------------------------------
+
+    /**
+     * Creates the event object for the given parameters
+     * @param type The event source
+     * @param size The size of the request body
+     * @param content Whether the body is JSON text or binary content
+     * @return An <code>AwsProxyRequest</code> for the REST and ALB types, an <code>HttpApiV2ProxyRequest</code> for the
+     *         HTTP API type
+     */
+    public static Object event(EventType type, BodySize size, BodyContent content) {
+        AwsProxyRequestBuilder builder = new AwsProxyRequestBuilder(EVENT_PATH, "POST")
+                .header(HttpHeaders.ACCEPT, "application/json, text/plain, */*")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br")
+                .header(HttpHeaders.ACCEPT_LANGUAGE, "en-US,en;q=0.9")
+                .header("X-Forwarded-For", "203.0.113.10, 198.51.100.1")
+                .header("X-Forwarded-Proto", "https")
+                .header("X-Forwarded-Port", "443")
+                .header("X-Amzn-Trace-Id", "Root=1-5e9f8c6a-3b2f1a0c9d8e7f6a5b4c3d2e")
+                .userAgent("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_4) AppleWebKit/537.36 (KHTML, like Gecko)")
+                .cookie("session", "5f2b9d1c8a7e6f3b")
+                .queryString("limit", "10")
+                .queryString("sort", "name")
+                .queryString("tag", "dog")
+                .queryString("tag", "cat");
+
+        if (content == BodyContent.TEXT) {
+            builder.json().body(jsonBody(size.getBytes()));
+        } else {
+            try {
+                builder.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM)
+                        .binaryBody(new ByteArrayInputStream(binaryBody(size.getBytes())));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        switch (type) {
+            case HTTP_API:
+                return builder.toHttpApiV2Request();
+            case ALB:
+                return builder.alb().build();
+            default:
+                return builder.build();
+        }
+    }
+
+
+    /**
+     * Serializes the event for the given parameters to the JSON Lambda sends to the function
+     * @param type The event source
+     * @param size The size of the request body
+     * @param content Whether the body is JSON text or binary content
+     * @return The UTF-8 JSON bytes of the event
+     */
+    public static byte[] eventJson(EventType type, BodySize size, BodyContent content) {
+        try {
+            return LambdaContainerHandler.getObjectMapper().writeValueAsBytes(event(type, size, content));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize benchmark event", e);
+        }
+    }
+
+
+    /**
+     * Generates a JSON array of pets of roughly the given size
+     * @param bytes The approximate size of the document
+     * @return The JSON document
+     */
+    public static String jsonBody(int bytes) {
+        StringBuilder json = new StringBuilder(bytes + 128);
+        json.append('[');
+        int id = 0;
+        while (json.length() < bytes) {
+            if (id > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(id)
+                    .append("\",\"breed\":\"Labrador\",\"name\":\"Bella ").append(id)
+                    .append("\",\"dateOfBirth\":\"2015-06-01T00:00:00.000Z\"}");
+            id++;
+        }
+        json.append(']');
+        return json.toString();
+    }
+
+
+    /**
+     * Generates reproducible random bytes
+     * @param bytes The size of the array
+     * @return The generated content
+     */
+    public static byte[] binaryBody(int bytes) {
+        byte[] body = new byte[bytes];
+        new Random(BODY_SEED).nextBytes(body);
+        return body;
+    }
+
+
+    /**
+     * Returns the body of the event as the bytes the application reads
+     * @param size The size of the body
+     * @param content Whether the body is JSON text or binary content
+     * @return The body bytes
+     */
+    public static byte[] body(BodySize size, BodyContent content) {
+        if (content == BodyContent.TEXT) {
+            return jsonBody(size.getBytes()).getBytes(StandardCharsets.UTF_8);
+        }
+        return binaryBody(size.getBytes());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.benchmark;
+
+
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.BodyContent;
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.BodySize;
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.EventType;
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.services.lambda.runtime.Context;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures a complete invocation through <code>LambdaContainerHandler.proxyStream</code>: event deserialization,
+ * request reading, filter chain, an echo servlet, response writing and serialization to the output stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyStreamBenchmark {
+
+    @Param({ "REST", "HTTP_API", "ALB" })
+    public EventType eventType;
+
+    @Param({ "SMALL", "LARGE" })
+    public BodySize bodySize;
+
+    @Param({ "TEXT", "BINARY" })
+    public BodyContent bodyContent;
+
+    @Param({ "false", "true" })
+    public boolean streamResponse;
+
+    private LambdaContainerHandler<?, ?, ?, ?> handler;
+    private byte[] event;
+    private ByteArrayOutputStream output;
+    private Context lambdaContext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LambdaContainerHandler.getContainerConfig().setStreamResponse(streamResponse);
+        handler = eventType == EventType.HTTP_API
+                ? EchoServletHandler.getHttpApiV2ProxyHandler()
+                : EchoServletHandler.getAwsProxyHandler();
+        event = ProxyEvents.eventJson(eventType, bodySize, bodyContent);
+        output = new ByteArrayOutputStream(event.length * 2);
+        lambdaContext = new MockLambdaContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        LambdaContainerHandler.getContainerConfig().setStreamResponse(false);
+    }
+
+    @Benchmark
+    public int proxyStream() throws IOException {
+        output.reset();
+        handler.proxyStream(new ByteArrayInputStream(event), output, lambdaContext);
+        return output.size();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.benchmark;
+
+
+import com.amazonaws.serverless.exceptions.InvalidRequestEventException;
+import com.amazonaws.serverless.proxy.RequestReader;
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.BodyContent;
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.BodySize;
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.EventType;
+import com.amazonaws.serverless.proxy.internal.servlet.AwsHttpApiV2HttpServletRequestReader;
+import com.amazonaws.serverless.proxy.internal.servlet.AwsProxyHttpServletRequestReader;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.model.ContainerConfig;
+import com.amazonaws.services.lambda.runtime.Context;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the translation of an event object into an <code>HttpServletRequest</code> and the most common accessors a
+ * framework calls on it: headers, query parameters, cookies and the body.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestReaderBenchmark {
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    @Param({ "REST", "HTTP_API", "ALB" })
+    public EventType eventType;
+
+    @Param({ "SMALL", "LARGE" })
+    public BodySize bodySize;
+
+    @Param({ "TEXT", "BINARY" })
+    public BodyContent bodyContent;
+
+    private RequestReader<Object, HttpServletRequest> reader;
+    private Object event;
+    private ContainerConfig config;
+    private Context lambdaContext;
+    private byte[] readBuffer;
+
+    @SuppressWarnings("unchecked")
+    @Setup(Level.Trial)
+    public void setUp() {
+        RequestReader<?, HttpServletRequest> typedReader = eventType == EventType.HTTP_API
+                ? new AwsHttpApiV2HttpServletRequestReader()
+                : new AwsProxyHttpServletRequestReader();
+        reader = (RequestReader<Object, HttpServletRequest>) typedReader;
+        event = ProxyEvents.event(eventType, bodySize, bodyContent);
+        config = ContainerConfig.defaultConfig();
+        lambdaContext = new MockLambdaContext();
+        readBuffer = new byte[READ_BUFFER_SIZE];
+    }
+
+    @Benchmark
+    public HttpServletRequest readRequest() throws InvalidRequestEventException {
+        return reader.readRequest(event, null, lambdaContext, config);
+    }
+
+    @Benchmark
+    public void readRequestAndAccessors(Blackhole bh) throws InvalidRequestEventException, IOException {
+        HttpServletRequest request = reader.readRequest(event, null, lambdaContext, config);
+        bh.consume(request.getHeader(HttpHeaders.ACCEPT));
+        bh.consume(request.getHeader(HttpHeaders.CONTENT_TYPE));
+        bh.consume(request.getHeaders(HttpHeaders.ACCEPT_ENCODING));
+        bh.consume(request.getParameter("limit"));
+        bh.consume(request.getParameterValues("tag"));
+        bh.consume(request.getCookies());
+        bh.consume(request.getRequestURI());
+        bh.consume(request.getServerName());
+
+        InputStream body = request.getInputStream();
+        long total = 0;
+        int read;
+        while ((read = body.read(readBuffer)) != -1) {
+            total += read;
+        }
+        bh.consume(total);
+    }
+}
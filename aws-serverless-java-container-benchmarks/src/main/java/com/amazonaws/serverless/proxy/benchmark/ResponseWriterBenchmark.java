@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.benchmark;
+
+
+import com.amazonaws.serverless.exceptions.InvalidResponseObjectException;
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.BodyContent;
+import com.amazonaws.serverless.proxy.benchmark.ProxyEvents.BodySize;
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.internal.servlet.AwsHttpServletResponse;
+import com.amazonaws.serverless.proxy.internal.servlet.AwsProxyHttpServletRequest;
+import com.amazonaws.serverless.proxy.internal.servlet.AwsProxyHttpServletResponseWriter;
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.services.lambda.runtime.Context;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.core.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the conversion of a written servlet response into the Lambda output JSON, either through the
+ * <code>AwsProxyResponse</code> object or by streaming it straight to the output.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseWriterBenchmark {
+
+    @Param({ "SMALL", "LARGE" })
+    public BodySize bodySize;
+
+    @Param({ "TEXT", "BINARY" })
+    public BodyContent bodyContent;
+
+    private AwsProxyHttpServletResponseWriter writer;
+    private ObjectWriter objectWriter;
+    private AwsHttpServletResponse response;
+    private ByteArrayOutputStream output;
+    private Context lambdaContext;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        writer = new AwsProxyHttpServletResponseWriter();
+        objectWriter = LambdaContainerHandler.getObjectMapper().writerFor(AwsProxyResponse.class);
+        lambdaContext = new MockLambdaContext();
+
+        AwsProxyHttpServletRequest request = new AwsProxyHttpServletRequest(
+                new AwsProxyRequestBuilder(ProxyEvents.EVENT_PATH, "GET").build(), lambdaContext, null);
+        response = new AwsHttpServletResponse(request, new CountDownLatch(1));
+        response.setStatus(200);
+        response.setContentType(bodyContent == BodyContent.TEXT ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_OCTET_STREAM);
+        response.addHeader("X-Request-Path", ProxyEvents.EVENT_PATH);
+        response.addHeader("Cache-Control", "no-cache");
+        response.getOutputStream().write(ProxyEvents.body(bodySize, bodyContent));
+        response.flushBuffer();
+
+        output = new ByteArrayOutputStream(bodySize.getBytes() * 2);
+    }
+
+    @Benchmark
+    public AwsProxyResponse writeResponseObject() throws InvalidResponseObjectException {
+        return writer.writeResponse(response, lambdaContext);
+    }
+
+    @Benchmark
+    public int writeAndSerializeResponseObject() throws InvalidResponseObjectException, IOException {
+        output.reset();
+        objectWriter.writeValue(output, writer.writeResponse(response, lambdaContext));
+        return output.size();
+    }
+
+    @Benchmark
+    public int streamResponse() throws InvalidResponseObjectException, IOException {
+        output.reset();
+        writer.writeResponse(response, lambdaContext, output);
+        return output.size();
+    }
+}
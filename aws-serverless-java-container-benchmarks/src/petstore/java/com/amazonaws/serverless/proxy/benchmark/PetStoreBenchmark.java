@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.benchmark;
+
+
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.internal.testutils.Timer;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the per-invocation overhead of the framework implementations by sending the same mix of events through the
+ * <code>StreamLambdaHandler</code> of each <code>samples/*&#47;pet-store</code> application. Only the sample selected
+ * with the matching <code>petstore-*</code> Maven profile is on the classpath, the <code>framework</code> parameter
+ * must be set to the same value.
+ *
+ * The {@link #throughput()} benchmark reports operations per second, {@link #latency()} samples the response time of
+ * each invocation and reports the percentiles. Run with <code>-prof gc</code> to report the bytes allocated per
+ * request (<code>gc.alloc.rate.norm</code>).
+ */
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PetStoreBenchmark {
+
+    /**
+     * The pet store samples and their Lambda handler class
+     */
+    public enum Framework {
+        jersey("com.amazonaws.serverless.sample.jersey.StreamLambdaHandler"),
+        spark("com.amazonaws.serverless.sample.spark.StreamLambdaHandler"),
+        spring("com.amazonaws.serverless.sample.spring.StreamLambdaHandler"),
+        springboot2("com.amazonaws.serverless.sample.springboot2.StreamLambdaHandler"),
+        // the Struts2 sample uses the handler that ships with the library
+        struts2("com.amazonaws.serverless.proxy.struts2.Struts2LambdaHandler");
+
+        private final String handlerClass;
+
+        Framework(String handlerClass) {
+            this.handlerClass = handlerClass;
+        }
+
+        public String getHandlerClass() {
+            return handlerClass;
+        }
+    }
+
+    @Param
+    public Framework framework;
+
+    private RequestStreamHandler handler;
+    private byte[][] events;
+    private int nextEvent;
+    private ByteArrayOutputStream output;
+    private Context lambdaContext;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Spring Boot refuses to start when Logback is on the classpath but SLF4J is bound to the no-op logger
+        System.setProperty("org.springframework.boot.logging.LoggingSystem", "none");
+
+        Class<?> handlerClass;
+        try {
+            handlerClass = Class.forName(framework.getHandlerClass());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The " + framework + " pet store is not on the classpath, build the benchmarks "
+                    + "with the petstore-" + framework + " profile", e);
+        }
+        try {
+            handler = (RequestStreamHandler) handlerClass.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException("Could not create handler " + handlerClass.getName(), e);
+        }
+        // the samples enable the timer for debugging, it should not be part of the measurement
+        Timer.disable();
+
+        events = eventMix();
+        nextEvent = 0;
+        output = new ByteArrayOutputStream(16 * 1024);
+        lambdaContext = new MockLambdaContext();
+
+        // make sure we measure the application and not a 404
+        for (byte[] event : events) {
+            int status = invoke(event).getStatusCode();
+            if (status < 200 || status > 299) {
+                throw new IllegalStateException("The " + framework + " pet store returned status " + status);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int throughput() throws IOException {
+        return proxyNextEvent();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int latency() throws IOException {
+        return proxyNextEvent();
+    }
+
+    private int proxyNextEvent() throws IOException {
+        byte[] event = events[nextEvent];
+        nextEvent = (nextEvent + 1) % events.length;
+        output.reset();
+        handler.handleRequest(new ByteArrayInputStream(event), output, lambdaContext);
+        return output.size();
+    }
+
+    private AwsProxyResponse invoke(byte[] event) throws IOException {
+        output.reset();
+        handler.handleRequest(new ByteArrayInputStream(event), output, lambdaContext);
+        return LambdaContainerHandler.getObjectMapper().readValue(output.toByteArray(), AwsProxyResponse.class);
+    }
+
+    /**
+     * The same requests are sent to all samples: list the pets, get a single pet and create a new one
+     * @return The serialized API Gateway events
+     */
+    static byte[][] eventMix() throws IOException {
+        AwsProxyRequest[] requests = {
+                request("/pets", "GET").queryString("limit", "10").build(),
+                request("/pets/4a8b7e3c", "GET").build(),
+                request("/pets", "POST")
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+                        .body("{\"name\":\"Bella\",\"breed\":\"Labrador\",\"dateOfBirth\":\"2015-06-01T00:00:00.000Z\"}")
+                        .build()
+        };
+        byte[][] events = new byte[requests.length][];
+        for (int i = 0; i < requests.length; i++) {
+            events[i] = LambdaContainerHandler.getObjectMapper().writeValueAsBytes(requests[i]);
+        }
+        return events;
+    }
+
+    private static AwsProxyRequestBuilder request(String path, String method) {
+        return new AwsProxyRequestBuilder(path, method)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br")
+                .header("X-Forwarded-For", "203.0.113.10")
+                .header("X-Forwarded-Proto", "https")
+                .header("X-Forwarded-Port", "443")
+                .userAgent("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_4) AppleWebKit/537.36 (KHTML, like Gecko)")
+                .cognitoIdentity("us-east-2:3a1b7e8c-1d2f-4c5b-9a8e-7f6d5c4b3a21", "us-east-2:pool");
+    }
+}
@@ -0,0 +1,4 @@
+package com.amazonaws.serverless.proxy.benchmark.generated;
+public class FilterChainBenchmark_jmhType extends FilterChainBenchmark_jmhType_B3 {
+}
+
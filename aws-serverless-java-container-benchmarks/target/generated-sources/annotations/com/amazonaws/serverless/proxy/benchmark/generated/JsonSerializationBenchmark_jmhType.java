@@ -0,0 +1,4 @@
+package com.amazonaws.serverless.proxy.benchmark.generated;
+public class JsonSerializationBenchmark_jmhType extends JsonSerializationBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.amazonaws.serverless.proxy.benchmark.generated;
+public class ProxyStreamBenchmark_jmhType extends ProxyStreamBenchmark_jmhType_B3 {
+}
+
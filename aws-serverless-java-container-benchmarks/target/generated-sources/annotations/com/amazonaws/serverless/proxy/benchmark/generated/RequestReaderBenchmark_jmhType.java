@@ -0,0 +1,4 @@
+package com.amazonaws.serverless.proxy.benchmark.generated;
+public class RequestReaderBenchmark_jmhType extends RequestReaderBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.amazonaws.serverless.proxy.benchmark.generated;
+public class ResponseWriterBenchmark_jmhType extends ResponseWriterBenchmark_jmhType_B3 {
+}
+
@@ -12,6 +12,8 @@
  */
 package com.amazonaws.serverless.proxy;
 
+import com.amazonaws.serverless.proxy.internal.SecurityUtils;
+
 import javax.ws.rs.core.SecurityContext;
 
 /**
@@ -31,4 +33,20 @@ public interface LogFormatter<ContainerRequestType, ContainerResponseType> {
      * @return The log line
      */
     String format(ContainerRequestType req, ContainerResponseType res, SecurityContext ctx);
+
+
+    /**
+     * Appends the log line for the request to the given buffer. The container handler calls this method with a buffer it
+     * reuses for every request, so that formatters can avoid allocating intermediate strings. The default implementation
+     * appends the result of {@link #format(Object, Object, SecurityContext)} without its CR and LF characters.
+     * Implementations that override this method must not append CR or LF characters, the container handler logs the
+     * buffer as it is.
+     * @param req The incoming request
+     * @param res The completed response
+     * @param ctx The security context produced based on the request
+     * @param logLine The buffer the log line is appended to
+     */
+    default void format(ContainerRequestType req, ContainerResponseType res, SecurityContext ctx, StringBuilder logLine) {
+        logLine.append(SecurityUtils.crlf(format(req, res, ctx)));
+    }
 }
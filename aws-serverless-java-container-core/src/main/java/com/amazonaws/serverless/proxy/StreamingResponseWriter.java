@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy;
+
+
+import com.amazonaws.serverless.exceptions.InvalidResponseObjectException;
+import com.amazonaws.services.lambda.runtime.Context;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * A <code>ResponseWriter</code> that can also serialize the container response directly into Lambda's output stream,
+ * skipping the intermediate <code>ResponseType</code> object. The <code>LambdaContainerHandler</code> uses the streaming
+ * method from its <code>proxyStream</code> method when the <code>streamResponse</code> option is enabled in the
+ * {@link com.amazonaws.serverless.proxy.model.ContainerConfig}. The typed <code>writeResponse</code> method is still
+ * used by the <code>proxy</code> method.
+ *
+ * @param <ContainerResponseType> The response object expected from the underlying container
+ * @param <ResponseType> The type for the Lambda function return value
+ */
+public abstract class StreamingResponseWriter<ContainerResponseType, ResponseType> extends ResponseWriter<ContainerResponseType, ResponseType> {
+
+    //-------------------------------------------------------------
+    // Methods - Abstract
+    //-------------------------------------------------------------
+
+    /**
+     * Writes status code, headers, and body from the container response as a JSON Lambda return value directly to the
+     * given output stream. Implementations should not close the stream, the container handler takes care of it.
+     * @param containerResponse The container response or response reader object
+     * @param lambdaContext The context for the Lambda function execution
+     * @param output The Lambda function output stream
+     * @throws InvalidResponseObjectException When the implementation cannot read the container response object. This
+     *                                        is thrown before anything is written to the output stream
+     * @throws IOException When the response cannot be written to the output stream
+     */
+    public abstract void writeResponse(ContainerResponseType containerResponse, Context lambdaContext, OutputStream output)
+            throws InvalidResponseObjectException, IOException;
+}
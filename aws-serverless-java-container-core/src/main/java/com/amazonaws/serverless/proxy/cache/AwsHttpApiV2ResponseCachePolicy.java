@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.cache;
+
+
+import com.amazonaws.serverless.proxy.model.HttpApiV2AuthorizerMap;
+import com.amazonaws.serverless.proxy.model.HttpApiV2ProxyRequest;
+
+import java.util.Map;
+
+
+/**
+ * Response cache policy for API Gateway HTTP API events. The principal is the subject of the JWT authorizer. The event
+ * model does not expose the identity established by Lambda and IAM authorizers, requests authorized by them are never
+ * cached. See {@link HttpResponseCachePolicy} for the caching rules.
+ */
+public class AwsHttpApiV2ResponseCachePolicy extends HttpResponseCachePolicy<HttpApiV2ProxyRequest> {
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    /**
+     * @param varyHeaders The request headers whose values are part of the cache key
+     */
+    public AwsHttpApiV2ResponseCachePolicy(String... varyHeaders) {
+        super(varyHeaders);
+    }
+
+
+    //-------------------------------------------------------------
+    // Implementation - HttpResponseCachePolicy
+    //-------------------------------------------------------------
+
+    @Override
+    protected String getMethod(HttpApiV2ProxyRequest request) {
+        if (request.getRequestContext() == null || request.getRequestContext().getHttp() == null) {
+            return null;
+        }
+        return request.getRequestContext().getHttp().getMethod();
+    }
+
+
+    @Override
+    protected String getPath(HttpApiV2ProxyRequest request) {
+        return request.getRawPath();
+    }
+
+
+    @Override
+    protected String getQueryString(HttpApiV2ProxyRequest request) {
+        return request.getRawQueryString();
+    }
+
+
+    @Override
+    protected String getHeader(HttpApiV2ProxyRequest request, String name) {
+        if ("cookie".equals(name) && request.getCookies() != null && !request.getCookies().isEmpty()) {
+            // HTTP API moves the cookie header to its own field
+            return String.join("; ", request.getCookies());
+        }
+        return getIgnoreCase(request.getHeaders(), name);
+    }
+
+
+    @Override
+    protected String getPrincipal(HttpApiV2ProxyRequest request) {
+        if (request.getRequestContext() == null) {
+            return "";
+        }
+        HttpApiV2AuthorizerMap authorizer = request.getRequestContext().getAuthorizer();
+        if (authorizer == null) {
+            return "";
+        }
+        if (authorizer.isJwt() && authorizer.getJwtAuthorizer() != null) {
+            Map<String, String> claims = authorizer.getJwtAuthorizer().getClaims();
+            String subject = claims != null ? claims.get("sub") : null;
+            return subject != null ? "jwt:" + subject : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.cache;
+
+
+import com.amazonaws.serverless.proxy.model.ApiGatewayAuthorizerContext;
+import com.amazonaws.serverless.proxy.model.ApiGatewayRequestIdentity;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequestContext;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Response cache policy for API Gateway REST API and ALB events. The principal is read from the authorizer principal id
+ * or Cognito subject, the IAM user ARN or Cognito identity of the caller, or the <code>x-amzn-oidc-identity</code>
+ * header set by an ALB with OIDC authentication. See {@link HttpResponseCachePolicy} for the caching rules.
+ */
+public class AwsProxyResponseCachePolicy extends HttpResponseCachePolicy<AwsProxyRequest> {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    static final String ALB_IDENTITY_HEADER = "x-amzn-oidc-identity";
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    /**
+     * @param varyHeaders The request headers whose values are part of the cache key
+     */
+    public AwsProxyResponseCachePolicy(String... varyHeaders) {
+        super(varyHeaders);
+    }
+
+
+    //-------------------------------------------------------------
+    // Implementation - HttpResponseCachePolicy
+    //-------------------------------------------------------------
+
+    @Override
+    protected String getMethod(AwsProxyRequest request) {
+        return request.getHttpMethod();
+    }
+
+
+    @Override
+    protected String getPath(AwsProxyRequest request) {
+        return request.getPath();
+    }
+
+
+    @Override
+    protected String getQueryString(AwsProxyRequest request) {
+        if (request.getMultiValueQueryStringParameters() == null || request.getMultiValueQueryStringParameters().isEmpty()) {
+            return null;
+        }
+        // the parameters are stored in a sorted map, the order of the names does not change the key
+        StringBuilder query = new StringBuilder();
+        boolean first = true;
+        for (Map.Entry<String, List<String>> parameter : request.getMultiValueQueryStringParameters().entrySet()) {
+            if (parameter.getValue() == null) {
+                continue;
+            }
+            for (String value : parameter.getValue()) {
+                if (!first) {
+                    query.append('&');
+                }
+                first = false;
+                // the values are decoded by API Gateway, encode them again so that they cannot contain separators
+                appendEncoded(query, parameter.getKey());
+                if (value != null) {
+                    appendEncoded(query.append('='), value);
+                }
+            }
+        }
+        return query.toString();
+    }
+
+
+    @Override
+    protected String getHeader(AwsProxyRequest request, String name) {
+        if (request.getMultiValueHeaders() == null) {
+            return null;
+        }
+        return joinValues(request.getMultiValueHeaders().get(name));
+    }
+
+
+    @Override
+    protected String getPrincipal(AwsProxyRequest request) {
+        AwsProxyRequestContext context = request.getRequestContext();
+        if (context != null) {
+            ApiGatewayAuthorizerContext authorizer = context.getAuthorizer();
+            if (authorizer != null) {
+                if (authorizer.getPrincipalId() != null) {
+                    return "principal:" + authorizer.getPrincipalId();
+                }
+                if (authorizer.getClaims() != null && authorizer.getClaims().getSubject() != null) {
+                    return "sub:" + authorizer.getClaims().getSubject();
+                }
+                // the request was authorized but we cannot tell by whom
+                return null;
+            }
+            ApiGatewayRequestIdentity identity = context.getIdentity();
+            if (identity != null && identity.getUserArn() != null) {
+                return "iam:" + identity.getUserArn();
+            }
+            if (identity != null && identity.getCognitoIdentityId() != null) {
+                return "cognito:" + identity.getCognitoIdentityId();
+            }
+        }
+        String albIdentity = getHeader(request, ALB_IDENTITY_HEADER);
+        if (albIdentity != null) {
+            return "oidc:" + albIdentity;
+        }
+        return "";
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    /**
+     * Percent-encodes the characters that separate query string parameters and the percent sign itself
+     */
+    private static void appendEncoded(StringBuilder query, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '%':
+                    query.append("%25");
+                    break;
+                case '&':
+                    query.append("%26");
+                    break;
+                case '=':
+                    query.append("%3D");
+                    break;
+                default:
+                    query.append(c);
+            }
+        }
+    }
+}
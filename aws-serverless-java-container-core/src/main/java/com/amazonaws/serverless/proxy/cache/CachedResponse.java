@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.cache;
+
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+
+/**
+ * A serialized Lambda response stored in the {@link ResponseCache}. The status, body size and entity tag are read from
+ * the response by the {@link ResponseCachePolicy} when it is stored, so that the container handler can answer
+ * conditional requests, write the access log and record metrics for a cache hit without deserializing the response.
+ */
+public final class CachedResponse {
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final byte[] value;
+    private final int statusCode;
+    private final long bodySize;
+    private final String entityTag;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    /**
+     * @param value The serialized response, the array is not copied and must not be modified afterwards
+     * @param statusCode The status code of the response
+     * @param bodySize The size of the response body in bytes, before base64 encoding
+     * @param entityTag The value of the <code>ETag</code> header of the response, null if it does not have one
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public CachedResponse(byte[] value, int statusCode, long bodySize, String entityTag) {
+        if (value == null) {
+            throw new IllegalArgumentException("The cached response cannot be null");
+        }
+        this.value = value;
+        this.statusCode = statusCode;
+        this.bodySize = bodySize;
+        this.entityTag = entityTag;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Getter/Setter
+    //-------------------------------------------------------------
+
+    /**
+     * @return The serialized response. The array is shared by every hit, callers must not modify it
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[] getValue() {
+        return value;
+    }
+
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+
+    public long getBodySize() {
+        return bodySize;
+    }
+
+
+    public String getEntityTag() {
+        return entityTag;
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.cache;
+
+
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.internal.servlet.EntityTags;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.serverless.proxy.model.Headers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Base cache policy for events that produce an <code>AwsProxyResponse</code>. Only <code>GET</code> and
+ * <code>HEAD</code> requests are cached, keyed by method, path, query string, the values of the configured vary headers
+ * and the principal identified by the API Gateway authorizer. Every part of the key is prefixed with its length, so that
+ * values containing separators, such as a path with an encoded <code>?</code>, cannot make two different requests share
+ * a key. Requests that carry credentials the policy cannot see
+ * through, an <code>Authorization</code> or <code>Cookie</code> header that is not in the vary headers or an authorizer
+ * without a principal, are never cached.
+ *
+ * Responses are cached when they have a 200 status and the application allows it with its <code>Cache-Control</code>
+ * header: <code>s-maxage</code> or <code>max-age</code> give the time to live, <code>no-store</code>,
+ * <code>no-cache</code> and <code>private</code> prevent caching. Responses without a <code>Cache-Control</code> header
+ * are cached for the default time to live, which is 0 unless set. Responses that set cookies or vary on headers that are
+ * not part of the key are never cached.
+ *
+ * A cache hit for a request whose <code>If-None-Match</code> header matches the <code>ETag</code> of the cached
+ * response is answered with a <code>304 Not Modified</code> response.
+ * @param <RequestType> The AWS Lambda event type
+ */
+public abstract class HttpResponseCachePolicy<RequestType> implements ResponseCachePolicy<RequestType, AwsProxyResponse> {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final char SEPARATOR = '\n';
+    private static final String WEAK_PREFIX = "W/";
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final String[] varyHeaders;
+    private long defaultTimeToLive = 0;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    /**
+     * @param varyHeaders The request headers whose values are part of the cache key
+     */
+    protected HttpResponseCachePolicy(String... varyHeaders) {
+        this.varyHeaders = varyHeaders == null ? new String[0] : varyHeaders.clone();
+        for (int i = 0; i < this.varyHeaders.length; i++) {
+            this.varyHeaders[i] = this.varyHeaders[i].trim().toLowerCase(Locale.ENGLISH);
+        }
+        Arrays.sort(this.varyHeaders);
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Abstract
+    //-------------------------------------------------------------
+
+    protected abstract String getMethod(RequestType request);
+
+    protected abstract String getPath(RequestType request);
+
+    /**
+     * @param request The Lambda event
+     * @return The query string in a canonical form, without the leading <code>?</code>, or null if there is none. Names
+     *         and values must be percent-encoded, so that <code>&amp;</code> and <code>=</code> only appear as
+     *         separators
+     */
+    protected abstract String getQueryString(RequestType request);
+
+    /**
+     * @param request The Lambda event
+     * @param name The lower case header name
+     * @return The values of the header joined by commas, or null if the header is not present
+     */
+    protected abstract String getHeader(RequestType request, String name);
+
+    /**
+     * Returns the caller identity established by API Gateway
+     * @param request The Lambda event
+     * @return The principal, an empty string for anonymous requests or null if the request carries an identity the
+     *         policy cannot read
+     */
+    protected abstract String getPrincipal(RequestType request);
+
+
+    //-------------------------------------------------------------
+    // Implementation - ResponseCachePolicy
+    //-------------------------------------------------------------
+
+    @Override
+    public String getCacheKey(RequestType request) {
+        String method = getMethod(request);
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return null;
+        }
+        if ((getHeader(request, "authorization") != null && !isVaryHeader("authorization"))
+                || (getHeader(request, "cookie") != null && !isVaryHeader("cookie"))) {
+            return null;
+        }
+        String requestCacheControl = getHeader(request, "cache-control");
+        if (requestCacheControl != null && (hasDirective(requestCacheControl, "no-cache") || hasDirective(requestCacheControl, "no-store"))) {
+            return null;
+        }
+        String principal = getPrincipal(request);
+        if (principal == null) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder(128);
+        key.append(method).append(' ');
+        appendKeyPart(key, getPath(request));
+        String query = getQueryString(request);
+        appendKeyPart(key.append('?'), query == null || query.isEmpty() ? null : query);
+        for (String header : varyHeaders) {
+            key.append(SEPARATOR).append(header).append(':');
+            appendKeyPart(key, getHeader(request, header));
+        }
+        appendKeyPart(key.append(SEPARATOR), principal);
+        return key.toString();
+    }
+
+
+    @Override
+    public long getTimeToLive(RequestType request, AwsProxyResponse response) {
+        if (response == null || response.getStatusCode() != 200) {
+            return 0;
+        }
+        if (getResponseHeader(response, HttpHeaders.SET_COOKIE) != null) {
+            return 0;
+        }
+        String vary = getResponseHeader(response, HttpHeaders.VARY);
+        if (vary != null && !isKeyedOn(vary)) {
+            return 0;
+        }
+
+        String cacheControl = getResponseHeader(response, HttpHeaders.CACHE_CONTROL);
+        if (cacheControl == null) {
+            return defaultTimeToLive;
+        }
+        if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "no-cache") || hasDirective(cacheControl, "private")) {
+            return 0;
+        }
+        long maxAge = getSeconds(cacheControl, "s-maxage");
+        if (maxAge < 0) {
+            maxAge = getSeconds(cacheControl, "max-age");
+        }
+        return maxAge < 0 ? defaultTimeToLive : TimeUnit.SECONDS.toMillis(maxAge);
+    }
+
+
+    @Override
+    public CachedResponse createCachedResponse(AwsProxyResponse response, byte[] serialized) {
+        return new CachedResponse(serialized, response.getStatusCode(), getBodySize(response),
+                getResponseHeader(response, HttpHeaders.ETAG));
+    }
+
+
+    @Override
+    public CachedResponse getConditionalResponse(RequestType request, CachedResponse cached) {
+        String ifNoneMatch = getHeader(request, "if-none-match");
+        String entityTag = cached.getEntityTag();
+        if (ifNoneMatch == null || entityTag == null) {
+            return null;
+        }
+        // If-None-Match uses the weak comparison, the weakness indicator of the cached tag does not matter
+        if (entityTag.startsWith(WEAK_PREFIX)) {
+            entityTag = entityTag.substring(WEAK_PREFIX.length());
+        }
+        if (entityTag.length() < 2 || entityTag.charAt(0) != '"' || entityTag.charAt(entityTag.length() - 1) != '"'
+                || !EntityTags.matches(ifNoneMatch, entityTag)) {
+            return null;
+        }
+
+        AwsProxyResponse response;
+        try {
+            response = LambdaContainerHandler.getObjectMapper().readValue(cached.getValue(), AwsProxyResponse.class);
+        } catch (IOException e) {
+            // send the cached response, it is still valid
+            return null;
+        }
+        // a 304 response only repeats the validators and cache headers of the representation
+        AwsProxyResponse notModified = new AwsProxyResponse(HttpServletResponse.SC_NOT_MODIFIED);
+        notModified.setMultiValueHeaders(copyHeaders(response.getMultiValueHeaders()));
+        if (response.getHeaders() != null) {
+            Map<String, String> headers = new HashMap<>(response.getHeaders());
+            headers.keySet().removeIf(name -> HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name));
+            notModified.setHeaders(headers);
+        }
+        if (response.getStatusDescription() != null) {
+            notModified.setStatusDescription(HttpServletResponse.SC_NOT_MODIFIED + " "
+                    + Response.Status.NOT_MODIFIED.getReasonPhrase());
+        }
+        try {
+            return new CachedResponse(LambdaContainerHandler.getObjectMapper().writeValueAsBytes(notModified),
+                    HttpServletResponse.SC_NOT_MODIFIED, 0, cached.getEntityTag());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Getter/Setter
+    //-------------------------------------------------------------
+
+    /**
+     * @return The time to live in milliseconds of responses without a <code>Cache-Control</code> header
+     */
+    public long getDefaultTimeToLive() {
+        return defaultTimeToLive;
+    }
+
+
+    /**
+     * Sets the time to live of responses that do not specify a <code>Cache-Control</code> header or a max age. By
+     * default these responses are not cached.
+     * @param millis The time to live in milliseconds
+     */
+    public void setDefaultTimeToLive(long millis) {
+        this.defaultTimeToLive = millis;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Protected
+    //-------------------------------------------------------------
+
+    /**
+     * Joins the values of a header the way they would be sent in a single header line
+     */
+    protected static String joinValues(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        if (values.size() == 1) {
+            return values.get(0);
+        }
+        return String.join(",", values);
+    }
+
+
+    /**
+     * Looks up a header in a single value map, the keys may be in any case
+     */
+    protected static String getIgnoreCase(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        String value = headers.get(name);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    /**
+     * Appends a part of the cache key prefixed with its length, a dash if the part is missing
+     */
+    private static void appendKeyPart(StringBuilder key, String part) {
+        if (part == null) {
+            key.append('-');
+        } else {
+            key.append(part.length()).append(':').append(part);
+        }
+    }
+
+
+    private static Headers copyHeaders(Headers headers) {
+        Headers copy = new Headers();
+        if (headers != null) {
+            copy.putAll(headers);
+            copy.remove(HttpHeaders.CONTENT_TYPE);
+            copy.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+        return copy;
+    }
+
+
+    /**
+     * @return The size in bytes of the response body, decoded if it is base64 encoded
+     */
+    private static long getBodySize(AwsProxyResponse response) {
+        String body = response.getBody();
+        if (body == null) {
+            return 0;
+        }
+        if (!response.isBase64Encoded()) {
+            return body.getBytes(StandardCharsets.UTF_8).length;
+        }
+        int length = body.length();
+        int padding = 0;
+        while (padding < 2 && length - padding > 0 && body.charAt(length - padding - 1) == '=') {
+            padding++;
+        }
+        return length / 4 * 3 - padding;
+    }
+
+
+    private boolean isVaryHeader(String name) {
+        return Arrays.binarySearch(varyHeaders, name) >= 0;
+    }
+
+
+    /**
+     * Checks that every header the response varies on is part of the cache key
+     */
+    private boolean isKeyedOn(String vary) {
+        for (String header : vary.split(",")) {
+            String name = header.trim().toLowerCase(Locale.ENGLISH);
+            if (name.isEmpty()) {
+                continue;
+            }
+            if ("*".equals(name) || !isVaryHeader(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static String getResponseHeader(AwsProxyResponse response, String name) {
+        if (response.getMultiValueHeaders() != null) {
+            String value = joinValues(response.getMultiValueHeaders().get(name));
+            if (value != null) {
+                return value;
+            }
+        }
+        return getIgnoreCase(response.getHeaders(), name);
+    }
+
+
+    private static boolean hasDirective(String cacheControl, String directive) {
+        for (String part : cacheControl.split(",")) {
+            String name = part.trim();
+            int equals = name.indexOf('=');
+            if (equals >= 0) {
+                name = name.substring(0, equals).trim();
+            }
+            if (directive.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return The value of a delta-seconds directive, -1 if the directive is missing or invalid
+     */
+    private static long getSeconds(String cacheControl, String directive) {
+        for (String part : cacheControl.split(",")) {
+            int equals = part.indexOf('=');
+            if (equals < 0 || !directive.equalsIgnoreCase(part.substring(0, equals).trim())) {
+                continue;
+            }
+            String value = part.substring(equals + 1).trim();
+            if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            try {
+                return Math.max(0, Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.cache;
+
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Bounded cache of serialized responses for a container handler. Entries expire after the time to live returned by the
+ * {@link ResponseCachePolicy} and the least recently used entries are evicted when the cache holds more than the
+ * maximum number of entries or bytes. A hit returns the {@link CachedResponse}, the container handler writes the
+ * serialized response to the Lambda output without calling the framework:
+ * <pre>
+ * handler.setResponseCache(new ResponseCache&lt;&gt;(new AwsProxyResponseCachePolicy("Accept"), 256, 16 * 1024 * 1024));
+ * </pre>
+ *
+ * The cache is thread-safe. Cached responses are shared by every hit, callers must not modify them.
+ * @param <RequestType> The AWS Lambda event type
+ * @param <ResponseType> The Lambda response type
+ */
+public class ResponseCache<RequestType, ResponseType> {
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final ResponseCachePolicy<RequestType, ResponseType> policy;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LongSupplier nanoClock;
+    // access ordered, the first entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries;
+    private long totalBytes;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    /**
+     * Creates a new cache
+     * @param policy The policy that decides which requests are cached and for how long
+     * @param maxEntries The maximum number of cached responses
+     * @param maxBytes The maximum total size of the cached responses in bytes
+     */
+    public ResponseCache(ResponseCachePolicy<RequestType, ResponseType> policy, int maxEntries, long maxBytes) {
+        this(policy, maxEntries, maxBytes, System::nanoTime);
+    }
+
+
+    ResponseCache(ResponseCachePolicy<RequestType, ResponseType> policy, int maxEntries, long maxBytes, LongSupplier nanoClock) {
+        if (policy == null) {
+            throw new IllegalArgumentException("The response cache policy cannot be null");
+        }
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("The response cache must be able to hold at least one entry");
+        }
+        this.policy = policy;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.nanoClock = nanoClock;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Public
+    //-------------------------------------------------------------
+
+    /**
+     * @return The policy used by this cache
+     */
+    public ResponseCachePolicy<RequestType, ResponseType> getPolicy() {
+        return policy;
+    }
+
+
+    /**
+     * Returns the cached response for a key and marks it as recently used. Expired entries are removed.
+     * @param key The cache key returned by the policy
+     * @return The cached response, or null if there is no valid entry for the key
+     */
+    public synchronized CachedResponse get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nanoClock.getAsLong() - entry.expiresAt >= 0) {
+            remove(key, entry);
+            return null;
+        }
+        return entry.response;
+    }
+
+
+    /**
+     * Stores a response, replacing any previous entry for the key. Least recently used entries are evicted until the
+     * cache is within its bounds again. Responses larger than the maximum size are not stored.
+     * @param key The cache key returned by the policy
+     * @param response The response created by the policy
+     * @param timeToLiveMillis The time to live returned by the policy
+     */
+    public synchronized void put(String key, CachedResponse response, long timeToLiveMillis) {
+        if (timeToLiveMillis <= 0 || response.getValue().length > maxBytes) {
+            return;
+        }
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            totalBytes -= previous.size();
+        }
+        entries.put(key, new Entry(response, nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis)));
+        totalBytes += response.getValue().length;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+
+    /**
+     * Removes all entries
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+
+    /**
+     * @return The number of cached responses, including expired ones that have not been removed yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+
+    /**
+     * @return The total size of the cached responses in bytes
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        totalBytes -= entry.size();
+    }
+
+
+    private static final class Entry {
+        private final CachedResponse response;
+        private final long expiresAt;
+
+        private Entry(CachedResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+        private int size() {
+            return response.getValue().length;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.cache;
+
+
+/**
+ * Decides which requests the {@link ResponseCache} serves and for how long responses are kept. The library includes
+ * implementations for API Gateway REST and ALB events, {@link AwsProxyResponseCachePolicy}, and HTTP API events,
+ * {@link AwsHttpApiV2ResponseCachePolicy}.
+ * @param <RequestType> The AWS Lambda event type
+ * @param <ResponseType> The Lambda response type
+ */
+public interface ResponseCachePolicy<RequestType, ResponseType> {
+    /**
+     * Builds the key a request is cached under. Two requests with the same key must receive the same response.
+     * @param request The incoming Lambda event
+     * @return The cache key, or null if the request must always be handled by the framework
+     */
+    String getCacheKey(RequestType request);
+
+
+    /**
+     * Decides for how long a response can be served from the cache
+     * @param request The Lambda event the response was produced for
+     * @param response The response returned by the framework
+     * @return The time to live of the response in milliseconds, 0 or less if it must not be cached
+     */
+    long getTimeToLive(RequestType request, ResponseType response);
+
+
+    /**
+     * Creates the cache entry for a response that can be cached
+     * @param response The response returned by the framework
+     * @param serialized The response serialized by the container handler
+     * @return The entry, with the status, body size and entity tag of the response
+     */
+    CachedResponse createCachedResponse(ResponseType response, byte[] serialized);
+
+
+    /**
+     * Answers a conditional request from a cached response, for example with a <code>304 Not Modified</code> when the
+     * <code>If-None-Match</code> header of the request matches the entity tag of the cached response
+     * @param request The incoming Lambda event
+     * @param cached The cached response for the request
+     * @return The response to send instead of the cached response, null to send the cached response
+     */
+    CachedResponse getConditionalResponse(RequestType request, CachedResponse cached);
+}
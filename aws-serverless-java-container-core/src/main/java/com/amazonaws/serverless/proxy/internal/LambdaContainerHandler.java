@@ -14,12 +14,23 @@ package com.amazonaws.serverless.proxy.internal;
 
 
 import com.amazonaws.serverless.exceptions.ContainerInitializationException;
+import com.amazonaws.serverless.exceptions.InvalidRequestEventException;
+import com.amazonaws.serverless.exceptions.InvalidResponseObjectException;
 import com.amazonaws.serverless.proxy.*;
+import com.amazonaws.serverless.proxy.cache.CachedResponse;
+import com.amazonaws.serverless.proxy.cache.ResponseCache;
 import com.amazonaws.serverless.proxy.internal.servlet.ApacheCombinedServletLogFormatter;
+import com.amazonaws.serverless.proxy.internal.testutils.Timer;
+import com.amazonaws.serverless.proxy.metrics.Counter;
+import com.amazonaws.serverless.proxy.metrics.InvocationMetrics;
+import com.amazonaws.serverless.proxy.metrics.MetricsRegistry;
+import com.amazonaws.serverless.proxy.metrics.MetricsSink;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
 import com.amazonaws.serverless.proxy.model.ContainerConfig;
 import com.amazonaws.services.lambda.runtime.Context;
 
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
@@ -28,11 +39,13 @@ import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.SecurityContext;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -53,6 +66,15 @@ public abstract class LambdaContainerHandler<RequestType, ResponseType, Containe
 
     public static final String SERVER_INFO = "aws-serverless-java-container";
 
+    public static final String METRIC_REQUESTS = "CONTAINER_REQUESTS";
+    public static final String METRIC_ERRORS = "CONTAINER_ERRORS";
+    public static final String METRIC_CACHE_HITS = "CONTAINER_CACHE_HITS";
+    public static final String TIMER_PROXY = "CONTAINER_PROXY";
+    public static final String TIMER_READ_REQUEST = "CONTAINER_READ_REQUEST";
+    public static final String TIMER_HANDLE_REQUEST = "CONTAINER_HANDLE_REQUEST";
+
+    private static final int MAX_ACCESS_LOG_LINE_CAPACITY = 16 * 1024;
+
 
     //-------------------------------------------------------------
     // Variables - Private
@@ -73,6 +95,26 @@ public abstract class LambdaContainerHandler<RequestType, ResponseType, Containe
 
     private ObjectReader objectReader;
     private ObjectWriter objectWriter;
+    // reads cached responses for the proxy method, created on first use
+    private ObjectReader responseReader;
+
+    private ResponseCache<RequestType, ResponseType> responseCache;
+
+    // reused for the access log line of every invocation
+    private StringBuilder accessLogLine;
+    // the request of the current invocation, kept until the response is written and the access log line is formatted
+    private ContainerRequestType pendingLogRequest;
+    private ContainerResponseType pendingLogResponse;
+    private SecurityContext pendingLogSecurityContext;
+    // flushes the line deferred by the last proxy call if the JVM shuts down before the next invocation
+    private boolean accessLogShutdownHookAdded = false;
+    // set while the outermost proxy or proxyStream call handles the current invocation
+    private boolean handlingInvocation = false;
+
+    private MetricsSink metricsSink;
+    private final InvocationMetrics invocationMetrics = new InvocationMetrics();
+    // set while the outermost proxy or proxyStream call collects the metrics of the current invocation
+    private boolean collectingMetrics = false;
 
     //-------------------------------------------------------------
     // Variables - Private - Static
@@ -84,6 +126,12 @@ public abstract class LambdaContainerHandler<RequestType, ResponseType, Containe
         objectMapper.registerModule(new AfterburnerModule());
     }
 
+    private static final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private static final Counter requestCounter = metrics.counter(METRIC_REQUESTS);
+    private static final Counter errorCounter = metrics.counter(METRIC_ERRORS);
+    private static final Counter cacheHitCounter = metrics.counter(METRIC_CACHE_HITS);
+    private static volatile boolean coldStart = true;
+
 
 
     //-------------------------------------------------------------
@@ -185,52 +233,88 @@ public abstract class LambdaContainerHandler<RequestType, ResponseType, Containe
     }
 
 
+    /**
+     * Sets the sink that receives the metrics of each invocation, for example the {@link com.amazonaws.serverless.proxy.metrics.EmfMetricsSink}.
+     * By default no sink is set and the handler does not measure the phases of the request pipeline.
+     * @param sink The metrics sink, null to stop collecting invocation metrics
+     */
+    public void setMetricsSink(MetricsSink sink) {
+        this.metricsSink = sink;
+    }
+
+
+    /**
+     * Sets the cache used to answer repeated requests without calling the framework, see {@link ResponseCache}. By
+     * default no cache is set and every request is handled by the framework.
+     * @param cache The response cache, null to disable caching
+     */
+    public void setResponseCache(ResponseCache<RequestType, ResponseType> cache) {
+        this.responseCache = cache;
+    }
+
+
+    /**
+     * Logs the access log line of the last request handled by {@link #proxy(Object, Context)}, if it has not been
+     * logged yet. The <code>proxy</code> method returns its response to the Lambda runtime before the line is logged,
+     * and the line is written when the next invocation starts or when the JVM shuts down. Functions that need the line
+     * in the logs of the invocation that produced it can call this method after <code>proxy</code> returns.
+     */
+    public void flushAccessLog() {
+        writeAccessLog();
+    }
+
+
     /**
      * Proxies requests to the underlying container given the incoming Lambda request. This method returns a populated
-     * return object for the Lambda function.
+     * return object for the Lambda function. The access log line of the request is logged after the response is
+     * returned, see {@link #flushAccessLog()}.
      *
      * @param request The incoming Lambda request
      * @param context The execution context for the Lambda function
      * @return A valid response type
      */
     public ResponseType proxy(RequestType request, Context context) {
+        boolean emitMetrics = startInvocationMetrics();
+        boolean startedInvocation = startInvocation();
+        Timer.start(TIMER_PROXY);
         lambdaContext = context;
         CountDownLatch latch = new CountDownLatch(1);
         try {
-            SecurityContext securityContext = securityContextWriter.writeSecurityContext(request, context);
-            ContainerRequestType containerRequest = requestReader.readRequest(request, securityContext, context, config);
-            ContainerResponseType containerResponse = getContainerResponse(containerRequest, latch);
-
-            if (initializationWrapper != null && initializationWrapper.getInitializationLatch() != null) {
-                // we let the potential InterruptedException bubble up
-                if (!initializationWrapper.getInitializationLatch().await(config.getInitializationTimeout(), TimeUnit.MILLISECONDS)) {
-                    throw new ContainerInitializationException("Could not initialize framework within the " + config.getInitializationTimeout() + "ms timeout", null);
+            // proxyStream looks up and stores the serialized response itself
+            String cacheKey = startedInvocation ? getCacheKey(request) : null;
+            if (cacheKey != null) {
+                CachedResponse cached = getCachedResponse(cacheKey, request, context);
+                if (cached != null) {
+                    if (responseReader == null) {
+                        responseReader = getObjectMapper().readerFor(responseTypeClass);
+                    }
+                    return responseReader.readValue(cached.getValue());
                 }
             }
 
-            handleRequest(containerRequest, containerResponse, context);
+            ContainerResponseType containerResponse = processRequest(request, context, latch);
 
-            latch.await();
-
-            if (logFormatter != null) {
-                log.info(SecurityUtils.crlf(logFormatter.format(containerRequest, containerResponse, securityContext)));
+            InvocationMetrics invocation = getInvocationMetrics();
+            long writeStart = invocation != null ? System.nanoTime() : 0L;
+            ResponseType response = responseWriter.writeResponse(containerResponse, context);
+            if (invocation != null) {
+                invocation.lap(InvocationMetrics.Phase.WRITE_RESPONSE, writeStart);
+                recordResponseMetrics(containerResponse, invocation);
             }
-
-            return responseWriter.writeResponse(containerResponse, context);
+            if (cacheKey != null) {
+                cacheResponse(cacheKey, request, response);
+            }
+            return response;
         } catch (Exception e) {
-            log.error("Error while handling request", e);
-            // release all waiting threads. This is safe here because if the count was already 0
-            // the latch will do nothing
-            latch.countDown();
-
-            if (getContainerConfig().isDisableExceptionMapper()) {
-                if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
-                } else {
-                    throw new RuntimeException(e);
-                }
-            } else {
-                return exceptionHandler.handle(e);
+            return recordErrorResponse(handleException(e, latch));
+        } finally {
+            Timer.stop(TIMER_PROXY);
+            if (emitMetrics) {
+                emitInvocationMetrics(context);
+            }
+            if (startedInvocation) {
+                // the response is only sent once this method returns, the line is logged by the next invocation
+                endInvocation(true);
             }
         }
     }
@@ -248,21 +332,445 @@ public abstract class LambdaContainerHandler<RequestType, ResponseType, Containe
      */
     public void proxyStream(InputStream input, OutputStream output, Context context)
             throws IOException {
-
+        boolean emitMetrics = startInvocationMetrics();
+        boolean startedInvocation = startInvocation();
+        InvocationMetrics invocation = getInvocationMetrics();
+        long phaseStart = invocation != null ? System.nanoTime() : 0L;
+        boolean responseWritten = false;
         try {
             RequestType request = objectReader.readValue(input);
-            ResponseType resp = proxy(request, context);
+            if (invocation != null) {
+                invocation.lap(InvocationMetrics.Phase.READ_REQUEST, phaseStart);
+            }
+            String cacheKey = getCacheKey(request);
+            CachedResponse cached = cacheKey != null ? getCachedResponse(cacheKey, request, context) : null;
+            if (cached != null) {
+                output.write(cached.getValue());
+            } else if (config.isStreamResponse() && responseWriter instanceof StreamingResponseWriter) {
+                // streamed responses are never buffered, so they cannot be cached
+                proxyToStream(request, output, context);
+            } else {
+                ResponseType resp = proxy(request, context);
 
-            objectWriter.writeValue(output, resp);
+                phaseStart = invocation != null ? System.nanoTime() : 0L;
+                if (cacheKey == null || !cacheResponse(cacheKey, request, resp, output)) {
+                    objectWriter.writeValue(output, resp);
+                }
+                if (invocation != null) {
+                    invocation.lap(InvocationMetrics.Phase.SERIALIZE_RESPONSE, phaseStart);
+                }
+            }
+            responseWritten = true;
         } catch (JsonParseException e) {
             log.error("Error while parsing request object stream", e);
-            getObjectMapper().writeValue(output, exceptionHandler.handle(e));
+            markInvocationError();
+            getObjectMapper().writeValue(output, recordErrorResponse(exceptionHandler.handle(e)));
+            responseWritten = true;
         } catch (JsonMappingException e) {
             log.error("Error while mapping object to RequestType class", e);
-            getObjectMapper().writeValue(output, exceptionHandler.handle(e));
+            markInvocationError();
+            getObjectMapper().writeValue(output, recordErrorResponse(exceptionHandler.handle(e)));
+            responseWritten = true;
+        } finally {
+            try {
+                // a failed write may have left a truncated response in the stream, it must not be flushed as a
+                // complete response. The exception is reported to the Lambda runtime instead
+                if (responseWritten) {
+                    output.flush();
+                    output.close();
+                }
+            } finally {
+                if (emitMetrics) {
+                    emitInvocationMetrics(context);
+                }
+                // the response has been written, log the access log line
+                if (startedInvocation) {
+                    endInvocation(false);
+                }
+            }
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Protected
+    //-------------------------------------------------------------
+
+    /**
+     * Returns the metrics of the invocation that is currently being processed. Implementations can use this to measure
+     * phases that happen inside the framework, such as the filter chain resolution.
+     * @return The invocation metrics, or null if no metrics sink is set
+     */
+    protected InvocationMetrics getInvocationMetrics() {
+        return collectingMetrics ? invocationMetrics : null;
+    }
+
+
+    /**
+     * Records the status code and size of the response once the response writer has turned it into the Lambda
+     * response. The default implementation records the status of servlet responses.
+     * @param containerResponse The response produced by the framework
+     * @param metrics The metrics of the current invocation
+     */
+    protected void recordResponseMetrics(ContainerResponseType containerResponse, InvocationMetrics metrics) {
+        if (containerResponse instanceof HttpServletResponse) {
+            metrics.setStatusCode(((HttpServletResponse) containerResponse).getStatus());
+        }
+    }
+
+
+    /**
+     * Creates the container response the access log line of a response served from the response cache is formatted
+     * with. The framework is not called for cache hits, the response only describes the cached response. The default
+     * implementation returns null and cache hits are not written to the access log.
+     * @param containerRequest The request read from the Lambda event
+     * @param cached The cached response sent to the client
+     * @return A container response with the status and body size of the cached response, or null
+     */
+    protected ContainerResponseType getCachedContainerResponse(ContainerRequestType containerRequest, CachedResponse cached) {
+        return null;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    /**
+     * Reads the incoming event into a container request, passes it to the underlying framework and waits for the
+     * response to be fully written.
+     */
+    private ContainerResponseType processRequest(RequestType request, Context context, CountDownLatch latch)
+            throws Exception {
+        if (metrics.isEnabled()) {
+            requestCounter.increment();
+        }
+        boolean cold = coldStart;
+        if (cold) {
+            coldStart = false;
+        }
+        InvocationMetrics invocation = getInvocationMetrics();
+        long phaseStart = 0L;
+        if (invocation != null) {
+            invocation.setColdStart(cold);
+            phaseStart = System.nanoTime();
+        }
+
+        Timer.start(TIMER_READ_REQUEST);
+        SecurityContext securityContext = securityContextWriter.writeSecurityContext(request, context);
+        if (invocation != null) {
+            phaseStart = invocation.lap(InvocationMetrics.Phase.SECURITY_CONTEXT, phaseStart);
+        }
+        ContainerRequestType containerRequest = requestReader.readRequest(request, securityContext, context, config);
+        ContainerResponseType containerResponse = getContainerResponse(containerRequest, latch);
+        Timer.stop(TIMER_READ_REQUEST);
+        if (invocation != null) {
+            invocation.lap(InvocationMetrics.Phase.READ_REQUEST, phaseStart);
+        }
+
+        if (initializationWrapper != null && initializationWrapper.getInitializationLatch() != null) {
+            // we let the potential InterruptedException bubble up
+            if (!initializationWrapper.getInitializationLatch().await(config.getInitializationTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new ContainerInitializationException("Could not initialize framework within the " + config.getInitializationTimeout() + "ms timeout", null);
+            }
+        }
+
+        Timer.start(TIMER_HANDLE_REQUEST);
+        if (invocation != null) {
+            phaseStart = System.nanoTime();
+        }
+        handleRequest(containerRequest, containerResponse, context);
+
+        latch.await();
+        Timer.stop(TIMER_HANDLE_REQUEST);
+        if (invocation != null) {
+            invocation.lap(InvocationMetrics.Phase.HANDLE_REQUEST, phaseStart);
+        }
+
+        if (logFormatter != null && log.isInfoEnabled()) {
+            // formatted once the response is written, see writeAccessLog
+            pendingLogRequest = containerRequest;
+            pendingLogResponse = containerResponse;
+            pendingLogSecurityContext = securityContext;
+        }
+        return containerResponse;
+    }
+
+
+    /**
+     * Same as {@link #proxy(Object, Context)} but the response is serialized by the
+     * {@link StreamingResponseWriter} directly into the output stream. Exceptions thrown before the writer starts
+     * producing output are handled with the exception handler, exactly like the <code>proxy</code> method.
+     */
+    @SuppressWarnings("unchecked")
+    private void proxyToStream(RequestType request, OutputStream output, Context context)
+            throws IOException {
+        Timer.start(TIMER_PROXY);
+        lambdaContext = context;
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            ContainerResponseType containerResponse;
+            try {
+                containerResponse = processRequest(request, context, latch);
+            } catch (Exception e) {
+                objectWriter.writeValue(output, recordErrorResponse(handleException(e, latch)));
+                return;
+            }
+
+            InvocationMetrics invocation = getInvocationMetrics();
+            long writeStart = invocation != null ? System.nanoTime() : 0L;
+            try {
+                ((StreamingResponseWriter<ContainerResponseType, ResponseType>) responseWriter).writeResponse(containerResponse, context, output);
+                // the streaming writer serializes while it writes, there is no separate serialization phase
+                if (invocation != null) {
+                    invocation.lap(InvocationMetrics.Phase.WRITE_RESPONSE, writeStart);
+                    recordResponseMetrics(containerResponse, invocation);
+                }
+            } catch (InvalidResponseObjectException e) {
+                objectWriter.writeValue(output, recordErrorResponse(handleException(e, latch)));
+            } catch (IOException e) {
+                // part of the response may already be in the output stream, it cannot be replaced with an error response
+                log.error("Error while writing the response to the output stream", e);
+                markInvocationError();
+                throw e;
+            }
         } finally {
-            output.flush();
-            output.close();
+            Timer.stop(TIMER_PROXY);
+        }
+    }
+
+
+    private String getCacheKey(RequestType request) {
+        ResponseCache<RequestType, ResponseType> cache = responseCache;
+        return cache != null ? cache.getPolicy().getCacheKey(request) : null;
+    }
+
+
+    /**
+     * Looks up the cached response for a request. A hit is answered with the conditional response of the cache policy
+     * when there is one, and is counted, measured and written to the access log like a response from the framework.
+     * @return The response to send, null if there is no cached response for the key
+     */
+    private CachedResponse getCachedResponse(String cacheKey, RequestType request, Context context) {
+        CachedResponse cached = responseCache.get(cacheKey);
+        if (cached == null) {
+            return null;
+        }
+        CachedResponse conditional = responseCache.getPolicy().getConditionalResponse(request, cached);
+        if (conditional != null) {
+            cached = conditional;
+        }
+
+        if (metrics.isEnabled()) {
+            requestCounter.increment();
+            cacheHitCounter.increment();
+        }
+        InvocationMetrics invocation = getInvocationMetrics();
+        if (invocation != null) {
+            invocation.setStatusCode(cached.getStatusCode());
+            invocation.setResponseSize(cached.getBodySize());
+        }
+        if (logFormatter != null && log.isInfoEnabled()) {
+            try {
+                SecurityContext securityContext = securityContextWriter.writeSecurityContext(request, context);
+                ContainerRequestType containerRequest = requestReader.readRequest(request, securityContext, context, config);
+                ContainerResponseType containerResponse = getCachedContainerResponse(containerRequest, cached);
+                if (containerResponse != null) {
+                    // formatted once the response is written, see writeAccessLog
+                    pendingLogRequest = containerRequest;
+                    pendingLogResponse = containerResponse;
+                    pendingLogSecurityContext = securityContext;
+                }
+            } catch (InvalidRequestEventException | RuntimeException e) {
+                // the cached response can still be sent
+                log.warn("Could not read the request of a cached response for the access log", e);
+            }
+        }
+        return cached;
+    }
+
+
+    private void cacheResponse(String cacheKey, RequestType request, ResponseType response) {
+        long timeToLive = responseCache.getPolicy().getTimeToLive(request, response);
+        if (timeToLive <= 0) {
+            return;
+        }
+        try {
+            responseCache.put(cacheKey, responseCache.getPolicy().createCachedResponse(response, objectWriter.writeValueAsBytes(response)), timeToLive);
+        } catch (JsonProcessingException e) {
+            // the response itself is fine, it is just not cached
+            log.warn("Could not serialize response for the response cache", e);
+        }
+    }
+
+
+    /**
+     * Serializes a cacheable response once, stores it and writes it to the output
+     * @return false if the response cannot be cached and has not been written
+     */
+    private boolean cacheResponse(String cacheKey, RequestType request, ResponseType response, OutputStream output)
+            throws IOException {
+        long timeToLive = responseCache.getPolicy().getTimeToLive(request, response);
+        if (timeToLive <= 0) {
+            return false;
+        }
+        byte[] serialized = objectWriter.writeValueAsBytes(response);
+        responseCache.put(cacheKey, responseCache.getPolicy().createCachedResponse(response, serialized), timeToLive);
+        output.write(serialized);
+        return true;
+    }
+
+
+    private ResponseType handleException(Exception e, CountDownLatch latch) {
+        log.error("Error while handling request", e);
+        if (metrics.isEnabled()) {
+            errorCounter.increment();
+        }
+        markInvocationError();
+        // release all waiting threads. This is safe here because if the count was already 0
+        // the latch will do nothing
+        latch.countDown();
+
+        if (getContainerConfig().isDisableExceptionMapper()) {
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else {
+                throw new RuntimeException(e);
+            }
+        } else {
+            return exceptionHandler.handle(e);
+        }
+    }
+
+
+    /**
+     * Records the status of the response the exception handler produced in place of the framework response
+     */
+    private ResponseType recordErrorResponse(ResponseType response) {
+        InvocationMetrics invocation = getInvocationMetrics();
+        if (invocation != null && response instanceof AwsProxyResponse) {
+            AwsProxyResponse error = (AwsProxyResponse) response;
+            invocation.setStatusCode(error.getStatusCode());
+            invocation.setResponseSize(error.getBody() == null ? 0 : error.getBody().getBytes(StandardCharsets.UTF_8).length);
+        }
+        return response;
+    }
+
+
+    /**
+     * Marks the start of an invocation if no invocation is in progress yet, this is the case for a call to
+     * <code>proxy</code> from <code>proxyStream</code>.
+     * @return true if the caller started the invocation and is responsible for calling {@link #endInvocation(boolean)}
+     */
+    private boolean startInvocation() {
+        if (handlingInvocation) {
+            return false;
+        }
+        handlingInvocation = true;
+        // the line deferred by the previous proxy call, before its request objects are recycled
+        writeAccessLog();
+        return true;
+    }
+
+
+    private void endInvocation(boolean deferAccessLog) {
+        handlingInvocation = false;
+        if (deferAccessLog) {
+            deferAccessLog();
+        } else {
+            writeAccessLog();
+        }
+    }
+
+
+    /**
+     * Keeps the access log line of the request handled by <code>proxy</code> pending until the next invocation starts.
+     * A shutdown hook logs it if the environment shuts down first. A frozen environment that is never resumed or shut
+     * down cleanly loses the line.
+     */
+    private void deferAccessLog() {
+        if (pendingLogRequest != null && !accessLogShutdownHookAdded) {
+            accessLogShutdownHookAdded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flushAccessLog, "access-log-flush"));
+        }
+    }
+
+
+    /**
+     * Formats and logs the pending access log line. Called when a <code>proxyStream</code> call ends, after the
+     * response has been written to the output stream, and when the next invocation starts for a line deferred by
+     * <code>proxy</code>, so that formatting and logging do not delay the response.
+     */
+    private synchronized void writeAccessLog() {
+        if (pendingLogRequest == null) {
+            return;
+        }
+        if (logFormatter == null) {
+            // the formatter was removed after the request was handled
+            pendingLogRequest = null;
+            pendingLogResponse = null;
+            pendingLogSecurityContext = null;
+            return;
+        }
+        ContainerRequestType containerRequest = pendingLogRequest;
+        ContainerResponseType containerResponse = pendingLogResponse;
+        SecurityContext securityContext = pendingLogSecurityContext;
+        // the request objects may be recycled for the next event, do not keep references to them
+        pendingLogRequest = null;
+        pendingLogResponse = null;
+        pendingLogSecurityContext = null;
+
+        StringBuilder line = accessLogLine;
+        if (line == null || line.capacity() > MAX_ACCESS_LOG_LINE_CAPACITY) {
+            // do not hold on to the buffer of an unusually long line
+            line = new StringBuilder(256);
+            accessLogLine = line;
+        }
+        line.setLength(0);
+        try {
+            logFormatter.format(containerRequest, containerResponse, securityContext, line);
+        } catch (RuntimeException e) {
+            log.warn("Could not format access log line", e);
+            return;
+        }
+        // formatters strip CR and LF from the values they append, see LogFormatter. The reused buffer cannot be passed
+        // to the logger as an argument because asynchronous appenders format the message after it has been reused
+        log.info(line.toString());
+    }
+
+
+    /**
+     * Starts collecting the metrics of a new invocation if a sink is set and no invocation is being measured yet, this
+     * is the case for a call to <code>proxy</code> from <code>proxyStream</code>.
+     * @return true if the caller started the invocation and is responsible for emitting the metrics
+     */
+    private boolean startInvocationMetrics() {
+        if (metricsSink == null || collectingMetrics) {
+            return false;
+        }
+        invocationMetrics.reset();
+        collectingMetrics = true;
+        return true;
+    }
+
+
+    private void markInvocationError() {
+        if (collectingMetrics) {
+            invocationMetrics.setError(true);
+        }
+    }
+
+
+    private void emitInvocationMetrics(Context context) {
+        collectingMetrics = false;
+        MetricsSink sink = metricsSink;
+        if (sink == null) {
+            return;
+        }
+        try {
+            sink.emit(invocationMetrics, context);
+        } catch (RuntimeException e) {
+            log.warn("Could not emit invocation metrics", e);
         }
     }
 
@@ -87,6 +87,25 @@ public final class SecurityUtils {
     }
 
 
+    /**
+     * Removes CRLF characters from a buffer in place
+     * @param s The buffer to be cleaned
+     */
+    public static void crlf(StringBuilder s) {
+        int write = 0;
+        for (int read = 0; read < s.length(); read++) {
+            char c = s.charAt(read);
+            if (c != '\r' && c != '\n') {
+                if (write != read) {
+                    s.setCharAt(write, c);
+                }
+                write++;
+            }
+        }
+        s.setLength(write);
+    }
+
+
     /**
      * Escapes all special characters in a java string
      * @param s The string to be cleaned
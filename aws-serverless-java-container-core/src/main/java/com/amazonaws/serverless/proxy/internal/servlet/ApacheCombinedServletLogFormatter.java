@@ -23,6 +23,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.SecurityContext;
 
+import java.security.Principal;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
@@ -39,13 +40,19 @@ import static java.time.temporal.ChronoField.YEAR;
 /**
  * Default implementation of the log formatter. Based on an <code>HttpServletRequest</code> and <code>HttpServletResponse</code> implementations produced
  * a log line in the Apache combined log format: https://httpd.apache.org/docs/2.4/logs.html
+ *
+ * The formatter appends to the buffer the container handler reuses for every request and strips CR and LF characters from
+ * the request values as it appends them. The formatted date is cached for the current second.
  * @param <ContainerRequestType> An implementation of <code>HttpServletRequest</code>
  * @param <ContainerResponseType> An implementation of <code>HttpServletResponse</code>
  */
 public class ApacheCombinedServletLogFormatter<ContainerRequestType extends HttpServletRequest, ContainerResponseType extends HttpServletResponse>
         implements LogFormatter<ContainerRequestType, ContainerResponseType> {
+    private static final int INITIAL_LINE_CAPACITY = 256;
+
     private final DateTimeFormatter dateFormat;
     private final Clock clock;
+    private volatile FormattedDate lastDate;
 
     public ApacheCombinedServletLogFormatter() {
         this(Clock.systemDefaultZone());
@@ -75,97 +82,149 @@ public class ApacheCombinedServletLogFormatter<ContainerRequestType extends Http
     }
 
     @Override
-    @SuppressFBWarnings({ "SERVLET_HEADER_REFERER", "SERVLET_HEADER_USER_AGENT" })
     public String format(ContainerRequestType servletRequest, ContainerResponseType servletResponse, SecurityContext ctx) {
+        StringBuilder logLine = new StringBuilder(INITIAL_LINE_CAPACITY);
+        format(servletRequest, servletResponse, ctx, logLine);
+        return logLine.toString();
+    }
+
+    @Override
+    @SuppressFBWarnings({ "SERVLET_HEADER_REFERER", "SERVLET_HEADER_USER_AGENT" })
+    public void format(ContainerRequestType servletRequest, ContainerResponseType servletResponse, SecurityContext ctx,
+                       StringBuilder logLineBuilder) {
         //LogFormat "%h %l %u %t \"%r\" %>s %b \"%{Referer}i\" \"%{User-agent}i\"" combined
-        StringBuilder logLineBuilder = new StringBuilder();
         AwsProxyRequestContext gatewayContext = (AwsProxyRequestContext)servletRequest.getAttribute(API_GATEWAY_CONTEXT_PROPERTY);
         HttpApiV2ProxyRequestContext httpApiContext = (HttpApiV2ProxyRequestContext)servletRequest.getAttribute(HTTP_API_CONTEXT_PROPERTY);
+        Principal principal = servletRequest.getUserPrincipal();
 
         // %h
-        logLineBuilder.append(servletRequest.getRemoteAddr());
-        logLineBuilder.append(" ");
+        appendValue(logLineBuilder, servletRequest.getRemoteAddr());
+        logLineBuilder.append(' ');
 
         // %l
-        if (servletRequest.getUserPrincipal() != null) {
-            logLineBuilder.append(servletRequest.getUserPrincipal().getName());
+        if (principal != null) {
+            appendValue(logLineBuilder, principal.getName());
         } else {
-            logLineBuilder.append("-");
+            logLineBuilder.append('-');
         }
         if (gatewayContext != null && gatewayContext.getIdentity() != null && gatewayContext.getIdentity().getUserArn() != null) {
-                logLineBuilder.append(gatewayContext.getIdentity().getUserArn());
+            appendValue(logLineBuilder, gatewayContext.getIdentity().getUserArn());
         } else {
-            logLineBuilder.append("-");
+            logLineBuilder.append('-');
         }
-        logLineBuilder.append(" ");
+        logLineBuilder.append(' ');
 
         // %u
-        if (servletRequest.getUserPrincipal() != null) {
-            logLineBuilder.append(servletRequest.getUserPrincipal().getName());
+        if (principal != null) {
+            appendValue(logLineBuilder, principal.getName());
         }
-        logLineBuilder.append(" ");
+        logLineBuilder.append(' ');
 
 
         // %t
-        long timeEpoch = ZonedDateTime.now(clock).toEpochSecond();
+        long timeEpoch = clock.millis() / 1000;
         if (gatewayContext != null && gatewayContext.getRequestTimeEpoch() > 0) {
             timeEpoch = gatewayContext.getRequestTimeEpoch() / 1000;
         } else if (httpApiContext != null && httpApiContext.getTimeEpoch() > 0) {
             timeEpoch = httpApiContext.getTimeEpoch() / 1000;
         }
-        logLineBuilder.append(
-                dateFormat.format(ZonedDateTime.of(
-                        LocalDateTime.ofEpochSecond(timeEpoch, 0, ZoneOffset.UTC),
-                        clock.getZone())
-                ));
-        logLineBuilder.append(" ");
+        logLineBuilder.append(getFormattedDate(timeEpoch));
+        logLineBuilder.append(' ');
 
         // %r
-        logLineBuilder.append("\"");
-        logLineBuilder.append(servletRequest.getMethod().toUpperCase(Locale.ENGLISH));
-        logLineBuilder.append(" ");
-        logLineBuilder.append(servletRequest.getRequestURI());
-        logLineBuilder.append(" ");
-        logLineBuilder.append(servletRequest.getProtocol());
+        logLineBuilder.append('"');
+        appendValue(logLineBuilder, servletRequest.getMethod().toUpperCase(Locale.ENGLISH));
+        logLineBuilder.append(' ');
+        appendValue(logLineBuilder, servletRequest.getRequestURI());
+        logLineBuilder.append(' ');
+        appendValue(logLineBuilder, servletRequest.getProtocol());
         logLineBuilder.append("\" ");
 
-        // %>s
-        logLineBuilder.append(servletResponse.getStatus());
-        logLineBuilder.append(" ");
+        // %>s, the status and body size the writer sent when the response has been written
+        AwsHttpServletResponse awsResponse = servletResponse instanceof AwsHttpServletResponse
+                ? (AwsHttpServletResponse)servletResponse : null;
+        boolean written = awsResponse != null && awsResponse.getAwsWrittenStatus() > 0;
+        logLineBuilder.append(written ? awsResponse.getAwsWrittenStatus() : servletResponse.getStatus());
+        logLineBuilder.append(' ');
 
         // %b
-        if (servletResponse instanceof AwsHttpServletResponse) {
-            AwsHttpServletResponse awsResponse = (AwsHttpServletResponse)servletResponse;
-            if (awsResponse.getAwsResponseBodyBytes().length > 0) {
-                logLineBuilder.append(awsResponse.getAwsResponseBodyBytes().length);
-            } else {
-                logLineBuilder.append("-");
-            }
+        long bodySize = written ? awsResponse.getAwsWrittenBodySize()
+                : (awsResponse != null ? awsResponse.getAwsResponseBodySize() : 0);
+        if (bodySize > 0) {
+            logLineBuilder.append(bodySize);
         } else {
-            logLineBuilder.append("-");
+            logLineBuilder.append('-');
         }
-        logLineBuilder.append(" ");
+        logLineBuilder.append(' ');
 
         // \"%{Referer}i\"
-        logLineBuilder.append("\"");
-        if (servletRequest.getHeader("referer") != null) {
-            logLineBuilder.append(servletRequest.getHeader("referer"));
+        logLineBuilder.append('"');
+        String referer = servletRequest.getHeader("referer");
+        if (referer != null) {
+            appendValue(logLineBuilder, referer);
         } else {
-            logLineBuilder.append("-");
+            logLineBuilder.append('-');
         }
         logLineBuilder.append("\" ");
 
         // \"%{User-agent}i\"
-        logLineBuilder.append("\"");
-        if (servletRequest.getHeader("user-agent") != null) {
-            logLineBuilder.append(servletRequest.getHeader("user-agent"));
+        logLineBuilder.append('"');
+        String userAgent = servletRequest.getHeader("user-agent");
+        if (userAgent != null) {
+            appendValue(logLineBuilder, userAgent);
         } else {
-            logLineBuilder.append("-");
+            logLineBuilder.append('-');
         }
         logLineBuilder.append("\" ");
 
         logLineBuilder.append("combined");
+    }
+
+
+    /**
+     * Returns the formatted request time. Requests arriving within the same second share the formatted string, it is
+     * only computed again when the second changes.
+     */
+    private String getFormattedDate(long timeEpoch) {
+        FormattedDate date = lastDate;
+        if (date == null || date.epochSecond != timeEpoch) {
+            date = new FormattedDate(timeEpoch, dateFormat.format(ZonedDateTime.of(
+                    LocalDateTime.ofEpochSecond(timeEpoch, 0, ZoneOffset.UTC),
+                    clock.getZone())));
+            lastDate = date;
+        }
+        return date.value;
+    }
+
 
-        return logLineBuilder.toString();
+    /**
+     * Appends a value that comes from the request without the CR and LF characters, so that a request cannot forge
+     * additional log lines
+     */
+    private static void appendValue(StringBuilder logLine, String value) {
+        if (value == null) {
+            logLine.append((String) null);
+            return;
+        }
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\r' || c == '\n') {
+                logLine.append(value, start, i);
+                start = i + 1;
+            }
+        }
+        logLine.append(value, start, value.length());
+    }
+
+
+    private static final class FormattedDate {
+        private final long epochSecond;
+        private final String value;
+
+        private FormattedDate(long epochSecond, String value) {
+            this.epochSecond = epochSecond;
+            this.value = value;
+        }
     }
 }
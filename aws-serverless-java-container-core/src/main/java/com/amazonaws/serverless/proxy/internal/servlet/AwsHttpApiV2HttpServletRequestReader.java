@@ -24,6 +24,8 @@ import javax.ws.rs.core.SecurityContext;
 public class AwsHttpApiV2HttpServletRequestReader extends RequestReader<HttpApiV2ProxyRequest, HttpServletRequest> {
     static final String INVALID_REQUEST_ERROR = "The incoming event is not a valid HTTP API v2 proxy request";
 
+    private AwsHttpApiV2ProxyHttpServletRequest recycledRequest;
+
     @Override
     public HttpServletRequest readRequest(HttpApiV2ProxyRequest request, SecurityContext securityContext, Context lambdaContext, ContainerConfig config) throws InvalidRequestEventException {
         if (request.getRequestContext() == null || request.getRequestContext().getHttp().getMethod() == null || request.getRequestContext().getHttp().getMethod().equals("")) {
@@ -33,7 +35,14 @@ public class AwsHttpApiV2HttpServletRequestReader extends RequestReader<HttpApiV
         // clean out the request path based on the container config
         request.setRawPath(stripBasePath(request.getRawPath(), config));
 
-        AwsHttpApiV2ProxyHttpServletRequest servletRequest = new AwsHttpApiV2ProxyHttpServletRequest(request, lambdaContext, securityContext, config);
+        AwsHttpApiV2ProxyHttpServletRequest servletRequest;
+        if (config.isRecycleRequestObjects() && recycledRequest != null && recycledRequest.isRecyclable()) {
+            servletRequest = recycledRequest;
+            servletRequest.recycle(request, lambdaContext, securityContext, config);
+        } else {
+            servletRequest = new AwsHttpApiV2ProxyHttpServletRequest(request, lambdaContext, securityContext, config);
+            recycledRequest = config.isRecycleRequestObjects() ? servletRequest : null;
+        }
         servletRequest.setAttribute(HTTP_API_CONTEXT_PROPERTY, request.getRequestContext());
         servletRequest.setAttribute(HTTP_API_STAGE_VARS_PROPERTY, request.getStageVariables());
         servletRequest.setAttribute(HTTP_API_EVENT_PROPERTY, request);
@@ -15,7 +15,6 @@ package com.amazonaws.serverless.proxy.internal.servlet;
 import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
 import com.amazonaws.serverless.proxy.internal.SecurityUtils;
 import com.amazonaws.serverless.proxy.model.ContainerConfig;
-import com.amazonaws.serverless.proxy.model.Headers;
 import com.amazonaws.serverless.proxy.model.HttpApiV2ProxyRequest;
 import com.amazonaws.serverless.proxy.model.MultiValuedTreeMap;
 import com.amazonaws.services.lambda.runtime.Context;
@@ -43,7 +42,7 @@ public class AwsHttpApiV2ProxyHttpServletRequest extends AwsHttpServletRequest {
 
     private HttpApiV2ProxyRequest request;
     private MultiValuedTreeMap<String, String> queryString;
-    private Headers headers;
+    private HttpApiV2Headers headers;
     private ContainerConfig config;
     private SecurityContext securityContext;
     private AwsAsyncContext asyncContext;
@@ -60,13 +59,35 @@ public class AwsHttpApiV2ProxyHttpServletRequest extends AwsHttpServletRequest {
         config = cfg;
         securityContext = sc;
         queryString = parseRawQueryString(request.getRawQueryString());
-        headers = headersMapToMultiValue(request.getHeaders());
+        headers = new HttpApiV2Headers(request.getHeaders());
     }
 
     public HttpApiV2ProxyRequest getRequest() {
         return request;
     }
 
+    /**
+     * Resets this object to wrap a new HTTP API event. See {@link AwsHttpServletRequest#recycle(Context)}.
+     * @param req The new HTTP API event
+     * @param lambdaContext The Lambda function context for the new event
+     * @param sc The security context for the new event
+     * @param cfg The container configuration
+     */
+    void recycle(HttpApiV2ProxyRequest req, Context lambdaContext, SecurityContext sc, ContainerConfig cfg) {
+        recycle(lambdaContext);
+        request = req;
+        config = cfg;
+        securityContext = sc;
+        asyncContext = null;
+        queryString = parseRawQueryString(request.getRawQueryString());
+        headers = new HttpApiV2Headers(request.getHeaders());
+    }
+
+    @Override
+    protected boolean isRecyclable() {
+        return asyncContext == null;
+    }
+
     @Override
     public String getAuthType() {
         // TODO
@@ -213,7 +234,7 @@ public class AwsHttpApiV2ProxyHttpServletRequest extends AwsHttpServletRequest {
 
     @Override
     public Collection<Part> getParts() throws IOException, ServletException {
-        return getMultipartFormParametersMap().values();
+        return getMultipartParts();
     }
 
     @Override
@@ -272,45 +293,26 @@ public class AwsHttpApiV2ProxyHttpServletRequest extends AwsHttpServletRequest {
 
     @Override
     public String getParameter(String s) {
-        String queryStringParameter = getFirstQueryParamValue(queryString, s, config.isQueryStringCaseSensitive());
-        if (queryStringParameter != null) {
-            return queryStringParameter;
-        }
-
-        String[] bodyParams = getFormBodyParameterCaseInsensitive(s);
-        if (bodyParams.length == 0) {
-            return null;
-        } else {
-            return bodyParams[0];
-        }
+        return getParameterIndex(queryString, config).getFirst(s);
     }
 
+
     @Override
     public Enumeration<String> getParameterNames() {
-        if (queryString == null) {
-            return Collections.emptyEnumeration();
-        }
-
-        return Collections.enumeration(queryString.keySet());
+        return Collections.enumeration(getParameterIndex(queryString, config).getNames());
     }
 
+
     @Override
     @SuppressFBWarnings("PZLA_PREFER_ZERO_LENGTH_ARRAYS") // suppressing this as according to the specs we should be returning null here if we can't find params
     public String[] getParameterValues(String s) {
-        List<String> values = new ArrayList<>(Arrays.asList(getQueryParamValues(queryString, s, config.isQueryStringCaseSensitive())));
-
-        values.addAll(Arrays.asList(getFormBodyParameterCaseInsensitive(s)));
-
-        if (values.size() == 0) {
-            return null;
-        } else {
-            return values.toArray(new String[0]);
-        }
+        return getParameterIndex(queryString, config).getValues(s);
     }
 
+
     @Override
     public Map<String, String[]> getParameterMap() {
-        return generateParameterMap(queryString, config);
+        return getParameterIndex(queryString, config).getParameterMap();
     }
 
     @Override
@@ -320,7 +322,7 @@ public class AwsHttpApiV2ProxyHttpServletRequest extends AwsHttpServletRequest {
 
     @Override
     public String getScheme() {
-        return getSchemeFromHeader(headers);
+        return getSchemeFromHeaderValues(headers.getFirst(CF_PROTOCOL_HEADER_NAME), headers.getFirst(PROTOCOL_HEADER_NAME));
     }
 
     @Override
@@ -357,7 +359,7 @@ public class AwsHttpApiV2ProxyHttpServletRequest extends AwsHttpServletRequest {
     @Override
     public ServletInputStream getInputStream() throws IOException {
         if (requestInputStream == null) {
-            requestInputStream = new AwsServletInputStream(bodyStringToInputStream(request.getBody(), request.isBase64Encoded()));
+            requestInputStream = bodyStringToInputStream(request.getBody(), request.isBase64Encoded());
         }
         return requestInputStream;
     }
@@ -496,26 +498,4 @@ public class AwsHttpApiV2ProxyHttpServletRequest extends AwsHttpServletRequest {
         }
         return qsMap;
     }
-
-    private Headers headersMapToMultiValue(Map<String, String> headers) {
-        if (headers == null || headers.size() == 0) {
-            return new Headers();
-        }
-
-        Headers h = new Headers();
-        for (Map.Entry<String, String> hkv : headers.entrySet()) {
-            // Exceptions for known header values that contain commas
-            if (hkv.getKey().equalsIgnoreCase(HttpHeaders.DATE) ||
-                            hkv.getKey().equalsIgnoreCase(HttpHeaders.IF_MODIFIED_SINCE) ||
-                            hkv.getKey().toLowerCase(Locale.getDefault()).startsWith("accept-")) {
-                h.add(hkv.getKey(), hkv.getValue());
-                continue;
-            }
-
-            for (String value : hkv.getValue().split(",")) {
-                h.add(hkv.getKey(), value);
-            }
-        }
-        return h;
-    }
 }
@@ -20,11 +20,6 @@ import com.amazonaws.serverless.proxy.model.*;
 import com.amazonaws.services.lambda.runtime.Context;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import org.apache.commons.fileupload.FileItem;
-import org.apache.commons.fileupload.FileUploadException;
-import org.apache.commons.fileupload.disk.DiskFileItemFactory;
-import org.apache.commons.fileupload.servlet.ServletFileUpload;
-import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.NullInputStream;
 import org.apache.http.message.BasicHeaderValueParser;
@@ -37,9 +32,11 @@ import javax.ws.rs.core.MediaType;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -59,7 +56,6 @@ public abstract class AwsHttpServletRequest implements HttpServletRequest {
     static final String HEADER_KEY_VALUE_SEPARATOR = "=";
     static final String HEADER_VALUE_SEPARATOR = ";";
     static final String HEADER_QUALIFIER_SEPARATOR = ",";
-    static final String FORM_DATA_SEPARATOR = "&";
     static final DateTimeFormatter dateFormatter = DateTimeFormatter.RFC_1123_DATE_TIME;
     static final String ENCODING_VALUE_KEY = "charset";
     static final String DISPATCHER_TYPE_ATTRIBUTE = "com.amazonaws.serverless.javacontainer.dispatchertype";
@@ -85,7 +81,11 @@ public abstract class AwsHttpServletRequest implements HttpServletRequest {
     private String queryString;
     private BasicHeaderValueParser headerParser;
     private Map<String, Part> multipartFormParameters;
-    private Map<String, List<String>> urlEncodedFormParameters;
+    private List<Part> multipartParts;
+    private UrlEncodedForm urlEncodedForm;
+    private ParameterIndex parameterIndex;
+    // the body read by the form or multipart parser, the input stream serves the same bytes afterwards
+    private byte[] decodedBody;
 
     protected AwsHttpServletResponse response;
     protected AwsLambdaServletContainerHandler containerHandler;
@@ -292,6 +292,36 @@ public abstract class AwsHttpServletRequest implements HttpServletRequest {
     // Methods - Protected
     //-------------------------------------------------------------
 
+    /**
+     * Clears the state shared by all request implementations so that the object can be reused for the next event. This
+     * is used by the request readers when the container is configured to recycle request objects.
+     * @param lambdaContext The Lambda function context for the new event
+     */
+    protected void recycle(Context lambdaContext) {
+        this.lambdaContext = lambdaContext;
+        attributes.clear();
+        setAttribute(DISPATCHER_TYPE_ATTRIBUTE, DispatcherType.REQUEST);
+        session = null;
+        queryString = null;
+        multipartFormParameters = null;
+        multipartParts = null;
+        urlEncodedForm = null;
+        parameterIndex = null;
+        decodedBody = null;
+        response = null;
+        requestInputStream = null;
+    }
+
+
+    /**
+     * Whether this request object can be recycled for a new event. Requests that started an async context are never
+     * reused because the context, or a thread it started, may still hold a reference to the request and its response.
+     * @return <code>true</code> if the object can be safely reset, <code>false</code> otherwise
+     */
+    protected boolean isRecyclable() {
+        return false;
+    }
+
     /**
      * Given the Cookie header value, parses it and creates a Cookie object
      * @param headerValue The string value of the HTTP Cookie header
@@ -428,165 +458,150 @@ public abstract class AwsHttpServletRequest implements HttpServletRequest {
         if (body == null) {
             return new AwsServletInputStream(new NullInputStream(0, false, false));
         }
-        byte[] bodyBytes;
         if (isBase64Encoded) {
-            bodyBytes = Base64.getMimeDecoder().decode(body);
-        } else {
-            String encoding = getCharacterEncoding();
-            if (encoding == null) {
-                encoding = StandardCharsets.ISO_8859_1.name();
-            }
-            try {
-                bodyBytes = body.getBytes(encoding);
-            } catch (Exception e) {
-                log.error("Could not read request with character encoding: " + SecurityUtils.crlf(encoding), e);
-                bodyBytes = body.getBytes(StandardCharsets.ISO_8859_1.name());
-            }
+            // decode lazily as the application reads the body instead of materializing the decoded array upfront
+            return new AwsServletInputStream(Base64.getMimeDecoder().wrap(new AsciiStringInputStream(body)));
         }
-        ByteArrayInputStream requestBodyStream = new ByteArrayInputStream(bodyBytes);
-        return new AwsServletInputStream(requestBodyStream);
-    }
-
-    protected String getFirstQueryParamValue(MultiValuedTreeMap<String, String> queryString, String key, boolean isCaseSensitive) {
-        if (queryString != null) {
-            if (isCaseSensitive) {
-                return queryString.getFirst(key);
-            }
-
-            for (String k : queryString.keySet()) {
-                if (k.toLowerCase(Locale.getDefault()).equals(key.toLowerCase(Locale.getDefault()))) {
-                    return queryString.getFirst(k);
-                }
-            }
+        byte[] bodyBytes;
+        String encoding = getCharacterEncoding();
+        if (encoding == null) {
+            encoding = StandardCharsets.ISO_8859_1.name();
         }
-
-        return null;
-    }
-
-    protected String[] getFormBodyParameterCaseInsensitive(String key) {
-        List<String> values = getFormUrlEncodedParametersMap().get(key);
-        if (values != null) {
-            String[] valuesArray = new String[values.size()];
-            valuesArray = values.toArray(valuesArray);
-            return valuesArray;
-        } else {
-            return new String[0];
+        try {
+            bodyBytes = body.getBytes(encoding);
+        } catch (Exception e) {
+            log.error("Could not read request with character encoding: " + SecurityUtils.crlf(encoding), e);
+            bodyBytes = body.getBytes(StandardCharsets.ISO_8859_1.name());
         }
+        ByteArrayInputStream requestBodyStream = new ByteArrayInputStream(bodyBytes);
+        return new AwsServletInputStream(requestBodyStream);
     }
 
-
-    protected Map<String, List<String>> getFormUrlEncodedParametersMap() {
-        if (urlEncodedFormParameters != null) {
-            return urlEncodedFormParameters;
+    /**
+     * Parses the body of a url encoded <code>POST</code> request. The body is read once, the same form is returned to
+     * later calls.
+     * @return The parsed form, null if the request is not a form post
+     */
+    UrlEncodedForm getUrlEncodedForm() {
+        if (urlEncodedForm != null) {
+            return urlEncodedForm;
         }
         String contentType = getContentType();
-        if (contentType == null) {
-            urlEncodedFormParameters = new HashMap<>();
-            return urlEncodedFormParameters;
-        }
-        if (!contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED) || !getMethod().toLowerCase(Locale.ENGLISH).equals("post")) {
-            urlEncodedFormParameters = new HashMap<>();
-            return urlEncodedFormParameters;
+        if (contentType == null || !contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED)
+                || !getMethod().toLowerCase(Locale.ENGLISH).equals("post")) {
+            return null;
         }
         Timer.start("SERVLET_REQUEST_GET_FORM_PARAMS");
-        String rawBodyContent = null;
         try {
-            rawBodyContent = IOUtils.toString(getInputStream());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
-        urlEncodedFormParameters = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-        for (String parameter : rawBodyContent.split(FORM_DATA_SEPARATOR)) {
-            String[] parameterKeyValue = parameter.split(HEADER_KEY_VALUE_SEPARATOR);
-            if (parameterKeyValue.length < 2) {
-                continue;
+            byte[] body;
+            try {
+                body = getDecodedBody();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
-            List<String> values = new ArrayList<>();
-            if (urlEncodedFormParameters.containsKey(parameterKeyValue[0])) {
-                values = urlEncodedFormParameters.get(parameterKeyValue[0]);
+
+            ContainerConfig config = LambdaContainerHandler.getContainerConfig();
+            Charset charset;
+            try {
+                charset = Charset.forName(config.getUriEncoding());
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid uri encoding, decoding form parameters as UTF-8", e);
+                charset = StandardCharsets.UTF_8;
             }
-            values.add(decodeValueIfEncoded(parameterKeyValue[1]));
-            urlEncodedFormParameters.put(decodeValueIfEncoded(parameterKeyValue[0]), values);
+            urlEncodedForm = UrlEncodedForm.parse(body, charset, config.getMaxFormParameters(), config.getMaxFormParameterSize());
+        } finally {
+            Timer.stop("SERVLET_REQUEST_GET_FORM_PARAMS");
         }
-        Timer.stop("SERVLET_REQUEST_GET_FORM_PARAMS");
-        return urlEncodedFormParameters;
+        return urlEncodedForm;
     }
 
-    @SuppressFBWarnings({"FILE_UPLOAD_FILENAME", "WEAK_FILENAMEUTILS"})
+    /**
+     * Returns the parameter index of this request, building it the first time it is requested
+     * @param qs The query string parameters of the event, can be null
+     * @param config The container configuration
+     * @return The index of the query string and form parameters
+     */
+    ParameterIndex getParameterIndex(MultiValuedTreeMap<String, String> qs, ContainerConfig config) {
+        if (parameterIndex == null) {
+            parameterIndex = new ParameterIndex(qs, getUrlEncodedForm(), config.isQueryStringCaseSensitive());
+        }
+        return parameterIndex;
+    }
+
+    /**
+     * Returns the multipart parts of the request by name. When several parts share a name only the first one is in
+     * the map, use {@link #getMultipartParts()} to get all of them.
+     * @return A case-insensitive map of part names to parts
+     */
     protected Map<String, Part> getMultipartFormParametersMap() {
         if (multipartFormParameters != null) {
             return multipartFormParameters;
         }
-        if (!ServletFileUpload.isMultipartContent(this)) { // isMultipartContent also checks the content type
+        List<Part> parts = getMultipartParts();
+        if (parts.isEmpty()) {
             multipartFormParameters = new HashMap<>();
             return multipartFormParameters;
         }
-        Timer.start("SERVLET_REQUEST_GET_MULTIPART_PARAMS");
         multipartFormParameters = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-
-        ServletFileUpload upload = new ServletFileUpload(new DiskFileItemFactory());
-
-        try {
-            List<FileItem> items = upload.parseRequest(this);
-            for (FileItem item : items) {
-                String fileName = FilenameUtils.getName(item.getName());
-                AwsProxyRequestPart newPart = new AwsProxyRequestPart(item.get());
-                newPart.setName(item.getFieldName());
-                newPart.setSubmittedFileName(fileName);
-                newPart.setContentType(item.getContentType());
-                newPart.setSize(item.getSize());
-                item.getHeaders().getHeaderNames().forEachRemaining(h -> {
-                    newPart.addHeader(h, item.getHeaders().getHeader(h));
-                });
-
-                multipartFormParameters.put(item.getFieldName(), newPart);
+        for (Part part : parts) {
+            if (part.getName() != null) {
+                multipartFormParameters.putIfAbsent(part.getName(), part);
             }
-        } catch (FileUploadException e) {
-            Timer.stop("SERVLET_REQUEST_GET_MULTIPART_PARAMS");
-            log.error("Could not read multipart upload file", e);
         }
-        Timer.stop("SERVLET_REQUEST_GET_MULTIPART_PARAMS");
         return multipartFormParameters;
     }
 
-    protected String[] getQueryParamValues(MultiValuedTreeMap<String, String> qs, String key, boolean isCaseSensitive) {
-        if (qs != null) {
-            if (isCaseSensitive) {
-                return qs.get(key).toArray(new String[0]);
-            }
+    /**
+     * Parses the body of a <code>multipart/</code> <code>POST</code> request. The parts are slices of the decoded body
+     * buffer, they are not copied or written to temporary files.
+     * @return An unmodifiable list of the parts in the order they appear in the body, empty if the request is not a
+     *         multipart request or the body could not be parsed
+     */
+    protected List<Part> getMultipartParts() {
+        if (multipartParts != null) {
+            return multipartParts;
+        }
+        String contentType = getContentType();
+        String boundary = MultipartParser.getBoundary(contentType);
+        if (!"post".equals(getMethod().toLowerCase(Locale.ENGLISH)) || boundary == null
+                || !contentType.toLowerCase(Locale.ENGLISH).startsWith("multipart/")) {
+            multipartParts = Collections.emptyList();
+            return multipartParts;
+        }
+        Timer.start("SERVLET_REQUEST_GET_MULTIPART_PARAMS");
+        try {
+            byte[] body = getDecodedBody();
+            // browsers send non-ASCII field and file names as UTF-8
+            multipartParts = Collections.unmodifiableList(MultipartParser.parse(body, boundary, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.error("Could not read multipart upload file", e);
+            multipartParts = Collections.emptyList();
+        } finally {
+            Timer.stop("SERVLET_REQUEST_GET_MULTIPART_PARAMS");
+        }
+        return multipartParts;
+    }
 
-            for (String k : qs.keySet()) {
-                if (k.toLowerCase(Locale.getDefault()).equals(key.toLowerCase(Locale.getDefault()))) {
-                    return qs.get(k).toArray(new String[0]);
-                }
+    /**
+     * Reads the decoded body for the form and multipart parsers. The body is read once, and the input stream returned
+     * by <code>getInputStream()</code> is rewound so that the application can still read it after it was parsed.
+     * @return The bytes of the body that had not been read by the application yet
+     * @throws IOException If the body cannot be read
+     */
+    private byte[] getDecodedBody() throws IOException {
+        if (decodedBody == null) {
+            ServletInputStream body = getInputStream();
+            if (body instanceof AwsServletInputStream) {
+                decodedBody = ((AwsServletInputStream) body).readRemainingAndRewind();
+            } else {
+                decodedBody = IOUtils.toByteArray(body);
             }
         }
-
-        return new String[0];
+        return decodedBody;
     }
 
     protected Map<String, String[]> generateParameterMap(MultiValuedTreeMap<String, String> qs, ContainerConfig config) {
-        Map<String, String[]> output = new HashMap<>();
-
-        Map<String, List<String>> params = getFormUrlEncodedParametersMap();
-        params.entrySet().stream().parallel().forEach(e -> {
-            output.put(e.getKey(), e.getValue().toArray(new String[0]));
-        });
-
-        if (qs != null) {
-            qs.keySet().stream().parallel().forEach(e -> {
-                List<String> newValues = new ArrayList<>();
-                if (output.containsKey(e)) {
-                    String[] values = output.get(e);
-                    newValues.addAll(Arrays.asList(values));
-                }
-                newValues.addAll(Arrays.asList(getQueryParamValues(qs, e, config.isQueryStringCaseSensitive())));
-                output.put(e, newValues.toArray(new String[0]));
-            });
-        }
-
-        return output;
+        return getParameterIndex(qs, config).getParameterMap();
     }
 
     protected String getSchemeFromHeader(Headers headers) {
@@ -594,11 +609,19 @@ public abstract class AwsHttpServletRequest implements HttpServletRequest {
         if (headers == null) {
             return "https";
         }
-        String cfScheme = headers.getFirst(CF_PROTOCOL_HEADER_NAME);
+        return getSchemeFromHeaderValues(headers.getFirst(CF_PROTOCOL_HEADER_NAME), headers.getFirst(PROTOCOL_HEADER_NAME));
+    }
+
+    /**
+     * Picks the request scheme from the values of the CloudFront and API Gateway protocol headers
+     * @param cfScheme The value of the CloudFront-Forwarded-Proto header, can be null
+     * @param gwScheme The value of the X-Forwarded-Proto header, can be null
+     * @return The first valid scheme, https if neither header is valid
+     */
+    protected String getSchemeFromHeaderValues(String cfScheme, String gwScheme) {
         if (cfScheme != null && SecurityUtils.isValidScheme(cfScheme)) {
             return cfScheme;
         }
-        String gwScheme = headers.getFirst(PROTOCOL_HEADER_NAME);
         if (gwScheme != null && SecurityUtils.isValidScheme(gwScheme)) {
             return gwScheme;
         }
@@ -727,16 +750,50 @@ public abstract class AwsHttpServletRequest implements HttpServletRequest {
         return finalUri;
     }
 
-    static String decodeValueIfEncoded(String value) {
-        if (value == null) {
-            return null;
+    /**
+     * Reads the characters of a string as single bytes without copying it. This is used to feed base64 encoded bodies,
+     * which only contain ASCII characters, to the decoder. Characters outside of the single byte range are replaced
+     * with a character that is not part of the base64 alphabet and ignored by the MIME decoder.
+     */
+    static class AsciiStringInputStream extends InputStream {
+        private static final int INVALID_CHAR = '?';
+
+        private final String value;
+        private int position;
+
+        AsciiStringInputStream(String value) {
+            this.value = value;
+            position = 0;
         }
 
-        try {
-            return URLDecoder.decode(value, LambdaContainerHandler.getContainerConfig().getUriEncoding());
-        } catch (UnsupportedEncodingException e) {
-            log.warn("Could not decode body content - proceeding as if it was already decoded", e);
-            return value;
+        @Override
+        public int read() {
+            if (position >= value.length()) {
+                return -1;
+            }
+            char c = value.charAt(position++);
+            return c > 0xFF ? INVALID_CHAR : c;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= value.length()) {
+                return -1;
+            }
+            int count = Math.min(len, value.length() - position);
+            for (int i = 0; i < count; i++) {
+                char c = value.charAt(position++);
+                b[off + i] = (byte) (c > 0xFF ? INVALID_CHAR : c);
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return value.length() - position;
         }
     }
 
@@ -28,10 +28,16 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.HttpHeaders;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -62,13 +68,20 @@ public class AwsHttpServletResponse
     private Headers headers = new Headers();
     private int statusCode;
     private String statusMessage;
+    // charset of the flushed body, null until flushBuffer() is called. The body string is only decoded on demand
+    private Charset responseBodyCharset;
     private String responseBody;
+    private int responseBodySize;
     private String characterEncoding;
     private PrintWriter writer;
-    private ByteArrayOutputStream bodyOutputStream = new ByteArrayOutputStream();
+    private ResponseBodyBuffer bodyBuffer;
+    private int bufferSize;
     private CountDownLatch writersCountDownLatch;
     private HttpServletRequest request;
     private boolean isCommitted = false;
+    // status and body size of the Lambda response produced by the response writer, 0 until it has been written
+    private int writtenStatusCode;
+    private long writtenBodySize;
 
     private Logger log = LoggerFactory.getLogger(AwsHttpServletResponse.class);
 
@@ -87,6 +100,8 @@ public class AwsHttpServletResponse
         characterEncoding = null;
         request = req;
         statusCode = 0;
+        bufferSize = LambdaContainerHandler.getContainerConfig().getResponseBufferInitialCapacity();
+        bodyBuffer = new ResponseBodyBuffer(bufferSize);
     }
 
 
@@ -327,7 +342,20 @@ public class AwsHttpServletResponse
             @Override
             public void write(int b) throws IOException {
                 try {
-                    bodyOutputStream.write(b);
+                    bodyBuffer.write(b);
+                } catch (Exception e) {
+                    log.error("Cannot write to output stream", e);
+                    if (listener != null) {
+                        listener.onError(e);
+                    }
+                }
+            }
+
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    bodyBuffer.write(b, off, len);
                 } catch (Exception e) {
                     log.error("Cannot write to output stream", e);
                     if (listener != null) {
@@ -350,7 +378,7 @@ public class AwsHttpServletResponse
     @Override
     public PrintWriter getWriter() throws IOException {
         if (null == writer) {
-            writer = new PrintWriter(new OutputStreamWriter(bodyOutputStream, StandardCharsets.UTF_8));
+            writer = new PrintWriter(new OutputStreamWriter(bodyBuffer, StandardCharsets.UTF_8));
         }
         return writer;
     }
@@ -404,13 +432,21 @@ public class AwsHttpServletResponse
 
     @Override
     public void setBufferSize(int i) {
-        bodyOutputStream = new ByteArrayOutputStream(i);
+        if (isCommitted || bodyBuffer.size() > 0) {
+            throw new IllegalStateException("Cannot set the buffer size after content has been written");
+        }
+        bufferSize = i;
+        // a writer returned by getWriter() keeps writing to the current buffer, only replace it when there is none
+        if (writer == null) {
+            bodyBuffer.release();
+            bodyBuffer = new ResponseBodyBuffer(i);
+        }
     }
 
 
     @Override
     public int getBufferSize() {
-        return bodyOutputStream.size();
+        return bufferSize;
     }
 
 
@@ -425,8 +461,13 @@ public class AwsHttpServletResponse
             charset = LambdaContainerHandler.getContainerConfig().getDefaultContentCharset();
         }
 
-        responseBody = new String(bodyOutputStream.toByteArray(), charset);
-        log.debug("Response buffer flushed with {} bytes, latch={}", responseBody.length(), writersCountDownLatch.getCount());
+        try {
+            responseBodyCharset = Charset.forName(charset);
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedEncodingException(charset);
+        }
+        responseBody = null;
+        log.debug("Response buffer flushed with {} bytes, latch={}", bodyBuffer.size(), writersCountDownLatch.getCount());
         isCommitted = true;
         writersCountDownLatch.countDown();
     }
@@ -434,7 +475,9 @@ public class AwsHttpServletResponse
 
     @Override
     public void resetBuffer() {
-        bodyOutputStream = new ByteArrayOutputStream();
+        // reset in place, a writer returned by getWriter() keeps writing to the same buffer
+        bodyBuffer.reset();
+        responseBody = null;
     }
 
 
@@ -447,9 +490,10 @@ public class AwsHttpServletResponse
     @Override
     public void reset() {
         headers = new Headers();
+        responseBodyCharset = null;
         responseBody = null;
         writer = null;
-        bodyOutputStream = new ByteArrayOutputStream();
+        bodyBuffer.reset();
     }
 
 
@@ -470,15 +514,136 @@ public class AwsHttpServletResponse
     // Methods - Package
     //-------------------------------------------------------------
 
+    /**
+     * Resets this response so that it can be reused for a new event. The body buffer keeps its first segment, headers
+     * are replaced with a new object because the previous response object may still reference them.
+     * @param req The request for the new event
+     * @param latch The latch for the new event
+     */
+    void recycle(HttpServletRequest req, CountDownLatch latch) {
+        writersCountDownLatch = latch;
+        request = req;
+        headers = new Headers();
+        statusCode = 0;
+        statusMessage = null;
+        responseBodyCharset = null;
+        responseBody = null;
+        characterEncoding = null;
+        writer = null;
+        isCommitted = false;
+        writtenStatusCode = 0;
+        writtenBodySize = 0;
+        bodyBuffer.reset();
+    }
+
+    /**
+     * Whether the request this response was last used for allows the response to be recycled
+     * @return <code>true</code> if the object can be safely reset, <code>false</code> otherwise
+     */
+    boolean isRecyclable() {
+        return request instanceof AwsHttpServletRequest && ((AwsHttpServletRequest) request).isRecyclable();
+    }
+
+    /**
+     * Whether the body buffer has been flushed with <code>flushBuffer()</code> and can be sent to the client
+     * @return <code>true</code> once the body has been flushed, <code>false</code> before or after a reset
+     */
+    boolean hasAwsResponseBody() {
+        return responseBodyCharset != null;
+    }
+
+    /**
+     * Decodes the flushed body buffer with the response charset. The string is cached until the buffer changes.
+     * @return The body as a string, <code>null</code> if the body has not been flushed
+     */
     String getAwsResponseBodyString() {
+        if (responseBodyCharset == null) {
+            return null;
+        }
+        if (responseBody == null || responseBodySize != bodyBuffer.size()) {
+            responseBody = bodyBuffer.toString(responseBodyCharset);
+            responseBodySize = bodyBuffer.size();
+        }
         return responseBody;
     }
 
+    /**
+     * Returns a reader that decodes the flushed body buffer in place with the response charset, without building the
+     * body string.
+     * @return A reader over the current content of the body buffer
+     */
+    Reader getAwsResponseBodyReader() {
+        return new InputStreamReader(bodyBuffer.toInputStream(), responseBodyCharset);
+    }
+
     byte[] getAwsResponseBodyBytes() {
-        if (bodyOutputStream != null) {
-            return bodyOutputStream.toByteArray();
-        }
-        return new byte[0];
+        return bodyBuffer.toByteArray();
+    }
+
+
+    /**
+     * Returns a stream that reads the response body buffer in place, without copying it.
+     * @return An input stream over the current content of the body buffer
+     */
+    InputStream getAwsResponseBodyStream() {
+        return bodyBuffer.toInputStream();
+    }
+
+    int getAwsResponseBodySize() {
+        return bodyBuffer.size();
+    }
+
+    /**
+     * Returns the body buffer itself for the response writer. The buffer must not be modified.
+     * @return The buffer the body of this response is written to
+     */
+    ResponseBodyBuffer getAwsResponseBodyBuffer() {
+        return bodyBuffer;
+    }
+
+    /**
+     * Writes the response body buffer to the given stream without copying it.
+     * @param out The target stream
+     * @throws IOException If the target stream cannot be written to
+     */
+    void writeAwsResponseBody(OutputStream out) throws IOException {
+        bodyBuffer.writeTo(out);
+    }
+
+    /**
+     * Appends the remaining bytes of a buffer to the response body, bypassing the servlet output stream.
+     * @param body The buffer to append, its position is advanced to its limit
+     */
+    void appendAwsResponseBody(ByteBuffer body) {
+        bodyBuffer.write(body);
+    }
+
+    boolean isAwsResponseBodyValidUtf8() {
+        return bodyBuffer.isValidUtf8();
+    }
+
+
+    /**
+     * Records the status and body size of the Lambda response the writer produced for this response. They can differ
+     * from the servlet response, for example when the writer answers a conditional request with a 304 status or
+     * compresses the body.
+     * @param status The status code sent to the client
+     * @param bodySize The size in bytes of the body sent to the client, before base64 encoding
+     */
+    void setAwsWrittenResponse(int status, long bodySize) {
+        writtenStatusCode = status;
+        writtenBodySize = bodySize;
+    }
+
+    /**
+     * @return The status code of the Lambda response, 0 if the response has not been written yet
+     */
+    int getAwsWrittenStatus() {
+        return writtenStatusCode;
+    }
+
+    long getAwsWrittenBodySize() {
+        return writtenBodySize;
     }
 
 
@@ -486,6 +651,21 @@ public class AwsHttpServletResponse
         return headers;
     }
 
+    /**
+     * @param name The name of a request header
+     * @return The value of the header in the request this response belongs to, null if there is no such header
+     */
+    String getRequestHeader(String name) {
+        return request == null ? null : request.getHeader(name);
+    }
+
+    /**
+     * @return The HTTP method of the request this response belongs to, null if there is no request
+     */
+    String getRequestMethod() {
+        return request == null ? null : request.getMethod();
+    }
+
     AwsProxyRequest getAwsProxyRequest() {
         return (AwsProxyRequest)request.getAttribute(API_GATEWAY_EVENT_PROPERTY);
     }
@@ -499,15 +679,11 @@ public class AwsHttpServletResponse
         if (!canSetHeader()) return;
         String encodedKey = SecurityUtils.crlf(key);
         String encodedValue = SecurityUtils.crlf(value);
-        List<String> values = headers.get(encodedKey);
-
-        if (values == null || overwrite) {
-            values = new ArrayList<>();
+        if (overwrite) {
+            headers.putSingle(encodedKey, encodedValue);
+        } else {
+            headers.add(encodedKey, encodedValue);
         }
-
-        values.add(encodedValue);
-
-        headers.put(encodedKey, values);
     }
 
     private boolean canSetHeader() {
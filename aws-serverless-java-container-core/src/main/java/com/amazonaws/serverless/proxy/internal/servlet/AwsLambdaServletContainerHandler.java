@@ -18,6 +18,8 @@ import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
 import com.amazonaws.serverless.proxy.RequestReader;
 import com.amazonaws.serverless.proxy.ResponseWriter;
 import com.amazonaws.serverless.proxy.SecurityContextWriter;
+import com.amazonaws.serverless.proxy.cache.CachedResponse;
+import com.amazonaws.serverless.proxy.metrics.InvocationMetrics;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import org.slf4j.Logger;
@@ -30,6 +32,7 @@ import javax.servlet.http.HttpServletResponseWrapper;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 
 
@@ -54,6 +57,7 @@ public abstract class AwsLambdaServletContainerHandler<RequestType, ResponseType
     //-------------------------------------------------------------
     private Logger log = LoggerFactory.getLogger(AwsLambdaServletContainerHandler.class);
     private FilterChainManager<AwsServletContext> filterChainManager;
+    private AwsHttpServletResponse recycledResponse;
 
     //-------------------------------------------------------------
     // Variables - Protected
@@ -139,6 +143,29 @@ public abstract class AwsLambdaServletContainerHandler<RequestType, ResponseType
     // Methods - Protected
     //-------------------------------------------------------------
 
+    /**
+     * Returns the servlet response object for a new event. Framework implementations should use this method from
+     * their <code>getContainerResponse</code> method. When the container is configured to recycle request objects with
+     * {@link com.amazonaws.serverless.proxy.model.ContainerConfig#setRecycleRequestObjects(boolean)}, the response from
+     * the previous event is reset and reused unless its request started an async context.
+     * @param request The servlet request for the new event
+     * @param latch The latch the response counts down once it is fully written
+     * @return A response object ready to be written to
+     */
+    protected AwsHttpServletResponse getAwsHttpServletResponse(HttpServletRequest request, CountDownLatch latch) {
+        if (!getContainerConfig().isRecycleRequestObjects()) {
+            recycledResponse = null;
+            return new AwsHttpServletResponse(request, latch);
+        }
+        if (recycledResponse != null && recycledResponse.isRecyclable()) {
+            recycledResponse.recycle(request, latch);
+        } else {
+            recycledResponse = new AwsHttpServletResponse(request, latch);
+        }
+        return recycledResponse;
+    }
+
+
     /**
      * Applies the filter chain in the request lifecycle
      * @param request The Request object. This must be an implementation of HttpServletRequest
@@ -152,7 +179,12 @@ public abstract class AwsLambdaServletContainerHandler<RequestType, ResponseType
             ((AwsHttpServletRequest)request).setContainerHandler(this);
         }
 
+        InvocationMetrics invocation = getInvocationMetrics();
+        long chainStart = invocation != null ? System.nanoTime() : 0L;
         FilterChain chain = getFilterChain(request, servlet);
+        if (invocation != null) {
+            invocation.lap(InvocationMetrics.Phase.FILTER_CHAIN, chainStart);
+        }
         chain.doFilter(request, response);
 
         // if for some reason the response wasn't flushed yet, we force it here unless it's being processed asynchronously (WebFlux)
@@ -161,6 +193,32 @@ public abstract class AwsLambdaServletContainerHandler<RequestType, ResponseType
         }
     }
 
+
+    @Override
+    protected void recordResponseMetrics(ContainerResponseType containerResponse, InvocationMetrics metrics) {
+        super.recordResponseMetrics(containerResponse, metrics);
+        if (containerResponse instanceof AwsHttpServletResponse) {
+            AwsHttpServletResponse response = (AwsHttpServletResponse) containerResponse;
+            if (response.getAwsWrittenStatus() > 0) {
+                // the writer can answer with a 304 or a compressed body, record what the client receives
+                metrics.setStatusCode(response.getAwsWrittenStatus());
+                metrics.setResponseSize(response.getAwsWrittenBodySize());
+            } else {
+                metrics.setResponseSize(response.getAwsResponseBodySize());
+            }
+        }
+    }
+
+    @Override
+    protected ContainerResponseType getCachedContainerResponse(ContainerRequestType containerRequest, CachedResponse cached) {
+        ContainerResponseType response = getContainerResponse(containerRequest, new CountDownLatch(1));
+        if (response instanceof AwsHttpServletResponse) {
+            response.setStatus(cached.getStatusCode());
+            ((AwsHttpServletResponse) response).setAwsWrittenResponse(cached.getStatusCode(), cached.getBodySize());
+        }
+        return response;
+    }
+
     @Override
     public void initialize() throws ContainerInitializationException {
         // we expect all servlets to be wrapped in an AwsServletRegistration
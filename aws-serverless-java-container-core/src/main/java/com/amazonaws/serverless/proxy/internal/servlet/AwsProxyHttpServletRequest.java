@@ -38,7 +38,6 @@ import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -85,6 +84,28 @@ public class AwsProxyHttpServletRequest extends AwsHttpServletRequest {
         return this.request;
     }
 
+
+    /**
+     * Resets this object to wrap a new proxy event. See {@link AwsHttpServletRequest#recycle(Context)}.
+     * @param awsProxyRequest The new proxy event
+     * @param lambdaContext The Lambda function context for the new event
+     * @param awsSecurityContext The security context for the new event
+     * @param config The container configuration
+     */
+    void recycle(AwsProxyRequest awsProxyRequest, Context lambdaContext, SecurityContext awsSecurityContext, ContainerConfig config) {
+        recycle(lambdaContext);
+        this.request = awsProxyRequest;
+        this.securityContext = awsSecurityContext;
+        this.config = config;
+        this.asyncContext = null;
+    }
+
+
+    @Override
+    protected boolean isRecyclable() {
+        return asyncContext == null;
+    }
+
     //-------------------------------------------------------------
     // Implementation - HttpServletRequest
     //-------------------------------------------------------------
@@ -265,7 +286,7 @@ public class AwsProxyHttpServletRequest extends AwsHttpServletRequest {
     @Override
     public Collection<Part> getParts()
             throws IOException, ServletException {
-        return getMultipartFormParametersMap().values();
+        return getMultipartParts();
     }
 
 
@@ -344,48 +365,26 @@ public class AwsProxyHttpServletRequest extends AwsHttpServletRequest {
 
     @Override
     public String getParameter(String s) {
-       String queryStringParameter = getFirstQueryParamValue(request.getMultiValueQueryStringParameters(), s, config.isQueryStringCaseSensitive());
-        if (queryStringParameter != null) {
-            return queryStringParameter;
-        }
-
-        String[] bodyParams = getFormBodyParameterCaseInsensitive(s);
-        if (bodyParams.length == 0) {
-            return null;
-        } else {
-            return bodyParams[0];
-        }
+        return getParameterIndex(request.getMultiValueQueryStringParameters(), config).getFirst(s);
     }
 
 
     @Override
     public Enumeration<String> getParameterNames() {
-        if (request.getMultiValueQueryStringParameters() == null) {
-            return Collections.emptyEnumeration();
-        }
-
-        return Collections.enumeration(request.getMultiValueQueryStringParameters().keySet());
+        return Collections.enumeration(getParameterIndex(request.getMultiValueQueryStringParameters(), config).getNames());
     }
 
 
     @Override
     @SuppressFBWarnings("PZLA_PREFER_ZERO_LENGTH_ARRAYS") // suppressing this as according to the specs we should be returning null here if we can't find params
     public String[] getParameterValues(String s) {
-        List<String> values = new ArrayList<>(Arrays.asList(getQueryParamValues(request.getMultiValueQueryStringParameters(), s, config.isQueryStringCaseSensitive())));
-
-        values.addAll(Arrays.asList(getFormBodyParameterCaseInsensitive(s)));
-
-        if (values.size() == 0) {
-            return null;
-        } else {
-            return values.toArray(new String[0]);
-        }
+        return getParameterIndex(request.getMultiValueQueryStringParameters(), config).getValues(s);
     }
 
 
     @Override
     public Map<String, String[]> getParameterMap() {
-        return generateParameterMap(request.getMultiValueQueryStringParameters(), config);
+        return getParameterIndex(request.getMultiValueQueryStringParameters(), config).getParameterMap();
     }
 
 
@@ -437,7 +436,7 @@ public class AwsProxyHttpServletRequest extends AwsHttpServletRequest {
     @Override
     public ServletInputStream getInputStream() throws IOException {
         if (requestInputStream == null) {
-            requestInputStream = new AwsServletInputStream(bodyStringToInputStream(request.getBody(), request.isBase64Encoded()));
+            requestInputStream = bodyStringToInputStream(request.getBody(), request.isBase64Encoded());
         }
         return requestInputStream;
     }
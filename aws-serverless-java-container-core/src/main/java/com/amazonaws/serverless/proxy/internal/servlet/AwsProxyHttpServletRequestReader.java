@@ -31,6 +31,7 @@ public class AwsProxyHttpServletRequestReader extends RequestReader<AwsProxyRequ
     static final String INVALID_REQUEST_ERROR = "The incoming event is not a valid request from Amazon API Gateway or an Application Load Balancer";
 
     private ServletContext servletContext;
+    private AwsProxyHttpServletRequest recycledRequest;
     //-------------------------------------------------------------
     // Methods - Implementation
     //-------------------------------------------------------------
@@ -54,7 +55,14 @@ public class AwsProxyHttpServletRequestReader extends RequestReader<AwsProxyRequ
             // put single as we always expect to have one and only one content type in a request.
             request.getMultiValueHeaders().putSingle(HttpHeaders.CONTENT_TYPE, getContentTypeWithCharset(contentType, config));
         }
-        AwsProxyHttpServletRequest servletRequest = new AwsProxyHttpServletRequest(request, lambdaContext, securityContext, config);
+        AwsProxyHttpServletRequest servletRequest;
+        if (config.isRecycleRequestObjects() && recycledRequest != null && recycledRequest.isRecyclable()) {
+            servletRequest = recycledRequest;
+            servletRequest.recycle(request, lambdaContext, securityContext, config);
+        } else {
+            servletRequest = new AwsProxyHttpServletRequest(request, lambdaContext, securityContext, config);
+            recycledRequest = config.isRecycleRequestObjects() ? servletRequest : null;
+        }
         servletRequest.setServletContext(servletContext);
         servletRequest.setAttribute(API_GATEWAY_CONTEXT_PROPERTY, request.getRequestContext());
         servletRequest.setAttribute(API_GATEWAY_STAGE_VARS_PROPERTY, request.getStageVariables());
@@ -14,23 +14,61 @@ package com.amazonaws.serverless.proxy.internal.servlet;
 
 
 import com.amazonaws.serverless.exceptions.InvalidResponseObjectException;
-import com.amazonaws.serverless.proxy.ResponseWriter;
+import com.amazonaws.serverless.proxy.StreamingResponseWriter;
 import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
 import com.amazonaws.serverless.proxy.internal.testutils.Timer;
 import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
 import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.serverless.proxy.model.ContainerConfig;
+import com.amazonaws.serverless.proxy.model.Headers;
 import com.amazonaws.services.lambda.runtime.Context;
 
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 
 
 /**
  * Creates an <code>AwsProxyResponse</code> object given an <code>AwsHttpServletResponse</code> object. If the
- * response is not populated with a status code we infer a default 200 status code.
+ * response is not populated with a status code we infer a default 200 status code. When the container handler is
+ * configured to stream responses, the same fields are written directly to the Lambda output stream with a
+ * <code>JsonGenerator</code> instead.
+ *
+ * When response compression is enabled in the {@link com.amazonaws.serverless.proxy.model.ContainerConfig}, bodies of a
+ * compressible content type are gzip or deflate compressed based on the <code>Accept-Encoding</code> header of the
+ * request and returned base64 encoded. When entity tags are enabled, a strong <code>ETag</code> is computed from the body
+ * and requests with a matching <code>If-None-Match</code> header receive a <code>304 Not Modified</code> response.
  */
-public class AwsProxyHttpServletResponseWriter extends ResponseWriter<AwsHttpServletResponse, AwsProxyResponse> {
+public class AwsProxyHttpServletResponseWriter extends StreamingResponseWriter<AwsHttpServletResponse, AwsProxyResponse> {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    static final String STATUS_CODE_FIELD = "statusCode";
+    static final String STATUS_DESCRIPTION_FIELD = "statusDescription";
+    static final String MULTI_VALUE_HEADERS_FIELD = "multiValueHeaders";
+    static final String BODY_FIELD = "body";
+    static final String BASE64_ENCODED_FIELD = "isBase64Encoded";
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final ResponseCompressor compressor = new ResponseCompressor();
+
 
     //-------------------------------------------------------------
     // Methods - Implementation
@@ -41,30 +79,215 @@ public class AwsProxyHttpServletResponseWriter extends ResponseWriter<AwsHttpSer
             throws InvalidResponseObjectException {
         Timer.start("SERVLET_RESPONSE_WRITE");
         AwsProxyResponse awsProxyResponse = new AwsProxyResponse();
-        if (containerResponse.getAwsResponseBodyString() != null) {
+        OutgoingResponse outgoing = prepare(containerResponse);
+        if (outgoing.compressedBody != null) {
+            try {
+                awsProxyResponse.setBody(encodeBody(outgoing.compressedBody));
+            } finally {
+                outgoing.compressedBody.release();
+            }
+            awsProxyResponse.setBase64Encoded(true);
+        } else if (outgoing.hasBody && containerResponse.hasAwsResponseBody()) {
             String responseString;
 
-            if (!isBinary(containerResponse.getContentType()) && isValidUtf8(containerResponse.getAwsResponseBodyBytes())) {
+            if (isTextResponse(containerResponse)) {
                 responseString = containerResponse.getAwsResponseBodyString();
             } else {
-                responseString = Base64.getMimeEncoder().encodeToString(containerResponse.getAwsResponseBodyBytes());
+                responseString = encodeBody(containerResponse);
                 awsProxyResponse.setBase64Encoded(true);
             }
 
             awsProxyResponse.setBody(responseString);
         }
-        awsProxyResponse.setMultiValueHeaders(containerResponse.getAwsResponseHeaders());
+        awsProxyResponse.setMultiValueHeaders(outgoing.headers);
 
-        awsProxyResponse.setStatusCode(containerResponse.getStatus());
+        awsProxyResponse.setStatusCode(outgoing.status);
 
-        if (containerResponse.getAwsProxyRequest() != null && containerResponse.getAwsProxyRequest().getRequestSource() == AwsProxyRequest.RequestSource.ALB) {
-            awsProxyResponse.setStatusDescription(containerResponse.getStatus() + " " + Response.Status.fromStatusCode(containerResponse.getStatus()).getReasonPhrase());
+        if (isAlbRequest(containerResponse)) {
+            awsProxyResponse.setStatusDescription(getStatusDescription(outgoing.status));
         }
 
         Timer.stop("SERVLET_RESPONSE_WRITE");
         return awsProxyResponse;
     }
 
+
+    @Override
+    public void writeResponse(AwsHttpServletResponse containerResponse, Context lambdaContext, OutputStream output)
+            throws InvalidResponseObjectException, IOException {
+        Timer.start("SERVLET_RESPONSE_STREAM");
+        // compress before writing anything, a failure can still be handled by the exception handler
+        OutgoingResponse outgoing = prepare(containerResponse);
+        JsonGenerator json = LambdaContainerHandler.getObjectMapper().getFactory().createGenerator(output);
+        // the container handler owns the output stream, and a failed write must not be completed with closing tokens
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        try {
+            json.writeStartObject();
+            json.writeNumberField(STATUS_CODE_FIELD, outgoing.status);
+            if (isAlbRequest(containerResponse)) {
+                json.writeStringField(STATUS_DESCRIPTION_FIELD, getStatusDescription(outgoing.status));
+            }
+            writeHeaders(json, outgoing.headers);
+
+            boolean isBase64Encoded = false;
+            if (outgoing.compressedBody != null) {
+                json.writeFieldName(BODY_FIELD);
+                json.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, outgoing.compressedBody.toInputStream(), outgoing.compressedBody.size());
+                isBase64Encoded = true;
+            } else if (outgoing.hasBody && containerResponse.hasAwsResponseBody()) {
+                json.writeFieldName(BODY_FIELD);
+                if (isTextResponse(containerResponse)) {
+                    // decode the body buffer while it is escaped, the body string is never built
+                    json.writeString(containerResponse.getAwsResponseBodyReader(), -1);
+                } else {
+                    // encode the body buffer in place, API Gateway does not need the MIME line breaks
+                    json.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, containerResponse.getAwsResponseBodyStream(), containerResponse.getAwsResponseBodySize());
+                    isBase64Encoded = true;
+                }
+            }
+            json.writeBooleanField(BASE64_ENCODED_FIELD, isBase64Encoded);
+            json.writeEndObject();
+            // only a complete response is flushed, after a failure the buffered content is dropped
+            json.close();
+        } finally {
+            if (outgoing.compressedBody != null) {
+                outgoing.compressedBody.release();
+            }
+            Timer.stop("SERVLET_RESPONSE_STREAM");
+        }
+    }
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    /**
+     * Runs the optional entity tag and compression stages configured in the <code>ContainerConfig</code>. The servlet
+     * response is not modified, headers are copied before they are changed. The status and body size of the outgoing
+     * response are recorded on the servlet response for the invocation metrics.
+     */
+    private OutgoingResponse prepare(AwsHttpServletResponse containerResponse) throws InvalidResponseObjectException {
+        OutgoingResponse outgoing = prepareOutgoing(containerResponse);
+        long bodySize = 0;
+        if (outgoing.compressedBody != null) {
+            bodySize = outgoing.compressedBody.size();
+        } else if (outgoing.hasBody && containerResponse.hasAwsResponseBody()) {
+            bodySize = containerResponse.getAwsResponseBodySize();
+        }
+        containerResponse.setAwsWrittenResponse(outgoing.status, bodySize);
+        return outgoing;
+    }
+
+    private OutgoingResponse prepareOutgoing(AwsHttpServletResponse containerResponse) throws InvalidResponseObjectException {
+        ContainerConfig config = LambdaContainerHandler.getContainerConfig();
+        OutgoingResponse outgoing = new OutgoingResponse(containerResponse.getStatus(), containerResponse.getAwsResponseHeaders());
+        boolean compressible = ResponseCompressor.isCompressible(containerResponse, config);
+
+        String entityTag = null;
+        if (EntityTags.isTaggable(containerResponse, config)) {
+            entityTag = EntityTags.compute(containerResponse);
+            if (EntityTags.matches(containerResponse.getRequestHeader(HttpHeaders.IF_NONE_MATCH), entityTag)) {
+                Headers headers = compressible ? ResponseCompressor.getHeaders(outgoing.headers, null) : copyHeaders(outgoing.headers);
+                // a 304 response only repeats the validators and cache headers of the representation
+                headers.remove(HttpHeaders.CONTENT_TYPE);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                headers.putSingle(HttpHeaders.ETAG, entityTag);
+                outgoing.headers = headers;
+                outgoing.status = HttpServletResponse.SC_NOT_MODIFIED;
+                outgoing.hasBody = false;
+                return outgoing;
+            }
+        }
+
+        String encoding = null;
+        if (compressible) {
+            encoding = ResponseCompressor.negotiate(containerResponse.getRequestHeader(HttpHeaders.ACCEPT_ENCODING));
+            outgoing.headers = ResponseCompressor.getHeaders(outgoing.headers, encoding);
+            if (encoding != null) {
+                outgoing.compressedBody = compress(containerResponse, encoding);
+            }
+        }
+        if (entityTag != null) {
+            if (!compressible) {
+                outgoing.headers = copyHeaders(outgoing.headers);
+            }
+            outgoing.headers.putSingle(HttpHeaders.ETAG, EntityTags.forEncoding(entityTag, encoding));
+        } else if (outgoing.compressedBody != null) {
+            // a strong tag set by the application or a filter identifies the identity representation
+            String applicationTag = outgoing.headers.getFirst(HttpHeaders.ETAG);
+            if (applicationTag != null && applicationTag.length() > 1 && applicationTag.charAt(0) == '"'
+                    && applicationTag.charAt(applicationTag.length() - 1) == '"') {
+                outgoing.headers.putSingle(HttpHeaders.ETAG, EntityTags.forEncoding(applicationTag, encoding));
+            }
+        }
+        return outgoing;
+    }
+
+    private static Headers copyHeaders(Headers headers) {
+        Headers copy = new Headers();
+        if (headers != null) {
+            copy.putAll(headers);
+        }
+        return copy;
+    }
+
+    private void writeHeaders(JsonGenerator json, Headers headers) throws IOException {
+        if (headers == null) {
+            return;
+        }
+        json.writeObjectFieldStart(MULTI_VALUE_HEADERS_FIELD);
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            json.writeArrayFieldStart(header.getKey());
+            if (header.getValue() != null) {
+                for (String value : header.getValue()) {
+                    json.writeString(value);
+                }
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+
+    private boolean isTextResponse(AwsHttpServletResponse containerResponse) {
+        return !isBinary(containerResponse.getContentType()) && containerResponse.isAwsResponseBodyValidUtf8();
+    }
+
+    private String encodeBody(AwsHttpServletResponse containerResponse) throws InvalidResponseObjectException {
+        return encodeBody(containerResponse.getAwsResponseBodyBuffer());
+    }
+
+    private String encodeBody(ResponseBodyBuffer body) throws InvalidResponseObjectException {
+        // encode straight from the body buffer into an array sized for the base64 output
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(4 * ((body.size() + 2) / 3));
+        OutputStream out = Base64.getEncoder().wrap(encoded);
+        try {
+            body.writeTo(out);
+            // closing the encoder writes the final padding
+            out.close();
+            return encoded.toString(StandardCharsets.US_ASCII.name());
+        } catch (IOException e) {
+            throw new InvalidResponseObjectException("Could not encode response body", e);
+        }
+    }
+
+    private ResponseBodyBuffer compress(AwsHttpServletResponse containerResponse, String encoding) throws InvalidResponseObjectException {
+        try {
+            return compressor.compress(containerResponse, encoding);
+        } catch (IOException e) {
+            throw new InvalidResponseObjectException("Could not compress response body", e);
+        }
+    }
+
+    private boolean isAlbRequest(AwsHttpServletResponse containerResponse) {
+        return containerResponse.getAwsProxyRequest() != null
+                && containerResponse.getAwsProxyRequest().getRequestSource() == AwsProxyRequest.RequestSource.ALB;
+    }
+
+    private String getStatusDescription(int status) {
+        return status + " " + Response.Status.fromStatusCode(status).getReasonPhrase();
+    }
+
     private boolean isBinary(String contentType) {
         if(contentType != null) {
             int semidx = contentType.indexOf(';');
@@ -77,4 +300,26 @@ public class AwsProxyHttpServletResponseWriter extends ResponseWriter<AwsHttpSer
         }
         return false;
     }
+
+
+    //-------------------------------------------------------------
+    // Inner Class - OutgoingResponse
+    //-------------------------------------------------------------
+
+    /**
+     * The status, headers and body of the Lambda response after the optional entity tag and compression stages
+     */
+    private static final class OutgoingResponse {
+        private int status;
+        private Headers headers;
+        // set when the body is sent compressed, must be released once it has been written
+        private ResponseBodyBuffer compressedBody;
+        // false for 304 responses
+        private boolean hasBody = true;
+
+        private OutgoingResponse(int status, Headers headers) {
+            this.status = status;
+            this.headers = headers;
+        }
+    }
 }
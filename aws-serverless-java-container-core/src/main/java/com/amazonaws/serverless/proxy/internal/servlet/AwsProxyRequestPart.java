@@ -39,6 +39,8 @@ public class AwsProxyRequestPart
     private String contentType;
     private MultiValuedTreeMap<String, String> headers;
     private byte[] content;
+    private int offset;
+    private int length;
 
 
     //-------------------------------------------------------------
@@ -47,6 +49,24 @@ public class AwsProxyRequestPart
 
     public AwsProxyRequestPart(byte[] content) {
         this.content = content.clone();
+        this.offset = 0;
+        this.length = content.length;
+    }
+
+
+    /**
+     * Creates a part whose content is a slice of a larger buffer, such as the request body. The buffer is not copied
+     * and must not be modified while the part is in use.
+     * @param buffer The buffer that holds the content
+     * @param offset The position of the content in the buffer
+     * @param length The length of the content
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    AwsProxyRequestPart(byte[] buffer, int offset, int length) {
+        this.content = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.size = length;
     }
 
 
@@ -57,7 +77,7 @@ public class AwsProxyRequestPart
 
     @Override
     public InputStream getInputStream() throws IOException {
-        return new ByteArrayInputStream(content);
+        return new ByteArrayInputStream(content, offset, length);
     }
 
 
@@ -91,7 +111,7 @@ public class AwsProxyRequestPart
         String canonicalFilePath = SecurityUtils.getValidFilePath(s);
         FileOutputStream fos = new FileOutputStream(canonicalFilePath);
         try {
-            fos.write(content);
+            fos.write(content, offset, length);
         } finally {
             fos.close();
         }
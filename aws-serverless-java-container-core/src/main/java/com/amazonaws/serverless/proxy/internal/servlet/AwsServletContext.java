@@ -16,11 +16,9 @@ package com.amazonaws.serverless.proxy.internal.servlet;
 import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
 import com.amazonaws.serverless.proxy.internal.SecurityUtils;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.activation.MimetypesFileTypeMap;
 import javax.servlet.*;
 import javax.servlet.descriptor.JspConfigDescriptor;
 
@@ -54,11 +52,12 @@ public class AwsServletContext
     //-------------------------------------------------------------
     private Map<String, FilterHolder> filters;
     private Map<String, AwsServletRegistration> servletRegistrations;
+    // built on the first lookup and discarded when a servlet or mapping is registered
+    private ServletMapper servletMapper;
     private Map<String, Object> attributes;
     private Map<String, String> initParameters;
     private AwsLambdaServletContainerHandler containerHandler;
     private Logger log = LoggerFactory.getLogger(AwsServletContext.class);
-    private MimetypesFileTypeMap mimeTypes; // lazily loaded in the getMimeType method
 
 
     //-------------------------------------------------------------
@@ -128,18 +127,13 @@ public class AwsServletContext
 
 
     @Override
-    @SuppressFBWarnings("PATH_TRAVERSAL_IN") // suppressing because we are using the getValidFilePath
     public String getMimeType(String s) {
-        if (s == null || !s.contains(".")) {
+        String extension = MimeTypes.getExtension(s);
+        if (extension == null) {
             return null;
         }
-        if (mimeTypes == null) {
-            mimeTypes = new MimetypesFileTypeMap();
-        }
-        // TODO: The getContentType method of the MimetypesFileTypeMap returns application/octet-stream
-        // instead of null when the type cannot be found. We should replace with an implementation that
-        // loads the System mime types ($JAVA_HOME/lib/mime.types
-        return mimeTypes.getContentType(s);
+        String customType = LambdaContainerHandler.getContainerConfig().getCustomMimeType(extension);
+        return customType != null ? customType : MimeTypes.forExtension(extension);
     }
 
 
@@ -182,28 +176,8 @@ public class AwsServletContext
     }
 
     public Servlet getServletForPath(String path) {
-        String[] pathParts = path.split("/");
-        for (AwsServletRegistration reg : servletRegistrations.values()) {
-            for (String p : reg.getMappings()) {
-                if ("".equals(p) || "/".equals(p) || "/*".equals(p)) {
-                    return reg.getServlet();
-                }
-                // if  I have no path and I haven't matched something now I'll just move on to the next
-                if ("".equals(path) || "/".equals(path)) {
-                    continue;
-                }
-                String[] regParts = p.split("/");
-                for (int i = 0; i < regParts.length; i++) {
-                    if (!regParts[i].equals(pathParts[i]) && !"*".equals(regParts[i])) {
-                        break;
-                    }
-                    if (i == regParts.length - 1 && (regParts[i].equals(pathParts[i]) || "*".equals(regParts[i]))) {
-                        return reg.getServlet();
-                    }
-                }
-            }
-        }
-        return null;
+        AwsServletRegistration registration = getServletMapper().getRegistration(path);
+        return registration == null ? null : registration.getServlet();
     }
 
 
@@ -321,6 +295,7 @@ public class AwsServletContext
             Class<? extends Servlet> servletClass = (Class<? extends Servlet>) this.getClassLoader().loadClass(s1);
             Servlet servlet = createServlet(servletClass);
             servletRegistrations.put(s, new AwsServletRegistration(s, servlet, this));
+            servletMappingsChanged();
             return servletRegistrations.get(s);
         } catch (ServletException | ClassNotFoundException e) {
             throw new RuntimeException(e);
@@ -331,6 +306,7 @@ public class AwsServletContext
     @Override
     public ServletRegistration.Dynamic addServlet(String s, Servlet servlet) {
         servletRegistrations.put(s, new AwsServletRegistration(s, servlet, this));
+        servletMappingsChanged();
         return servletRegistrations.get(s);
     }
 
@@ -340,6 +316,7 @@ public class AwsServletContext
         try {
             Servlet servlet = createServlet(aClass);
             servletRegistrations.put(s, new AwsServletRegistration(s, servlet, this));
+            servletMappingsChanged();
             return servletRegistrations.get(s);
         } catch (ServletException e) {
             throw new RuntimeException(e);
@@ -464,6 +441,34 @@ public class AwsServletContext
     }
 
 
+    /**
+     * Returns the registration of a servlet instance without scanning the registrations
+     * @param servlet The servlet
+     * @return The registration of the servlet, null if the servlet is not registered with this context
+     */
+    AwsServletRegistration getServletRegistration(Servlet servlet) {
+        return getServletMapper().getRegistration(servlet);
+    }
+
+
+    /**
+     * Called when a servlet or a servlet mapping is registered, the mappings are indexed again on the next lookup
+     */
+    void servletMappingsChanged() {
+        servletMapper = null;
+    }
+
+
+    private ServletMapper getServletMapper() {
+        ServletMapper mapper = servletMapper;
+        if (mapper == null) {
+            mapper = new ServletMapper(servletRegistrations.values());
+            servletMapper = mapper;
+        }
+        return mapper;
+    }
+
+
     @Override
     public SessionCookieConfig getSessionCookieConfig() {
         return null;
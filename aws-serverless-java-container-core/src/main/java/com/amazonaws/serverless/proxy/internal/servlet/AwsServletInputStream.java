@@ -12,12 +12,14 @@
  */
 package com.amazonaws.serverless.proxy.internal.servlet;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.NullInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -73,4 +75,42 @@ public class AwsServletInputStream extends ServletInputStream {
         }
         return readByte;
     }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+            throws IOException {
+        if (bodyStream == null || bodyStream instanceof NullInputStream) {
+            return -1;
+        }
+        int readBytes = bodyStream.read(b, off, len);
+        if (readBytes == -1) {
+            finished = true;
+        }
+        return readBytes;
+    }
+
+    @Override
+    public int available()
+            throws IOException {
+        // other streams, such as the lazy base64 decoder, can only estimate the size of the decoded body
+        if (bodyStream instanceof ByteArrayInputStream) {
+            return bodyStream.available();
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the rest of the body and rewinds this stream onto the bytes that were read, so that the application can
+     * still read the body after the request parsed it.
+     * @return The bytes that had not been read from the stream yet
+     * @throws IOException If the body cannot be read
+     */
+    byte[] readRemainingAndRewind()
+            throws IOException {
+        byte[] remaining = bodyStream == null || bodyStream instanceof NullInputStream
+                ? new byte[0] : IOUtils.toByteArray(bodyStream);
+        bodyStream = new ByteArrayInputStream(remaining);
+        finished = false;
+        return remaining;
+    }
 }
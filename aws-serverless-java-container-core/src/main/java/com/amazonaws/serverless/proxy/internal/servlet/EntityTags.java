@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import com.amazonaws.serverless.proxy.model.ContainerConfig;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+
+import java.io.IOException;
+
+
+/**
+ * Generates strong entity tags from the response body and evaluates the <code>If-None-Match</code> request header for
+ * the response writer. The tag is the xxHash64 of the uncompressed body. When the body is sent compressed the content
+ * coding is appended to the tag, a compressed representation is a different sequence of bytes and must not share the
+ * strong tag of the uncompressed one. The response cache policies use the same comparison to answer conditional
+ * requests from cached responses.
+ */
+public final class EntityTags {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final String WEAK_PREFIX = "W/";
+    // the opening quote and the 16 hex digits of a generated tag
+    private static final int GENERATED_TAG_PREFIX_LENGTH = 17;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    private EntityTags() {
+        // utility class
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Decides whether the writer should generate an entity tag for the response. Tags are only generated for
+     * successful <code>GET</code> and <code>HEAD</code> requests with a body when the application did not set its own
+     * <code>ETag</code> header.
+     * @param response The response produced by the framework
+     * @param config The container configuration
+     * @return true if a tag should be generated
+     */
+    static boolean isTaggable(AwsHttpServletResponse response, ContainerConfig config) {
+        if (!config.isGenerateETags() || !response.hasAwsResponseBody()) {
+            return false;
+        }
+        if (response.getStatus() != HttpServletResponse.SC_OK || response.getHeader(HttpHeaders.ETAG) != null) {
+            return false;
+        }
+        String method = response.getRequestMethod();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+
+    /**
+     * Hashes the response body in place
+     * @param response The response
+     * @return A quoted strong entity tag
+     */
+    static String compute(AwsHttpServletResponse response) {
+        XxHash64 hash = new XxHash64();
+        try {
+            response.writeAwsResponseBody(hash);
+        } catch (IOException e) {
+            // the hash never throws
+            throw new IllegalStateException(e);
+        }
+        return format(hash.getValue());
+    }
+
+
+    /**
+     * Formats a body hash as an entity tag
+     * @param hash The xxHash64 of the body
+     * @return A quoted strong entity tag
+     */
+    static String format(long hash) {
+        long value = hash;
+        char[] tag = new char[18];
+        tag[0] = '"';
+        for (int i = 16; i > 0; i--) {
+            tag[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        tag[17] = '"';
+        return new String(tag);
+    }
+
+
+    /**
+     * Returns the tag of the compressed representation of a response
+     * @param entityTag The quoted tag of the uncompressed body
+     * @param encoding The content coding, null if the body is not compressed
+     * @return The tag for the representation
+     */
+    static String forEncoding(String entityTag, String encoding) {
+        if (encoding == null) {
+            return entityTag;
+        }
+        return entityTag.substring(0, entityTag.length() - 1) + "-" + encoding + "\"";
+    }
+
+
+    /**
+     * Evaluates an <code>If-None-Match</code> header with the weak comparison function. Tags generated by
+     * {@link #format(long)} that only differ by a content coding suffix added by {@link #forEncoding(String, String)}
+     * match, the client may have received a different representation of the same body. Any other tag, for example
+     * one set by the application, must be identical.
+     * @param ifNoneMatch The value of the request header, can be null
+     * @param entityTag The quoted tag of the response
+     * @return true if the header contains <code>*</code> or a matching tag
+     */
+    public static boolean matches(String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null || entityTag == null) {
+            return false;
+        }
+        boolean generated = isGenerated(entityTag, 0, entityTag.length());
+        int length = ifNoneMatch.length();
+        int start = 0;
+        while (start < length) {
+            int end = ifNoneMatch.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            while (start < end && Character.isWhitespace(ifNoneMatch.charAt(start))) {
+                start++;
+            }
+            int tokenEnd = end;
+            while (tokenEnd > start && Character.isWhitespace(ifNoneMatch.charAt(tokenEnd - 1))) {
+                tokenEnd--;
+            }
+            if (tokenEnd - start == 1 && ifNoneMatch.charAt(start) == '*') {
+                return true;
+            }
+            if (ifNoneMatch.startsWith(WEAK_PREFIX, start)) {
+                start += WEAK_PREFIX.length();
+            }
+            if (generated && isGenerated(ifNoneMatch, start, tokenEnd)) {
+                // compare the quote and the hash, the coding suffixes may differ
+                if (ifNoneMatch.regionMatches(start, entityTag, 0, GENERATED_TAG_PREFIX_LENGTH)) {
+                    return true;
+                }
+            } else if (tokenEnd - start == entityTag.length() && ifNoneMatch.regionMatches(start, entityTag, 0, entityTag.length())) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    /**
+     * Checks whether a quoted tag has the format of the tags generated by {@link #format(long)}, optionally followed
+     * by one of the content coding suffixes the writer and the static asset filter add
+     */
+    private static boolean isGenerated(String value, int start, int end) {
+        if (end - start < GENERATED_TAG_PREFIX_LENGTH + 1 || value.charAt(start) != '"' || value.charAt(end - 1) != '"') {
+            return false;
+        }
+        for (int i = start + 1; i < start + GENERATED_TAG_PREFIX_LENGTH; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        int suffixStart = start + GENERATED_TAG_PREFIX_LENGTH;
+        int suffixLength = end - 1 - suffixStart;
+        return suffixLength == 0
+                || isCodingSuffix(value, suffixStart, suffixLength, ResponseCompressor.GZIP)
+                || isCodingSuffix(value, suffixStart, suffixLength, ResponseCompressor.DEFLATE);
+    }
+
+
+    private static boolean isCodingSuffix(String value, int start, int length, String coding) {
+        return length == coding.length() + 1 && value.charAt(start) == '-' && value.startsWith(coding, start + 1);
+    }
+}
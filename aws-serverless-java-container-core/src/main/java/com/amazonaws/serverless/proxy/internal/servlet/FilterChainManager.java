@@ -12,14 +12,20 @@
  */
 package com.amazonaws.serverless.proxy.internal.servlet;
 
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.metrics.Counter;
+import com.amazonaws.serverless.proxy.metrics.MetricsRegistry;
+
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -41,15 +47,31 @@ public abstract class FilterChainManager<ServletContextType extends ServletConte
 
     static final String PATH_PART_SEPARATOR = "/";
 
+    public static final String METRIC_FILTER_CHAIN_CACHE_HITS = "FILTER_CHAIN_CACHE_HITS";
+    public static final String METRIC_FILTER_CHAIN_CACHE_MISSES = "FILTER_CHAIN_CACHE_MISSES";
+
 
     //-------------------------------------------------------------
     // Variables - Private
     //-------------------------------------------------------------
 
+    private static final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private static final Counter cacheHitCounter = metrics.counter(METRIC_FILTER_CHAIN_CACHE_HITS);
+    private static final Counter cacheMissCounter = metrics.counter(METRIC_FILTER_CHAIN_CACHE_MISSES);
+
     // we use the synchronizedMap because we do not expect high concurrency on this object. Lambda only allows one
-    // event at a time per container
-    private Map<TargetCacheKey, List<FilterHolder>> filterCache = Collections.synchronizedMap(new HashMap<TargetCacheKey, List<FilterHolder>>());
+    // event at a time per container. The access ordered map evicts the least recently used path once the cache is full
+    private Map<TargetCacheKey, List<FilterHolder>> filterCache = Collections.synchronizedMap(new LinkedHashMap<TargetCacheKey, List<FilterHolder>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TargetCacheKey, List<FilterHolder>> eldest) {
+            return size() > LambdaContainerHandler.getContainerConfig().getFilterChainCacheSize();
+        }
+    });
+    // the distinct chains referenced by the cache, paths that match the same filters share one list
+    private Map<ChainKey, List<FilterHolder>> chains = new HashMap<>();
     private int filtersSize = -1;
+    // compiled url patterns of the registered filters, rebuilt when the registrations change
+    private FilterMappingTrie mappingTrie;
     protected ServletContextType servletContext;
 
 
@@ -93,51 +115,42 @@ public abstract class FilterChainManager<ServletContextType extends ServletConte
         DispatcherType type = request.getDispatcherType();
 
         // only return the cached result if the filter list hasn't changed in the meanwhile
-        if (getFilterHolders().size() == filtersSize && getFilterChainCache(type, targetPath, servlet) != null) {
-            return getFilterChainCache(type, targetPath, servlet);
+        if (getFilterHolders().size() == filtersSize) {
+            FilterChainHolder cached = getFilterChainCache(type, targetPath, servlet);
+            if (cached != null) {
+                if (metrics.isEnabled()) {
+                    cacheHitCounter.increment();
+                }
+                return cached;
+            }
+        }
+        if (metrics.isEnabled()) {
+            cacheMissCounter.increment();
         }
 
-        AwsServletRegistration servletRegistration = (AwsServletRegistration)servletContext.getServletRegistrations()
-                .values().stream()
-                .filter((Predicate<ServletRegistration>) servletRegistration1 -> ((AwsServletRegistration) servletRegistration1).getServlet().equals(servlet))
-                .findFirst().orElse(null);
-
-        FilterChainHolder chainHolder = new FilterChainHolder();
+        AwsServletRegistration servletRegistration = getServletRegistration(servlet);
 
         Map<String, FilterHolder> registrations = getFilterHolders();
         if (registrations == null || registrations.size() == 0) {
+            FilterChainHolder chainHolder = new FilterChainHolder();
             if (servletRegistration != null) {
                 chainHolder.addFilter(new FilterHolder(new ServletExecutionFilter(servletRegistration), servletContext));
             }
             return chainHolder;
         }
-        for (Map.Entry<String, FilterHolder> entry : registrations.entrySet()) {
-            FilterHolder holder = entry.getValue();
-            // we only check the dispatcher type if it's not empty. Otherwise we assume it's a REQUEST as per section 6.2.5
-            // of servlet specs
-            if (holder.getRegistration().getDispatcherTypes().size() > 0 && !holder.getRegistration().getDispatcherTypes().contains(type)) {
-                continue;
-            }
-            for (String path : holder.getRegistration().getUrlPatternMappings()) {
-                if (pathMatches(targetPath, path)) {
-                    chainHolder.addFilter(holder);
-                }
-            }
-
-            // TODO: We do not allow programmatic registration of servlets so we never check for servlet name
-            // we assume we only ever have one servlet.
-        }
-
-        if (servletRegistration != null) {
-            chainHolder.addFilter(new FilterHolder(new ServletExecutionFilter(servletRegistration), servletContext));
-        }
-
-        putFilterChainCache(type, targetPath, chainHolder);
+        // we only check the dispatcher type if it's not empty. Otherwise we assume it's a REQUEST as per section 6.2.5
+        // of servlet specs
+        List<FilterHolder> filters = getMappingTrie(registrations).match(targetPath, type);
+        // TODO: We do not allow programmatic registration of servlets so we never check for servlet name
+        // we assume we only ever have one servlet.
+
+        List<FilterHolder> chain = getChain(filters, servletRegistration);
+        putFilterChainCache(type, targetPath, chain);
         // update total filter size
         if (filtersSize != registrations.size()) {
             filtersSize = registrations.size();
         }
-        return chainHolder;
+        return new FilterChainHolder(chain);
     }
 
 
@@ -159,34 +172,100 @@ public abstract class FilterChainManager<ServletContextType extends ServletConte
         key.setDispatcherType(type);
         key.setTargetPath(targetPath);
 
-        if (!filterCache.containsKey(key)) {
+        List<FilterHolder> chain = filterCache.get(key);
+        if (chain == null) {
             return null;
         }
-
-        return new FilterChainHolder(filterCache.get(key));
+        return new FilterChainHolder(chain);
     }
 
 
     /**
      * Adds a filter chain to the local cache. The key for the filter chain in the cache is generated with the dispatcher
-     * type and the path from the request. If we cannot compute the key for a filter chain, because either the path or
-     * dispatcher are null, this method returns without saving the chain in the cache. It's up to the <code>getFilterChain</code>
-     * method to retry this.
+     * type and the path from the request. The cache holds at most <code>ContainerConfig.getFilterChainCacheSize()</code>
+     * paths, the least recently used path is evicted when a new one is added to a full cache.
      * @param type DispatcherType from the incoming request
      * @param targetPath The target path in the API
-     * @param holder The FilterChainHolder object to save in the cache
+     * @param chain The filters to save in the cache
      */
-    private void putFilterChainCache(final DispatcherType type, final String targetPath, final FilterChainHolder holder) {
+    private void putFilterChainCache(final DispatcherType type, final String targetPath, final List<FilterHolder> chain) {
+        if (LambdaContainerHandler.getContainerConfig().getFilterChainCacheSize() < 1) {
+            return;
+        }
         TargetCacheKey key = new TargetCacheKey();
         key.setDispatcherType(type);
         key.setTargetPath(targetPath);
+        filterCache.put(key, chain);
+    }
 
-        // we couldn't compute the hash code because either the target path or dispatcher type were null
-        if (key.hashCode() == -1) {
-            return;
+
+    /**
+     * Finds the registration of the servlet at the end of the chain. The <code>AwsServletContext</code> keeps an index
+     * of its registrations, other contexts are scanned.
+     * @param servlet The servlet, can be null
+     * @return The registration of the servlet, null if the servlet is not registered
+     */
+    private AwsServletRegistration getServletRegistration(Servlet servlet) {
+        if (servlet == null) {
+            return null;
+        }
+        if (servletContext instanceof AwsServletContext) {
+            return ((AwsServletContext) servletContext).getServletRegistration(servlet);
+        }
+        return (AwsServletRegistration)servletContext.getServletRegistrations()
+                .values().stream()
+                .filter((Predicate<ServletRegistration>) servletRegistration1 -> ((AwsServletRegistration) servletRegistration1).getServlet().equals(servlet))
+                .findFirst().orElse(null);
+    }
+
+
+    /**
+     * Returns the shared chain for a set of filters and a servlet, creating it the first time the combination is seen.
+     * Many request paths usually resolve to the same few chains, sharing them keeps the size of each cache entry
+     * independent of the number of filters.
+     * @param filters The filters that match the request, in order
+     * @param servletRegistration The servlet at the end of the chain, can be null
+     * @return The filters followed by the execution filter of the servlet
+     */
+    private List<FilterHolder> getChain(List<FilterHolder> filters, AwsServletRegistration servletRegistration) {
+        ChainKey key = new ChainKey(filters, servletRegistration);
+        List<FilterHolder> chain = chains.get(key);
+        if (chain == null) {
+            chain = new ArrayList<>(filters.size() + 1);
+            chain.addAll(filters);
+            if (servletRegistration != null) {
+                chain.add(new FilterHolder(new ServletExecutionFilter(servletRegistration), servletContext));
+            }
+            chains.put(key, chain);
         }
-        filterCache.put(key, holder.getFilters());
+        return chain;
+    }
+
+
+    /**
+     * @return The number of request paths in the filter chain cache
+     */
+    int getFilterChainCacheSize() {
+        return filterCache.size();
+    }
+
 
+    /**
+     * Returns the compiled url patterns of the given filter registrations. The patterns are only compiled again when a
+     * filter, url pattern or dispatcher type was registered since the last call.
+     * @param registrations The current filter registrations
+     * @return The trie for the registrations
+     */
+    private FilterMappingTrie getMappingTrie(Map<String, FilterHolder> registrations) {
+        FilterMappingTrie trie = mappingTrie;
+        if (trie == null || trie.getSignature() != FilterMappingTrie.signature(registrations)) {
+            trie = FilterMappingTrie.compile(registrations);
+            mappingTrie = trie;
+            // cached chains were resolved against the old registrations
+            filterCache.clear();
+            chains.clear();
+        }
+        return trie;
     }
 
 
@@ -245,8 +324,13 @@ public abstract class FilterChainManager<ServletContextType extends ServletConte
     //-------------------------------------------------------------
 
     /**
-     * Object used as a key for the filter chain cache. It contains a target path and dispatcher type property. It overrides
-     * the default <code>hashCode</code> and <code>equals</code> methods to return a consistent hash for comparison.
+     * Object used as a key for the filter chain cache. It contains a target path and dispatcher type property. The
+     * target path is cleaned when it is set following these rules:
+     *  1. trim white spaces
+     *  2. Add "/" as first character if not there
+     *  3. Remove "/" as last character if it is there
+     *
+     * Two keys are equal when their cleaned paths and dispatcher types are equal.
      */
     protected static class TargetCacheKey {
 
@@ -254,7 +338,7 @@ public abstract class FilterChainManager<ServletContextType extends ServletConte
     // Variables - Private
     //-------------------------------------------------------------
 
-        private String targetPath;
+        private String targetPath = PATH_PART_SEPARATOR;
         private DispatcherType dispatcherType;
 
 
@@ -262,53 +346,22 @@ public abstract class FilterChainManager<ServletContextType extends ServletConte
     // Methods - Public
     //-------------------------------------------------------------
 
-        /**
-         * The hash code for a cache key is calculated using the target path and dispatcher type. First, the target path
-         * is cleaned following these rules:
-         *  1. trim white spaces
-         *  2. Add "/" as first character if not there
-         *  3. Remove "/" as last character if it is there
-         *
-         * Once the path is cleaned, a string in the form of TARGET_PATH:DISPATCHER_TYPE is generated and used for the
-         * hash code
-         * @return An int representing the hash code fo the generated string
-         */
         @Override
         public int hashCode() {
-            String hashPath = targetPath;
-            if (targetPath == null) {
-                hashPath = "/";
-            }
-
-            String hashDispatcher = "";
-            if (dispatcherType != null) {
-                hashDispatcher = dispatcherType.name();
-            }
-
-            // clean up path
-            String hashString = hashPath.trim();
-            if (hashString.endsWith(PATH_PART_SEPARATOR)) {
-                hashString = hashString.substring(0, hashString.length() - 1);
-            }
-            if (!hashString.startsWith(PATH_PART_SEPARATOR)) {
-                hashString = PATH_PART_SEPARATOR + hashString;
-            }
-            hashString += ":" + hashDispatcher;
-
-            return hashString.hashCode();
+            return 31 * targetPath.hashCode() + (dispatcherType == null ? -1 : dispatcherType.ordinal());
         }
 
 
         @Override
         public boolean equals(Object key) {
-            if (key == null) {
-                return false;
+            if (this == key) {
+                return true;
             }
-            if (key.getClass().equals(this.getClass())) {
-                return this.hashCode() == key.hashCode();
+            if (key == null || !key.getClass().equals(this.getClass())) {
+                return false;
             }
-
-            return false;
+            TargetCacheKey other = (TargetCacheKey) key;
+            return dispatcherType == other.dispatcherType && targetPath.equals(other.targetPath);
         }
 
 
@@ -317,7 +370,19 @@ public abstract class FilterChainManager<ServletContextType extends ServletConte
     //-------------------------------------------------------------
 
         void setTargetPath(String targetPath) {
-            this.targetPath = targetPath;
+            if (targetPath == null) {
+                this.targetPath = PATH_PART_SEPARATOR;
+                return;
+            }
+            // clean up path
+            String path = targetPath.trim();
+            if (path.endsWith(PATH_PART_SEPARATOR)) {
+                path = path.substring(0, path.length() - 1);
+            }
+            if (!path.startsWith(PATH_PART_SEPARATOR)) {
+                path = PATH_PART_SEPARATOR + path;
+            }
+            this.targetPath = path;
         }
 
 
@@ -326,6 +391,39 @@ public abstract class FilterChainManager<ServletContextType extends ServletConte
         }
     }
 
+
+    //-------------------------------------------------------------
+    // Inner Class - ChainKey
+    //-------------------------------------------------------------
+
+    /**
+     * Identifies a distinct filter chain by its filters and servlet. Both are compared by identity, filter holders do
+     * not override <code>equals</code>.
+     */
+    private static final class ChainKey {
+        private final List<FilterHolder> filters;
+        private final AwsServletRegistration servletRegistration;
+
+        private ChainKey(List<FilterHolder> filters, AwsServletRegistration servletRegistration) {
+            this.filters = filters;
+            this.servletRegistration = servletRegistration;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * filters.hashCode() + (servletRegistration == null ? 0 : servletRegistration.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object key) {
+            if (!(key instanceof ChainKey)) {
+                return false;
+            }
+            ChainKey other = (ChainKey) key;
+            return servletRegistration == other.servletRegistration && filters.equals(other.filters);
+        }
+    }
+
     @SuppressFBWarnings("URF_UNREAD_FIELD")
     private class ServletExecutionFilter implements Filter {
 
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import javax.servlet.DispatcherType;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * The URL pattern mappings of all filter registrations compiled into a trie of path segments. Resolving the filters
+ * for a request path walks the trie once instead of comparing the path with every pattern of every filter.
+ *
+ * The trie matches exactly like {@link FilterChainManager#pathMatches(String, String)}: a pattern that is equal to the
+ * path ignoring case always matches, <code>/*</code> matches every path, and otherwise the path segments are compared
+ * with the pattern segments in order until a pattern segment is <code>*</code>. A path that runs out of segments
+ * before the pattern matches. Like the linear scan, a filter is added to the chain once for every pattern that
+ * matches and filters are returned in registration order.
+ *
+ * The trie is immutable, the filter chain manager compiles a new one when the registrations change.
+ */
+final class FilterMappingTrie {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final String WILDCARD = "*";
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    // one entry per url pattern of each filter, in registration order. Entries are referenced by their index
+    private final FilterHolder[] holders;
+    // the dispatcher types of each entry, null when the registration does not restrict them
+    private final EnumSet<DispatcherType>[] dispatcherTypes;
+    // entries by lower case pattern, for the exact match
+    private final Map<String, int[]> exactPatterns;
+    // entries with the /* pattern
+    private final int[] matchAll;
+    private final Node root;
+    private final int signature;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private FilterMappingTrie(List<FilterHolder> holders, List<EnumSet<DispatcherType>> dispatcherTypes,
+                              Map<String, int[]> exactPatterns, int[] matchAll, Node root, int signature) {
+        this.holders = holders.toArray(new FilterHolder[0]);
+        this.dispatcherTypes = dispatcherTypes.toArray(new EnumSet[0]);
+        this.exactPatterns = exactPatterns;
+        this.matchAll = matchAll;
+        this.root = root;
+        this.signature = signature;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Compiles the url pattern mappings of the given filters
+     * @param registrations The filter holders, in the order they should be applied
+     * @return A new trie
+     */
+    static FilterMappingTrie compile(Map<String, FilterHolder> registrations) {
+        List<FilterHolder> holders = new ArrayList<>();
+        List<EnumSet<DispatcherType>> types = new ArrayList<>();
+        Map<String, List<Integer>> exact = new HashMap<>();
+        List<Integer> all = new ArrayList<>();
+        Node root = new Node();
+
+        if (registrations != null) {
+            for (FilterHolder holder : registrations.values()) {
+                List<DispatcherType> registered = holder.getRegistration().getDispatcherTypes();
+                // an empty list means any dispatcher type, as in the linear scan
+                EnumSet<DispatcherType> holderTypes = registered.isEmpty() ? null : EnumSet.copyOf(registered);
+                for (String pattern : holder.getRegistration().getUrlPatternMappings()) {
+                    int entry = holders.size();
+                    holders.add(holder);
+                    types.add(holderTypes);
+
+                    exact.computeIfAbsent(pattern.toLowerCase(Locale.ENGLISH), k -> new ArrayList<>()).add(entry);
+                    String[] segments = split(pattern);
+                    if (segments.length == 1 && WILDCARD.equals(segments[0])) {
+                        all.add(entry);
+                        continue;
+                    }
+                    Node node = root;
+                    node.entries.add(entry);
+                    for (String segment : segments) {
+                        node = node.children.computeIfAbsent(segment, k -> new Node());
+                        node.entries.add(entry);
+                    }
+                }
+            }
+        }
+
+        Map<String, int[]> exactPatterns = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> pattern : exact.entrySet()) {
+            exactPatterns.put(pattern.getKey(), toArray(pattern.getValue()));
+        }
+        root.seal();
+        return new FilterMappingTrie(holders, types, exactPatterns, toArray(all), root, signature(registrations));
+    }
+
+
+    /**
+     * Computes a value that changes whenever a filter, url pattern or dispatcher type is registered. Registrations
+     * cannot be removed, so the number of each is enough to detect changes.
+     * @param registrations The filter holders
+     * @return The signature of the registrations
+     */
+    static int signature(Map<String, FilterHolder> registrations) {
+        if (registrations == null) {
+            return 0;
+        }
+        int signature = registrations.size();
+        for (FilterHolder holder : registrations.values()) {
+            signature = 31 * signature + holder.getRegistration().getUrlPatternMappings().size();
+            signature = 31 * signature + holder.getRegistration().getDispatcherTypes().size();
+        }
+        return signature;
+    }
+
+
+    /**
+     * @return The signature of the registrations this trie was compiled from
+     */
+    int getSignature() {
+        return signature;
+    }
+
+
+    /**
+     * Returns the filters that apply to a request
+     * @param targetPath The request path
+     * @param type The dispatcher type of the request
+     * @return A new list of the matching filters, in registration order
+     */
+    List<FilterHolder> match(String targetPath, DispatcherType type) {
+        BitSet matched = new BitSet(holders.length);
+        mark(matched, matchAll);
+        mark(matched, exactPatterns.get(targetPath.toLowerCase(Locale.ENGLISH)));
+
+        String[] segments = split(targetPath);
+        Node node = root;
+        for (String segment : segments) {
+            if (node.wildcard != null && !WILDCARD.equals(segment)) {
+                // the first segment that differs from the pattern is its wildcard
+                mark(matched, node.wildcard.sealedEntries);
+            }
+            node = node.children.get(segment);
+            if (node == null) {
+                break;
+            }
+        }
+        if (node != null) {
+            // the path is a prefix of these patterns
+            mark(matched, node.sealedEntries);
+        }
+
+        List<FilterHolder> filters = new ArrayList<>(matched.cardinality());
+        for (int entry = matched.nextSetBit(0); entry >= 0; entry = matched.nextSetBit(entry + 1)) {
+            if (dispatcherTypes[entry] == null || dispatcherTypes[entry].contains(type)) {
+                filters.add(holders[entry]);
+            }
+        }
+        return filters;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    /**
+     * Splits a path or pattern in segments the same way as <code>pathMatches</code>: the leading slash is removed and
+     * trailing empty segments are dropped
+     */
+    private static String[] split(String path) {
+        String relative = path.startsWith(FilterChainManager.PATH_PART_SEPARATOR) ? path.substring(1) : path;
+        return relative.split(FilterChainManager.PATH_PART_SEPARATOR);
+    }
+
+
+    private static void mark(BitSet matched, int[] entries) {
+        if (entries == null) {
+            return;
+        }
+        for (int entry : entries) {
+            matched.set(entry);
+        }
+    }
+
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+
+    //-------------------------------------------------------------
+    // Inner Class - Node
+    //-------------------------------------------------------------
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        // entries whose pattern goes through or ends at this node
+        private List<Integer> entries = new ArrayList<>();
+        private int[] sealedEntries;
+        private Node wildcard;
+
+        private void seal() {
+            sealedEntries = toArray(entries);
+            entries = null;
+            wildcard = children.get(WILDCARD);
+            for (Node child : children.values()) {
+                child.seal();
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import com.amazonaws.serverless.proxy.model.Headers;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Read-through view of the headers of an HTTP API v2 event. The event carries one comma-separated string per header,
+ * the view looks values up in the event's map and only splits a header into its values when all of them are
+ * requested. Single value lookups return the text before the first comma without splitting the rest.
+ *
+ * Names are matched ignoring case. API Gateway sends lower case names, so a lookup is normally one or two gets on the
+ * event's map; an index of the names is only built when the event contains names with upper case characters. Values
+ * set by the application, such as the character encoding of the content type, are kept in a separate map that takes
+ * precedence over the event.
+ */
+final class HttpApiV2Headers {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final char VALUE_SEPARATOR = ',';
+    private static final String ACCEPT_PREFIX = "accept-";
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final Map<String, String> source;
+    // lower case name to name in the source map, only built when the source has names that are not lower case
+    private Map<String, String> namesByLowerCase;
+    private boolean namesChecked;
+    private Headers overrides;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    HttpApiV2Headers(Map<String, String> source) {
+        this.source = source == null ? Collections.emptyMap() : source;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * @param name The header name
+     * @return The first value of the header, null if the header is not in the request
+     */
+    String getFirst(String name) {
+        if (overrides != null && overrides.containsKey(name)) {
+            return overrides.getFirst(name);
+        }
+        String value = getRawValue(name);
+        if (value == null || isSingleValue(name)) {
+            return value;
+        }
+        int separator = value.indexOf(VALUE_SEPARATOR);
+        return separator < 0 ? value : value.substring(0, separator);
+    }
+
+
+    /**
+     * Returns all values of a header. The comma-separated value from the event is split on every call, the list is
+     * not cached.
+     * @param name The header name
+     * @return An unmodifiable list of values, null if the header is not in the request
+     */
+    List<String> get(String name) {
+        if (overrides != null && overrides.containsKey(name)) {
+            return Collections.unmodifiableList(overrides.get(name));
+        }
+        String value = getRawValue(name);
+        if (value == null) {
+            return null;
+        }
+        if (isSingleValue(name)) {
+            return Collections.singletonList(value);
+        }
+        return Arrays.asList(value.split(String.valueOf(VALUE_SEPARATOR)));
+    }
+
+
+    boolean containsKey(String name) {
+        return (overrides != null && overrides.containsKey(name)) || getRawValue(name) != null;
+    }
+
+
+    /**
+     * @return The names of the headers in the event, followed by the names only set by the application
+     */
+    Set<String> keySet() {
+        if (overrides == null) {
+            return Collections.unmodifiableSet(source.keySet());
+        }
+        Set<String> names = new LinkedHashSet<>(source.keySet());
+        for (String name : overrides.keySet()) {
+            if (getRawValue(name) == null) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+
+    /**
+     * Replaces the values of a header for the rest of the request. The event is not modified.
+     * @param name The header name
+     * @param value The new value
+     */
+    void putSingle(String name, String value) {
+        if (overrides == null) {
+            overrides = new Headers();
+        }
+        overrides.putSingle(name, value);
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private String getRawValue(String name) {
+        if (name == null || source.isEmpty()) {
+            return null;
+        }
+        String value = source.get(name);
+        if (value != null) {
+            return value;
+        }
+        String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+        if (!namesChecked) {
+            namesByLowerCase = indexNames(source);
+            namesChecked = true;
+        }
+        if (namesByLowerCase == null) {
+            // every name in the event is lower case
+            return lowerCaseName.equals(name) ? null : source.get(lowerCaseName);
+        }
+        String sourceName = namesByLowerCase.get(lowerCaseName);
+        return sourceName == null ? null : source.get(sourceName);
+    }
+
+
+    /**
+     * Headers whose values contain commas that do not separate values, they are never split
+     */
+    private static boolean isSingleValue(String name) {
+        return name.equalsIgnoreCase(HttpHeaders.DATE)
+                || name.equalsIgnoreCase(HttpHeaders.IF_MODIFIED_SINCE)
+                || name.regionMatches(true, 0, ACCEPT_PREFIX, 0, ACCEPT_PREFIX.length());
+    }
+
+
+    private static Map<String, String> indexNames(Map<String, String> source) {
+        for (String name : source.keySet()) {
+            if (!name.toLowerCase(Locale.ENGLISH).equals(name)) {
+                Map<String, String> index = new HashMap<>();
+                for (String other : source.keySet()) {
+                    index.putIfAbsent(other.toLowerCase(Locale.ENGLISH), other);
+                }
+                return index;
+            }
+        }
+        return null;
+    }
+}
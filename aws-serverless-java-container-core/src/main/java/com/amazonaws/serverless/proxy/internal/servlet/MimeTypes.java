@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import java.util.Locale;
+
+
+/**
+ * Immutable table of the MIME types of common file extensions used by {@link AwsServletContext#getMimeType(String)}.
+ * The table is a constant array of extension and type pairs sorted by extension, it is part of the class constant
+ * pool and does not need to be loaded or parsed at runtime like the <code>mime.types</code> files read by
+ * <code>MimetypesFileTypeMap</code>. Lookups are a binary search over the extensions and do not allocate for
+ * lower case extensions.
+ *
+ * The extensions must stay sorted in <code>String.compareTo</code> order and in lower case, this is verified by the
+ * unit tests. Types that are not in the table can be registered with
+ * {@link com.amazonaws.serverless.proxy.model.ContainerConfig#addMimeType(String, String)}.
+ */
+final class MimeTypes {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    // extension and type pairs, sorted by extension
+    static final String[] TABLE = {
+            "7z",          "application/x-7z-compressed",
+            "aac",         "audio/aac",
+            "abw",         "application/x-abiword",
+            "apng",        "image/apng",
+            "arc",         "application/x-freearc",
+            "atom",        "application/atom+xml",
+            "avi",         "video/x-msvideo",
+            "avif",        "image/avif",
+            "azw",         "application/vnd.amazon.ebook",
+            "bin",         "application/octet-stream",
+            "bmp",         "image/bmp",
+            "bz",          "application/x-bzip",
+            "bz2",         "application/x-bzip2",
+            "cda",         "application/x-cdf",
+            "class",       "application/java-vm",
+            "conf",        "text/plain",
+            "csh",         "application/x-csh",
+            "css",         "text/css",
+            "csv",         "text/csv",
+            "doc",         "application/msword",
+            "docx",        "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "eot",         "application/vnd.ms-fontobject",
+            "eps",         "application/postscript",
+            "epub",        "application/epub+zip",
+            "flac",        "audio/flac",
+            "gif",         "image/gif",
+            "gz",          "application/gzip",
+            "heic",        "image/heic",
+            "htm",         "text/html",
+            "html",        "text/html",
+            "ico",         "image/vnd.microsoft.icon",
+            "ics",         "text/calendar",
+            "jar",         "application/java-archive",
+            "jpe",         "image/jpeg",
+            "jpeg",        "image/jpeg",
+            "jpg",         "image/jpeg",
+            "js",          "text/javascript",
+            "json",        "application/json",
+            "jsonld",      "application/ld+json",
+            "jsp",         "text/html",
+            "jxl",         "image/jxl",
+            "log",         "text/plain",
+            "m4a",         "audio/mp4",
+            "m4v",         "video/mp4",
+            "map",         "application/json",
+            "md",          "text/markdown",
+            "mid",         "audio/midi",
+            "midi",        "audio/midi",
+            "mjs",         "text/javascript",
+            "mov",         "video/quicktime",
+            "mp3",         "audio/mpeg",
+            "mp4",         "video/mp4",
+            "mpeg",        "video/mpeg",
+            "mpkg",        "application/vnd.apple.installer+xml",
+            "odp",         "application/vnd.oasis.opendocument.presentation",
+            "ods",         "application/vnd.oasis.opendocument.spreadsheet",
+            "odt",         "application/vnd.oasis.opendocument.text",
+            "oga",         "audio/ogg",
+            "ogv",         "video/ogg",
+            "ogx",         "application/ogg",
+            "opus",        "audio/opus",
+            "otf",         "font/otf",
+            "pdf",         "application/pdf",
+            "php",         "application/x-httpd-php",
+            "png",         "image/png",
+            "ppt",         "application/vnd.ms-powerpoint",
+            "pptx",        "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+            "properties",  "text/plain",
+            "ps",          "application/postscript",
+            "rar",         "application/vnd.rar",
+            "rss",         "application/rss+xml",
+            "rtf",         "application/rtf",
+            "sh",          "application/x-sh",
+            "shtml",       "text/html",
+            "svg",         "image/svg+xml",
+            "svgz",        "image/svg+xml",
+            "tar",         "application/x-tar",
+            "text",        "text/plain",
+            "tif",         "image/tiff",
+            "tiff",        "image/tiff",
+            "ts",          "video/mp2t",
+            "tsv",         "text/tab-separated-values",
+            "ttf",         "font/ttf",
+            "txt",         "text/plain",
+            "vsd",         "application/vnd.visio",
+            "vtt",         "text/vtt",
+            "war",         "application/java-archive",
+            "wasm",        "application/wasm",
+            "wav",         "audio/wav",
+            "weba",        "audio/webm",
+            "webm",        "video/webm",
+            "webmanifest", "application/manifest+json",
+            "webp",        "image/webp",
+            "woff",        "font/woff",
+            "woff2",       "font/woff2",
+            "wsdl",        "application/wsdl+xml",
+            "xhtml",       "application/xhtml+xml",
+            "xls",         "application/vnd.ms-excel",
+            "xlsx",        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "xml",         "application/xml",
+            "xsd",         "application/xml",
+            "xsl",         "application/xml",
+            "xul",         "application/vnd.mozilla.xul+xml",
+            "yaml",        "application/yaml",
+            "yml",         "application/yaml",
+            "zip",         "application/zip"
+    };
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    private MimeTypes() {
+        // utility class
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Returns the extension of the last segment of a path
+     * @param path A file name or path, can be a <code>file://</code> URL
+     * @return The text after the last dot of the file name, null if the file name does not have an extension
+     */
+    static String getExtension(String path) {
+        if (path == null) {
+            return null;
+        }
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot == path.length() - 1 || path.indexOf('/', dot) >= 0 || path.indexOf('\\', dot) >= 0) {
+            return null;
+        }
+        return path.substring(dot + 1);
+    }
+
+
+    /**
+     * Looks up the type of a file extension
+     * @param extension The extension, without the leading dot. The lookup is case insensitive
+     * @return The MIME type, null if the extension is not in the table
+     */
+    static String forExtension(String extension) {
+        if (extension == null || extension.isEmpty()) {
+            return null;
+        }
+        String key = isLowerCase(extension) ? extension : extension.toLowerCase(Locale.ENGLISH);
+        int low = 0;
+        int high = TABLE.length / 2 - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = TABLE[middle * 2].compareTo(key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return TABLE[middle * 2 + 1];
+            }
+        }
+        return null;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private static boolean isLowerCase(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.commons.io.FilenameUtils;
+
+import javax.servlet.http.Part;
+import javax.ws.rs.core.HttpHeaders;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * Parses <code>multipart/form-data</code> bodies that are already in memory. The parser looks for the boundaries in
+ * the decoded body buffer and returns each part as an {@link AwsProxyRequestPart} that reads its content straight from
+ * a slice of that buffer: nothing is written to temporary files and part contents are not copied. Parts are returned
+ * in the order they appear in the body, including parts that share a name.
+ *
+ * Part headers are decoded with the given charset. The field name and file name come from the
+ * <code>Content-Disposition</code> header, the file name is stripped of any client path. Nested
+ * <code>multipart/mixed</code> parts are returned as a single part with their raw content.
+ */
+final class MultipartParser {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final String BOUNDARY_PARAMETER = "boundary";
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte DASH = '-';
+    private static final byte[] HEADER_END = { CR, LF, CR, LF };
+    private static final String DISPOSITION_NAME = "name";
+    private static final String DISPOSITION_FILE_NAME = "filename";
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final byte[] body;
+    private final Charset headerCharset;
+    // the boundary preceded by CRLF and two dashes, the CRLF is part of the delimiter between parts
+    private final byte[] delimiter;
+    // bad character shift table of the delimiter for the Boyer-Moore-Horspool search
+    private final int[] shift = new int[256];
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    private MultipartParser(byte[] body, String boundary, Charset headerCharset) {
+        this.body = body;
+        this.headerCharset = headerCharset;
+        byte[] boundaryBytes = boundary.getBytes(headerCharset);
+        delimiter = new byte[boundaryBytes.length + 4];
+        delimiter[0] = CR;
+        delimiter[1] = LF;
+        delimiter[2] = DASH;
+        delimiter[3] = DASH;
+        System.arraycopy(boundaryBytes, 0, delimiter, 4, boundaryBytes.length);
+
+        Arrays.fill(shift, delimiter.length);
+        for (int i = 0; i < delimiter.length - 1; i++) {
+            shift[delimiter[i] & 0xff] = delimiter.length - 1 - i;
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Extracts the boundary from the value of a <code>Content-Type</code> header
+     * @param contentType The content type of the request
+     * @return The boundary, null if the content type does not have one
+     */
+    static String getBoundary(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        String boundary = parseParameters(contentType).get(BOUNDARY_PARAMETER);
+        return boundary == null || boundary.isEmpty() ? null : boundary;
+    }
+
+
+    /**
+     * Parses a multipart body
+     * @param body The decoded body, the returned parts keep a reference to the array
+     * @param boundary The boundary from the content type of the request
+     * @param headerCharset The charset of the part headers
+     * @return The parts, in the order they appear in the body
+     * @throws IOException If the body does not contain the boundary or ends before the closing boundary
+     */
+    static List<Part> parse(byte[] body, String boundary, Charset headerCharset) throws IOException {
+        return new MultipartParser(body, boundary, headerCharset).parse();
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private List<Part> parse() throws IOException {
+        List<Part> parts = new ArrayList<>();
+        int position;
+        if (startsWithBoundary()) {
+            // the first boundary is at the very start of the body, without the CRLF of the delimiter
+            position = delimiter.length - 2;
+        } else {
+            position = indexOf(delimiter, 0);
+            if (position < 0) {
+                throw new IOException("Multipart body does not contain the boundary");
+            }
+            position += delimiter.length;
+        }
+
+        while (true) {
+            if (position + 1 < body.length && body[position] == DASH && body[position + 1] == DASH) {
+                // closing boundary, the epilogue is ignored
+                return parts;
+            }
+            int headersStart = skipLineEnd(position);
+            int headersEnd;
+            int contentStart;
+            if (headersStart + 1 < body.length && body[headersStart] == CR && body[headersStart + 1] == LF) {
+                // a part without headers
+                headersEnd = headersStart;
+                contentStart = headersStart + 2;
+            } else {
+                headersEnd = indexOf(HEADER_END, headersStart);
+                if (headersEnd < 0) {
+                    throw new IOException("Multipart body ended in the headers of a part");
+                }
+                contentStart = headersEnd + HEADER_END.length;
+            }
+            int contentEnd = indexOf(delimiter, contentStart);
+            if (contentEnd < 0) {
+                throw new IOException("Multipart body ended before the closing boundary");
+            }
+            parts.add(newPart(headersStart, headersEnd, contentStart, contentEnd));
+            position = contentEnd + delimiter.length;
+        }
+    }
+
+
+    @SuppressFBWarnings("WEAK_FILENAMEUTILS")
+    private Part newPart(int headersStart, int headersEnd, int contentStart, int contentEnd) {
+        AwsProxyRequestPart part = new AwsProxyRequestPart(body, contentStart, contentEnd - contentStart);
+        String headers = new String(body, headersStart, headersEnd - headersStart, headerCharset);
+        for (String line : headers.split("\r\n")) {
+            int separator = line.indexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            String name = line.substring(0, separator).trim();
+            String value = line.substring(separator + 1).trim();
+            part.addHeader(name, value);
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                part.setContentType(value);
+            } else if ("Content-Disposition".equalsIgnoreCase(name)) {
+                Map<String, String> disposition = parseParameters(value);
+                part.setName(disposition.get(DISPOSITION_NAME));
+                String fileName = disposition.get(DISPOSITION_FILE_NAME);
+                if (fileName != null) {
+                    part.setSubmittedFileName(FilenameUtils.getName(fileName));
+                }
+            }
+        }
+        return part;
+    }
+
+
+    private boolean startsWithBoundary() {
+        if (body.length < delimiter.length - 2) {
+            return false;
+        }
+        for (int i = 2; i < delimiter.length; i++) {
+            if (body[i - 2] != delimiter[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Skips the transport padding and the line end after a boundary
+     */
+    private int skipLineEnd(int position) throws IOException {
+        int i = position;
+        while (i < body.length && (body[i] == ' ' || body[i] == '\t')) {
+            i++;
+        }
+        if (i + 1 < body.length && body[i] == CR && body[i + 1] == LF) {
+            return i + 2;
+        }
+        throw new IOException("Multipart boundary is not followed by a line end");
+    }
+
+
+    private int indexOf(byte[] pattern, int start) {
+        if (pattern == delimiter) {
+            // Boyer-Moore-Horspool, boundaries are long enough for the shifts to skip most of the content
+            int last = delimiter.length - 1;
+            for (int i = start; i + last < body.length; i += shift[body[i + last] & 0xff]) {
+                int j = last;
+                while (j >= 0 && body[i + j] == delimiter[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        for (int i = start; i + pattern.length <= body.length; i++) {
+            int j = 0;
+            while (j < pattern.length && body[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Parses the parameters of a header value such as <code>form-data; name="file"; filename="a.txt"</code>. Names are
+     * lower case. Quoted values can contain semicolons and escaped quotes, other backslashes are kept so that Windows
+     * paths sent by some browsers survive.
+     */
+    static Map<String, String> parseParameters(String headerValue) {
+        Map<String, String> parameters = new HashMap<>();
+        int length = headerValue.length();
+        int i = headerValue.indexOf(';');
+        while (i >= 0 && i < length) {
+            i++;
+            int nameStart = i;
+            while (i < length && headerValue.charAt(i) != '=' && headerValue.charAt(i) != ';') {
+                i++;
+            }
+            String name = headerValue.substring(nameStart, i).trim().toLowerCase(Locale.ENGLISH);
+            if (i >= length || headerValue.charAt(i) == ';') {
+                continue;
+            }
+            i++;
+            while (i < length && headerValue.charAt(i) == ' ') {
+                i++;
+            }
+            StringBuilder value = new StringBuilder();
+            if (i < length && headerValue.charAt(i) == '"') {
+                for (i++; i < length && headerValue.charAt(i) != '"'; i++) {
+                    char c = headerValue.charAt(i);
+                    if (c == '\\' && i + 1 < length && headerValue.charAt(i + 1) == '"') {
+                        c = '"';
+                        i++;
+                    }
+                    value.append(c);
+                }
+                i = headerValue.indexOf(';', i);
+            } else {
+                int end = headerValue.indexOf(';', i);
+                value.append(headerValue.substring(i, end < 0 ? length : end).trim());
+                i = end;
+            }
+            if (!name.isEmpty()) {
+                parameters.putIfAbsent(name, value.toString());
+            }
+        }
+        return parameters;
+    }
+}
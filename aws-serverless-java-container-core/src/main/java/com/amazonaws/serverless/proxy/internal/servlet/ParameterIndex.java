@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Index of the parameters of a request, built once from the query string and the url encoded form body. All the
+ * <code>getParameter*</code> methods of the request implementations are served from it.
+ *
+ * Query string parameters are matched ignoring case unless the container is configured for case sensitive query
+ * strings, form parameters are always matched ignoring case. Query string values come before form values. Query string
+ * names are returned in the iteration order of the query map, which is sorted for the <code>MultiValuedTreeMap</code>
+ * of the proxy events, followed by the form names in the order they appear in the body. Form values are only url
+ * decoded from the body the first time a parameter is read.
+ *
+ * The index is immutable once built. Like the request objects it is not thread-safe: decoded values are cached
+ * without synchronization.
+ */
+final class ParameterIndex {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final String[] NO_VALUES = new String[0];
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final boolean queryCaseSensitive;
+    private final Map<String, List<String>> query = new LinkedHashMap<>();
+    // lower case name to the values of the first query parameter with that name, for case-insensitive lookups
+    private final Map<String, List<String>> queryIgnoreCase = new HashMap<>();
+    // lower case name to the form parameter, a name spelled differently shares the entry of its first spelling
+    private final Map<String, FormParameter> form = new LinkedHashMap<>();
+    private Map<String, String[]> parameterMap;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    /**
+     * @param query The query string parameters, with decoded values. Can be null
+     * @param formParameters The parameters of the url encoded form body, null if the request is not a form post
+     * @param queryCaseSensitive Whether query string parameter names are case sensitive
+     */
+    ParameterIndex(Map<String, List<String>> query, UrlEncodedForm formParameters, boolean queryCaseSensitive) {
+        this.queryCaseSensitive = queryCaseSensitive;
+        if (query != null) {
+            for (Map.Entry<String, List<String>> parameter : query.entrySet()) {
+                if (parameter.getKey() == null || parameter.getValue() == null) {
+                    continue;
+                }
+                this.query.put(parameter.getKey(), parameter.getValue());
+                queryIgnoreCase.putIfAbsent(lowerCase(parameter.getKey()), parameter.getValue());
+            }
+        }
+        if (formParameters != null) {
+            for (int i = 0; i < formParameters.size(); i++) {
+                String name = formParameters.getName(i);
+                form.computeIfAbsent(lowerCase(name), k -> new FormParameter(formParameters, name)).positions.add(i);
+            }
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * @param name The parameter name
+     * @return The first query string value of the parameter, or its first form value. Null if the request does not
+     *         have the parameter
+     */
+    String getFirst(String name) {
+        if (name == null) {
+            return null;
+        }
+        List<String> queryValues = getQueryValues(name);
+        if (queryValues != null && !queryValues.isEmpty()) {
+            return queryValues.get(0);
+        }
+        FormParameter formParameter = form.get(lowerCase(name));
+        return formParameter == null ? null : formParameter.getValues()[0];
+    }
+
+
+    /**
+     * @param name The parameter name
+     * @return A new array with the query string values followed by the form values, null if the request does not have
+     *         the parameter
+     */
+    String[] getValues(String name) {
+        if (name == null) {
+            return null;
+        }
+        String[] values = getValuesInternal(name);
+        return values.length == 0 ? null : values;
+    }
+
+
+    /**
+     * @return The names of the query string parameters followed by the names that only appear in the form body
+     */
+    Set<String> getNames() {
+        if (form.isEmpty()) {
+            return Collections.unmodifiableSet(query.keySet());
+        }
+        Set<String> names = new LinkedHashSet<>(query.keySet());
+        for (FormParameter formParameter : form.values()) {
+            names.add(formParameter.name);
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+
+    /**
+     * Returns all parameters as required by <code>ServletRequest.getParameterMap()</code>. The map is built the
+     * first time it is requested and every later call returns the same instance.
+     * @return An unmodifiable map of parameter names to values
+     */
+    Map<String, String[]> getParameterMap() {
+        if (parameterMap == null) {
+            Map<String, String[]> parameters = new LinkedHashMap<>();
+            for (String name : getNames()) {
+                parameters.put(name, getValuesInternal(name));
+            }
+            parameterMap = Collections.unmodifiableMap(parameters);
+        }
+        return parameterMap;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private List<String> getQueryValues(String name) {
+        if (queryCaseSensitive) {
+            return query.get(name);
+        }
+        return queryIgnoreCase.get(lowerCase(name));
+    }
+
+
+    private String[] getValuesInternal(String name) {
+        List<String> queryValues = getQueryValues(name);
+        FormParameter formParameter = form.get(lowerCase(name));
+        if (formParameter == null) {
+            return queryValues == null ? NO_VALUES : queryValues.toArray(new String[0]);
+        }
+        String[] formValues = formParameter.getValues();
+        if (queryValues == null || queryValues.isEmpty()) {
+            return formValues.clone();
+        }
+        String[] values = new String[queryValues.size() + formValues.length];
+        for (int i = 0; i < queryValues.size(); i++) {
+            values[i] = queryValues.get(i);
+        }
+        System.arraycopy(formValues, 0, values, queryValues.size(), formValues.length);
+        return values;
+    }
+
+
+    private static String lowerCase(String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+
+    //-------------------------------------------------------------
+    // Inner Class - FormParameter
+    //-------------------------------------------------------------
+
+    private static final class FormParameter {
+        private final UrlEncodedForm form;
+        private final String name;
+        // positions of the values in the form
+        private final List<Integer> positions = new ArrayList<>(1);
+        private String[] values;
+
+        private FormParameter(UrlEncodedForm form, String name) {
+            this.form = form;
+            this.name = name;
+        }
+
+        private String[] getValues() {
+            if (values == null) {
+                values = new String[positions.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = form.getValue(positions.get(i));
+                }
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Growable response body buffer made of a list of byte array segments. Unlike a <code>ByteArrayOutputStream</code> the
+ * buffer never copies its content when it grows: the first segment is allocated with the initial capacity and each
+ * following segment doubles in size up to {@link #MAX_SEGMENT_SIZE}. Full size segments are returned to a small shared
+ * pool when the buffer is reset or released so that warm invocations can reuse them.
+ *
+ * The size is tracked as data is written and the content can be read in place with {@link #toInputStream()} and
+ * {@link #writeTo(OutputStream)}. Views are only valid until the buffer is next modified. The buffer is not thread-safe,
+ * the response latch gives writers and readers the required happens-before ordering.
+ */
+class ResponseBodyBuffer extends OutputStream {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    static final int MAX_SEGMENT_SIZE = 64 * 1024;
+    static final int MAX_POOLED_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 32;
+
+    private static final ArrayDeque<byte[]> segmentPool = new ArrayDeque<>(MAX_POOLED_SEGMENTS);
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final int initialCapacity;
+    private final List<byte[]> segments;
+    // the last segment in the list, new data is always written here
+    private byte[] current;
+    private int currentCount;
+    // bytes stored in all segments but the current one
+    private int completedSize;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    ResponseBodyBuffer(int initialCapacity) {
+        this.initialCapacity = Math.max(MIN_SEGMENT_SIZE, Math.min(initialCapacity, MAX_SEGMENT_SIZE));
+        segments = new ArrayList<>();
+        current = null;
+        currentCount = 0;
+        completedSize = 0;
+    }
+
+
+    //-------------------------------------------------------------
+    // Implementation - OutputStream
+    //-------------------------------------------------------------
+
+    @Override
+    public void write(int b) {
+        if (current == null || currentCount == current.length) {
+            addSegment();
+        }
+        current[currentCount++] = (byte) b;
+    }
+
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (current == null || currentCount == current.length) {
+                addSegment();
+            }
+            int toCopy = Math.min(len, current.length - currentCount);
+            System.arraycopy(b, off, current, currentCount, toCopy);
+            currentCount += toCopy;
+            off += toCopy;
+            len -= toCopy;
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Copies the remaining bytes of a buffer straight into the segments, without an intermediate array. The position of
+     * the source buffer is advanced to its limit.
+     * @param src The buffer to read from, can be a direct or memory-mapped buffer
+     */
+    void write(ByteBuffer src) {
+        while (src.hasRemaining()) {
+            if (current == null || currentCount == current.length) {
+                addSegment();
+            }
+            int toCopy = Math.min(src.remaining(), current.length - currentCount);
+            src.get(current, currentCount, toCopy);
+            currentCount += toCopy;
+        }
+    }
+
+
+    /**
+     * @return The number of bytes written to the buffer
+     */
+    int size() {
+        return completedSize + currentCount;
+    }
+
+
+    /**
+     * Discards the content of the buffer. The first segment is kept for the next write, all others are returned to the
+     * shared pool.
+     */
+    void reset() {
+        for (int i = 1; i < segments.size(); i++) {
+            recycleSegment(segments.get(i));
+        }
+        byte[] first = segments.isEmpty() ? null : segments.get(0);
+        segments.clear();
+        current = null;
+        if (first != null) {
+            segments.add(first);
+            current = first;
+        }
+        currentCount = 0;
+        completedSize = 0;
+    }
+
+
+    /**
+     * Discards the content of the buffer and returns all of its segments to the shared pool. The buffer can still be
+     * written to after it has been released.
+     */
+    void release() {
+        for (byte[] segment : segments) {
+            recycleSegment(segment);
+        }
+        segments.clear();
+        current = null;
+        currentCount = 0;
+        completedSize = 0;
+    }
+
+
+    /**
+     * Copies the content of the buffer into a new array
+     * @return A byte array with the content of the buffer
+     */
+    byte[] toByteArray() {
+        byte[] out = new byte[size()];
+        int pos = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            int length = segmentLength(i);
+            System.arraycopy(segments.get(i), 0, out, pos, length);
+            pos += length;
+        }
+        return out;
+    }
+
+
+    /**
+     * Decodes the content of the buffer. When the content fits in a single segment the string is decoded in place.
+     * @param charset The charset used to decode the bytes
+     * @return The decoded content of the buffer
+     */
+    String toString(Charset charset) {
+        if (segments.size() == 1) {
+            return new String(current, 0, currentCount, charset);
+        }
+        return new String(toByteArray(), charset);
+    }
+
+
+    /**
+     * Writes the content of the buffer to the given stream without copying it
+     * @param out The target output stream
+     * @throws IOException If the target stream cannot be written to
+     */
+    void writeTo(OutputStream out) throws IOException {
+        for (int i = 0; i < segments.size(); i++) {
+            out.write(segments.get(i), 0, segmentLength(i));
+        }
+    }
+
+
+    /**
+     * Returns a read-only stream over the current content of the buffer
+     * @return An input stream that reads the segments in place
+     */
+    InputStream toInputStream() {
+        return new SegmentInputStream();
+    }
+
+
+    /**
+     * Checks whether the content of the buffer is a valid UTF-8 sequence, this walks the segments in place and follows
+     * the same rules as <code>ResponseWriter.isValidUtf8</code>.
+     * @return true if the content is valid UTF-8, false otherwise
+     */
+    boolean isValidUtf8() {
+        int pending = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            byte[] segment = segments.get(i);
+            int length = segmentLength(i);
+            for (int j = 0; j < length; j++) {
+                int octet = segment[j];
+                if (pending > 0) {
+                    if ((octet & 0xC0) != 0x80) {
+                        // Not a valid trailing byte
+                        return false;
+                    }
+                    pending--;
+                    continue;
+                }
+                if ((octet & 0x80) == 0) {
+                    continue; // ASCII
+                }
+                // A BOM at the beginning of the body is a valid 3 bytes sequence
+                if ((octet & 0xE0) == 0xC0) {
+                    pending = 1;
+                } else if ((octet & 0xF0) == 0xE0) {
+                    pending = 2;
+                } else if ((octet & 0xF8) == 0xF0) {
+                    pending = 3;
+                } else {
+                    return false;
+                }
+            }
+        }
+        // a truncated sequence at the end of the body
+        return pending == 0;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private int segmentLength(int index) {
+        return index == segments.size() - 1 ? currentCount : segments.get(index).length;
+    }
+
+
+    private void addSegment() {
+        int nextSize;
+        if (current == null) {
+            nextSize = initialCapacity;
+        } else {
+            completedSize += currentCount;
+            nextSize = Math.min(current.length * 2, MAX_SEGMENT_SIZE);
+        }
+        byte[] segment = null;
+        if (nextSize == MAX_SEGMENT_SIZE) {
+            synchronized (segmentPool) {
+                segment = segmentPool.poll();
+            }
+        }
+        if (segment == null) {
+            segment = new byte[nextSize];
+        }
+        segments.add(segment);
+        current = segment;
+        currentCount = 0;
+    }
+
+
+    private static void recycleSegment(byte[] segment) {
+        if (segment.length != MAX_SEGMENT_SIZE) {
+            return;
+        }
+        synchronized (segmentPool) {
+            if (segmentPool.size() < MAX_POOLED_SEGMENTS) {
+                segmentPool.push(segment);
+            }
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Inner Class -
+    //-------------------------------------------------------------
+
+    /**
+     * Reads the segments of the buffer in place, the stream sees the content of the buffer at the time it was created
+     */
+    private class SegmentInputStream extends InputStream {
+        private final int totalSize = size();
+        private int segmentIndex = 0;
+        private int segmentPosition = 0;
+        private int read = 0;
+
+        @Override
+        public int read() {
+            if (read >= totalSize) {
+                return -1;
+            }
+            nextSegmentIfNeeded();
+            read++;
+            return segments.get(segmentIndex)[segmentPosition++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (read >= totalSize) {
+                return -1;
+            }
+            int copied = 0;
+            while (copied < len && read < totalSize) {
+                nextSegmentIfNeeded();
+                int available = Math.min(segmentLength(segmentIndex) - segmentPosition, totalSize - read);
+                int toCopy = Math.min(len - copied, available);
+                System.arraycopy(segments.get(segmentIndex), segmentPosition, b, off + copied, toCopy);
+                segmentPosition += toCopy;
+                read += toCopy;
+                copied += toCopy;
+            }
+            return copied;
+        }
+
+        @Override
+        public int available() {
+            return totalSize - read;
+        }
+
+        private void nextSegmentIfNeeded() {
+            if (segmentPosition == segmentLength(segmentIndex)) {
+                segmentIndex++;
+                segmentPosition = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import com.amazonaws.serverless.proxy.model.ContainerConfig;
+import com.amazonaws.serverless.proxy.model.Headers;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+
+/**
+ * Compresses response bodies with gzip or deflate for the response writer. The body buffer of the response is streamed
+ * through a <code>Deflater</code> into a new {@link ResponseBodyBuffer}, which the writer then base64 encodes in place.
+ * The uncompressed body is never copied. The deflaters are reset and reused for every response, the gzip header and
+ * trailer are written here so that the gzip encoding does not need a new <code>GZIPOutputStream</code> and native
+ * deflater per response.
+ *
+ * Like the response writer, a compressor is expected to handle one response at a time.
+ */
+final class ResponseCompressor {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static final int DEFLATE_BUFFER_SIZE = 8 * 1024;
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, // magic number
+            Deflater.DEFLATED, // compression method
+            0,                 // flags
+            0, 0, 0, 0,        // modification time
+            0,                 // extra flags
+            (byte) 0xff        // operating system, unknown
+    };
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private Deflater gzipDeflater;
+    private Deflater zlibDeflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] deflateBuffer = new byte[DEFLATE_BUFFER_SIZE];
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Decides whether a response body can be compressed based on the container configuration and the response alone,
+     * regardless of what the client accepts. When this method returns true the response varies on the request
+     * <code>Accept-Encoding</code> header.
+     * @param response The response produced by the framework
+     * @param config The container configuration
+     * @return true if the response is eligible for compression
+     */
+    static boolean isCompressible(AwsHttpServletResponse response, ContainerConfig config) {
+        if (!config.isCompressResponses() || !response.hasAwsResponseBody()) {
+            return false;
+        }
+        int size = response.getAwsResponseBodySize();
+        if (size == 0 || size < config.getCompressionMinSize()) {
+            return false;
+        }
+        if (response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            // the application encoded the body itself
+            return false;
+        }
+        String contentType = response.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        int semicolon = contentType.indexOf(';');
+        return config.isCompressibleContentType(semicolon >= 0 ? contentType.substring(0, semicolon) : contentType);
+    }
+
+
+    /**
+     * Picks the content coding for the response from the value of an <code>Accept-Encoding</code> header. Gzip is
+     * preferred over deflate when the client gives them the same weight.
+     * @param acceptEncoding The value of the header, can be null
+     * @return {@link #GZIP}, {@link #DEFLATE}, or null if the client accepts neither
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        float gzip = -1f;
+        float deflate = -1f;
+        float wildcard = -1f;
+
+        int length = acceptEncoding.length();
+        int start = 0;
+        while (start < length) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int parameters = acceptEncoding.indexOf(';', start);
+            int nameEnd = parameters >= 0 && parameters < end ? parameters : end;
+            float quality = parameters >= 0 && parameters < end ? parseQuality(acceptEncoding, parameters + 1, end) : 1f;
+
+            int nameStart = skipWhitespace(acceptEncoding, start, nameEnd);
+            nameEnd = trimWhitespace(acceptEncoding, nameStart, nameEnd);
+            if (matches(acceptEncoding, nameStart, nameEnd, GZIP) || matches(acceptEncoding, nameStart, nameEnd, "x-gzip")) {
+                gzip = Math.max(gzip, quality);
+            } else if (matches(acceptEncoding, nameStart, nameEnd, DEFLATE)) {
+                deflate = Math.max(deflate, quality);
+            } else if (matches(acceptEncoding, nameStart, nameEnd, "*")) {
+                wildcard = Math.max(wildcard, quality);
+            }
+            start = end + 1;
+        }
+
+        // codings that are not listed explicitly take the weight of the wildcard
+        if (gzip < 0f) {
+            gzip = wildcard;
+        }
+        if (deflate < 0f) {
+            deflate = wildcard;
+        }
+        if (gzip > 0f && gzip >= deflate) {
+            return GZIP;
+        }
+        if (deflate > 0f) {
+            return DEFLATE;
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the headers to send with a compressed body: a copy of the response headers with the
+     * <code>Content-Encoding</code> set, the <code>Content-Length</code> of the uncompressed body removed and
+     * <code>Accept-Encoding</code> added to the <code>Vary</code> header.
+     * @param headers The response headers
+     * @param encoding The content coding, null if the body is sent uncompressed
+     * @return A new headers object, the response headers are not modified
+     */
+    static Headers getHeaders(Headers headers, String encoding) {
+        Headers out = new Headers();
+        if (headers != null) {
+            out.putAll(headers);
+        }
+        if (encoding != null) {
+            out.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+            out.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        List<String> vary = out.get(HttpHeaders.VARY);
+        if (vary == null) {
+            out.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        } else if (!variesOnEncoding(vary)) {
+            List<String> values = new ArrayList<>(vary);
+            values.add(HttpHeaders.ACCEPT_ENCODING);
+            out.put(HttpHeaders.VARY, values);
+        }
+        return out;
+    }
+
+
+    /**
+     * @param vary The values of the <code>Vary</code> header, may be empty
+     * @return true if the values already include <code>Accept-Encoding</code> or <code>*</code>
+     */
+    static boolean variesOnEncoding(Collection<String> vary) {
+        return containsToken(vary, HttpHeaders.ACCEPT_ENCODING) || containsToken(vary, "*");
+    }
+
+
+    /**
+     * Compresses the body of the response
+     * @param response The response whose body buffer is compressed
+     * @param encoding {@link #GZIP} or {@link #DEFLATE}
+     * @return A new buffer with the compressed body. The caller should release it once it has been written
+     * @throws IOException If the body cannot be compressed
+     */
+    synchronized ResponseBodyBuffer compress(AwsHttpServletResponse response, String encoding) throws IOException {
+        boolean gzip = GZIP.equals(encoding);
+        Deflater deflater = getDeflater(gzip);
+        deflater.reset();
+        crc.reset();
+
+        // text usually compresses to a fraction of its size, start small and let the buffer grow
+        ResponseBodyBuffer compressed = new ResponseBodyBuffer(response.getAwsResponseBodySize() / 4);
+        if (gzip) {
+            compressed.write(GZIP_HEADER);
+        }
+        response.writeAwsResponseBody(new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                if (gzip) {
+                    crc.update(b, off, len);
+                }
+                deflater.setInput(b, off, len);
+                while (!deflater.needsInput()) {
+                    drain(deflater, compressed);
+                }
+            }
+        });
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain(deflater, compressed);
+        }
+
+        if (gzip) {
+            writeIntLE(compressed, (int) crc.getValue());
+            writeIntLE(compressed, (int) deflater.getBytesRead());
+        }
+        return compressed;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private Deflater getDeflater(boolean gzip) {
+        if (gzip) {
+            if (gzipDeflater == null) {
+                // gzip wraps the raw deflate stream in its own header and trailer
+                gzipDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            }
+            return gzipDeflater;
+        }
+        if (zlibDeflater == null) {
+            // the deflate content coding is the zlib format
+            zlibDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, false);
+        }
+        return zlibDeflater;
+    }
+
+
+    private void drain(Deflater deflater, ResponseBodyBuffer compressed) {
+        int count = deflater.deflate(deflateBuffer, 0, deflateBuffer.length);
+        if (count > 0) {
+            compressed.write(deflateBuffer, 0, count);
+        }
+    }
+
+
+    private static void writeIntLE(ResponseBodyBuffer out, int value) {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+
+    private static float parseQuality(String header, int start, int end) {
+        int q = skipWhitespace(header, start, end);
+        if (q + 1 >= end || (header.charAt(q) != 'q' && header.charAt(q) != 'Q') || header.charAt(q + 1) != '=') {
+            // other parameters do not change the weight
+            return 1f;
+        }
+        try {
+            float quality = Float.parseFloat(header.substring(q + 2, trimWhitespace(header, q + 2, end)));
+            return quality >= 0f && quality <= 1f ? quality : 0f;
+        } catch (NumberFormatException e) {
+            return 0f;
+        }
+    }
+
+
+    private static boolean matches(String header, int start, int end, String coding) {
+        return end - start == coding.length() && header.regionMatches(true, start, coding, 0, coding.length());
+    }
+
+
+    private static boolean containsToken(Collection<String> values, String token) {
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            int start = 0;
+            while (start <= value.length()) {
+                int end = value.indexOf(',', start);
+                if (end < 0) {
+                    end = value.length();
+                }
+                int tokenStart = skipWhitespace(value, start, end);
+                if (matches(value, tokenStart, trimWhitespace(value, tokenStart, end), token)) {
+                    return true;
+                }
+                start = end + 1;
+            }
+        }
+        return false;
+    }
+
+
+    private static int skipWhitespace(String s, int start, int end) {
+        while (start < end && Character.isWhitespace(s.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+
+    private static int trimWhitespace(String s, int start, int end) {
+        while (end > start && Character.isWhitespace(s.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import javax.servlet.Servlet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Index of the servlet mappings of a servlet context. Request paths are resolved with the precedence of section 12.1
+ * of the servlet specification:
+ * <ol>
+ *     <li>an exact mapping, such as <code>/pets</code></li>
+ *     <li>the longest path prefix mapping, such as <code>/pets/*</code></li>
+ *     <li>an extension mapping, such as <code>*.jsp</code></li>
+ *     <li>the default servlet, mapped to <code>/</code></li>
+ * </ol>
+ * For compatibility with earlier versions, an exact mapping also matches the paths below it, with a lower precedence
+ * than an explicit prefix mapping, and the empty mapping is treated like <code>/</code>.
+ *
+ * Each step is a hash lookup, prefixes are looked up once per path segment. The mapper is immutable, the servlet
+ * context creates a new one when a servlet or mapping is registered.
+ */
+final class ServletMapper {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final String DEFAULT_MAPPING = "/";
+    private static final String PREFIX_SUFFIX = "/*";
+    private static final String EXTENSION_PREFIX = "*.";
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final Map<String, AwsServletRegistration> exactMappings = new HashMap<>();
+    // keyed by the path without the trailing /*, the /* mapping is stored with an empty key
+    private final Map<String, AwsServletRegistration> prefixMappings = new HashMap<>();
+    private final Map<String, AwsServletRegistration> extensionMappings = new HashMap<>();
+    private final Map<Servlet, AwsServletRegistration> registrationsByServlet = new HashMap<>();
+    private AwsServletRegistration defaultServlet;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    ServletMapper(Collection<AwsServletRegistration> registrations) {
+        // exact mappings also match the paths below them, explicit prefix mappings take precedence
+        Map<String, AwsServletRegistration> implicitPrefixes = new HashMap<>();
+        for (AwsServletRegistration registration : registrations) {
+            if (registration.getServlet() != null) {
+                registrationsByServlet.putIfAbsent(registration.getServlet(), registration);
+            }
+            for (String mapping : registration.getMappings()) {
+                if (mapping == null) {
+                    continue;
+                }
+                if (mapping.isEmpty() || DEFAULT_MAPPING.equals(mapping)) {
+                    if (defaultServlet == null) {
+                        defaultServlet = registration;
+                    }
+                } else if (mapping.endsWith(PREFIX_SUFFIX)) {
+                    prefixMappings.putIfAbsent(mapping.substring(0, mapping.length() - PREFIX_SUFFIX.length()), registration);
+                } else if (mapping.startsWith(EXTENSION_PREFIX)) {
+                    extensionMappings.putIfAbsent(mapping.substring(EXTENSION_PREFIX.length()), registration);
+                } else {
+                    exactMappings.putIfAbsent(mapping, registration);
+                    implicitPrefixes.putIfAbsent(mapping, registration);
+                }
+            }
+        }
+        for (Map.Entry<String, AwsServletRegistration> prefix : implicitPrefixes.entrySet()) {
+            prefixMappings.putIfAbsent(prefix.getKey(), prefix.getValue());
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Finds the servlet registration that handles a request path
+     * @param path The request path, relative to the context
+     * @return The matching registration, null if no mapping applies
+     */
+    AwsServletRegistration getRegistration(String path) {
+        String target = path == null ? "" : path;
+
+        AwsServletRegistration registration = exactMappings.get(target);
+        if (registration != null) {
+            return registration;
+        }
+
+        if (!prefixMappings.isEmpty()) {
+            String prefix = target;
+            while (true) {
+                registration = prefixMappings.get(prefix);
+                if (registration != null) {
+                    return registration;
+                }
+                int slash = prefix.lastIndexOf('/');
+                if (slash < 0) {
+                    break;
+                }
+                prefix = prefix.substring(0, slash);
+            }
+        }
+
+        if (!extensionMappings.isEmpty()) {
+            int dot = target.lastIndexOf('.');
+            if (dot > target.lastIndexOf('/')) {
+                registration = extensionMappings.get(target.substring(dot + 1));
+                if (registration != null) {
+                    return registration;
+                }
+            }
+        }
+        return defaultServlet;
+    }
+
+
+    /**
+     * @param servlet A servlet instance
+     * @return The registration of the servlet, null if the servlet is not registered
+     */
+    AwsServletRegistration getRegistration(Servlet servlet) {
+        return servlet == null ? null : registrationsByServlet.get(servlet);
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import com.amazonaws.serverless.proxy.internal.SecurityUtils;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+
+/**
+ * Serves static files from a directory of the deployment package, for example <code>/var/task/static</code>, without
+ * going through the framework. The directory is indexed when the filter is initialized: every file is memory-mapped
+ * with <code>FileChannel.map</code> and its size, last modified date, content type and entity tag are computed once.
+ * A file with a <code>.gz</code> sibling, such as <code>app.js</code> and <code>app.js.gz</code>, is served
+ * pre-compressed to clients that accept gzip. Requests for paths that are not in the index, or that are neither
+ * <code>GET</code> nor <code>HEAD</code>, continue down the filter chain.
+ *
+ * The filter is configured with two init parameters:
+ * <pre>
+ * FilterRegistration.Dynamic registration = servletContext.addFilter("StaticAssets", StaticAssetFilter.class);
+ * registration.setInitParameter(StaticAssetFilter.PARAM_ROOT, "/var/task/static");
+ * registration.setInitParameter(StaticAssetFilter.PARAM_PATH_PREFIX, "/static");
+ * registration.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/static/*");
+ * </pre>
+ *
+ * The root directory must be one of the paths allowed by <code>ContainerConfig.getValidFilePaths()</code>. Files are
+ * copied from the mapped buffer straight into the response body buffer, the bytes are not staged in an intermediate
+ * array on the heap.
+ */
+public class StaticAssetFilter implements Filter {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    public static final String PARAM_ROOT = "root";
+    public static final String PARAM_PATH_PREFIX = "path_prefix";
+
+    static final String GZIP_EXTENSION = ".gz";
+
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+    private static final DateTimeFormatter LAST_MODIFIED_FORMAT = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private static Logger log = LoggerFactory.getLogger(StaticAssetFilter.class);
+
+    private Map<String, Asset> assets = new HashMap<>();
+
+
+    //-------------------------------------------------------------
+    // Implementation - Filter
+    //-------------------------------------------------------------
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        if (filterConfig == null || filterConfig.getInitParameter(PARAM_ROOT) == null) {
+            throw new ServletException("The " + PARAM_ROOT + " init parameter is required");
+        }
+        String root;
+        try {
+            root = SecurityUtils.getValidFilePath(filterConfig.getInitParameter(PARAM_ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ServletException("Invalid static asset root", e);
+        }
+        try {
+            assets = index(Paths.get(root), normalizePrefix(filterConfig.getInitParameter(PARAM_PATH_PREFIX)),
+                           filterConfig.getServletContext());
+        } catch (IOException e) {
+            throw new ServletException("Could not index static assets in " + SecurityUtils.encode(root), e);
+        }
+        log.debug("Indexed {} static assets", assets.size());
+    }
+
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        if (!(servletRequest instanceof HttpServletRequest) || !(servletResponse instanceof HttpServletResponse)) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        String method = request.getMethod();
+        boolean head = "HEAD".equals(method);
+        Asset asset = request.getPathInfo() == null ? null : assets.get(request.getPathInfo());
+        if (asset == null || !(head || "GET".equals(method))) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        Asset representation = asset;
+        if (asset.gzipped != null) {
+            // keep the values set by earlier filters
+            if (!ResponseCompressor.variesOnEncoding(response.getHeaders(HttpHeaders.VARY))) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            if (ResponseCompressor.GZIP.equals(ResponseCompressor.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING)))) {
+                representation = asset.gzipped;
+            }
+        }
+
+        response.setHeader(HttpHeaders.ETAG, representation.entityTag);
+        if (EntityTags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), asset.entityTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setHeader(HttpHeaders.LAST_MODIFIED, representation.lastModified);
+        response.setContentType(asset.contentType);
+        if (representation != asset) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, ResponseCompressor.GZIP);
+        }
+        response.setContentLength(representation.size);
+        if (!head) {
+            write(representation.content.duplicate(), response);
+        }
+    }
+
+
+    @Override
+    public void destroy() {
+        // the mapped buffers are unmapped when they are garbage collected
+        assets = new HashMap<>();
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * @return The number of files that can be served by the filter, pre-compressed variants are not counted
+     */
+    int size() {
+        return assets.size();
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private static void write(ByteBuffer content, HttpServletResponse response) throws IOException {
+        if (response instanceof AwsHttpServletResponse) {
+            ((AwsHttpServletResponse) response).appendAwsResponseBody(content);
+            return;
+        }
+        // the response was wrapped by another filter, go through its output stream
+        byte[] chunk = new byte[Math.min(COPY_BUFFER_SIZE, content.remaining())];
+        ServletOutputStream out = response.getOutputStream();
+        while (content.hasRemaining()) {
+            int length = Math.min(chunk.length, content.remaining());
+            content.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN") // the root was validated with getValidFilePath
+    private static Map<String, Asset> index(Path root, String prefix, ServletContext servletContext) throws IOException {
+        Map<String, Path> files = new HashMap<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile).forEach(file -> {
+                StringBuilder path = new StringBuilder(prefix);
+                for (Path segment : root.relativize(file)) {
+                    path.append('/').append(segment.toString());
+                }
+                files.put(path.toString(), file);
+            });
+        }
+
+        Map<String, Asset> index = new HashMap<>();
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            String path = file.getKey();
+            if (path.endsWith(GZIP_EXTENSION) && files.containsKey(path.substring(0, path.length() - GZIP_EXTENSION.length()))) {
+                // indexed as the variant of the uncompressed file
+                continue;
+            }
+            Asset asset = load(file.getValue(), getContentType(servletContext, path), null);
+            if (asset == null) {
+                continue;
+            }
+            Path gzipped = files.get(path + GZIP_EXTENSION);
+            if (gzipped != null) {
+                asset.gzipped = load(gzipped, asset.contentType, asset.entityTag);
+            }
+            index.put(path, asset);
+        }
+        return index;
+    }
+
+
+    /**
+     * Maps a file and computes its metadata
+     * @param file The file to load
+     * @param contentType The content type of the file
+     * @param identityTag The entity tag of the uncompressed file if this is a gzip variant, null otherwise
+     * @return The asset, null if the file is too large to be served
+     */
+    private static Asset load(Path file, String contentType, String identityTag) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.size() > Integer.MAX_VALUE) {
+            log.warn("Skipping static asset larger than 2GB: {}", SecurityUtils.encode(file.toString()));
+            return null;
+        }
+
+        MappedByteBuffer content;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, attributes.size());
+        }
+
+        String entityTag;
+        if (identityTag == null) {
+            entityTag = EntityTags.format(hash(content.duplicate()));
+        } else {
+            // same tag as the response writer gives a body it compressed itself
+            entityTag = EntityTags.forEncoding(identityTag, ResponseCompressor.GZIP);
+        }
+        String lastModified = LAST_MODIFIED_FORMAT.format(attributes.lastModifiedTime().toInstant());
+        return new Asset(content, (int) attributes.size(), contentType, lastModified, entityTag);
+    }
+
+
+    private static long hash(ByteBuffer content) {
+        XxHash64 hash = new XxHash64();
+        byte[] chunk = new byte[Math.min(COPY_BUFFER_SIZE, content.remaining())];
+        while (content.hasRemaining()) {
+            int length = Math.min(chunk.length, content.remaining());
+            content.get(chunk, 0, length);
+            hash.write(chunk, 0, length);
+        }
+        return hash.getValue();
+    }
+
+
+    private static String getContentType(ServletContext servletContext, String path) {
+        String contentType = servletContext == null ? null : servletContext.getMimeType(path);
+        return contentType == null ? DEFAULT_CONTENT_TYPE : contentType;
+    }
+
+
+    private static String normalizePrefix(String prefix) {
+        if (prefix == null) {
+            return "";
+        }
+        String normalized = prefix.trim();
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        if (!normalized.isEmpty() && !normalized.startsWith("/")) {
+            normalized = "/" + normalized;
+        }
+        return normalized;
+    }
+
+
+    //-------------------------------------------------------------
+    // Inner Class - Asset
+    //-------------------------------------------------------------
+
+    private static final class Asset {
+        private final MappedByteBuffer content;
+        private final int size;
+        private final String contentType;
+        private final String lastModified;
+        private final String entityTag;
+        private Asset gzipped;
+
+        private Asset(MappedByteBuffer content, int size, String contentType, String lastModified, String entityTag) {
+            this.content = content;
+            this.size = size;
+            this.contentType = contentType;
+            this.lastModified = lastModified;
+            this.entityTag = entityTag;
+        }
+    }
+}
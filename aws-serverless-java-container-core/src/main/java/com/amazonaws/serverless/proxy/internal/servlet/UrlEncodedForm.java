@@ -0,0 +1,220 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+
+/**
+ * The parameters of an <code>application/x-www-form-urlencoded</code> body. The body bytes are scanned once: pairs
+ * are separated by <code>&amp;</code> and the name ends at the first <code>=</code>, so values can contain
+ * <code>=</code>. A pair without <code>=</code> is a parameter with an empty value, pairs with an empty name are
+ * ignored.
+ *
+ * Names are decoded while parsing because they are needed for lookups. Values are only located and decoded from the
+ * body the first time they are read. Decoding turns <code>+</code> into a space and <code>%XX</code> into the byte it
+ * encodes, into a buffer that is reused for every name and value, before the bytes are converted with the given
+ * charset. A <code>%</code> that is not followed by two hex digits is kept as is.
+ */
+final class UrlEncodedForm {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final byte PAIR_SEPARATOR = '&';
+    private static final byte VALUE_SEPARATOR = '=';
+    private static final int INITIAL_CAPACITY = 8;
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private static Logger log = LoggerFactory.getLogger(UrlEncodedForm.class);
+
+    private final byte[] body;
+    private final Charset charset;
+    private String[] names = new String[INITIAL_CAPACITY];
+    // start and end offsets of each value in the body, values[i] caches the decoded value
+    private int[] valueBounds = new int[INITIAL_CAPACITY * 2];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+    private byte[] decodeBuffer;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    private UrlEncodedForm(byte[] body, Charset charset) {
+        this.body = body;
+        this.charset = charset;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Parses a url encoded form body
+     * @param body The body bytes, the form keeps a reference to the array to decode values later
+     * @param charset The charset of the decoded names and values
+     * @param maxParameters The maximum number of parameters to read, the rest of the body is ignored. Values below 1
+     *                      disable the limit
+     * @param maxParameterSize The maximum size in bytes of an encoded name and value pair, larger pairs are skipped.
+     *                         Values below 1 disable the limit
+     * @return The parsed form
+     */
+    static UrlEncodedForm parse(byte[] body, Charset charset, int maxParameters, int maxParameterSize) {
+        UrlEncodedForm form = new UrlEncodedForm(body, charset);
+        int pairStart = 0;
+        int separator = -1;
+        for (int i = 0; i <= body.length; i++) {
+            byte b = i < body.length ? body[i] : PAIR_SEPARATOR;
+            if (b == VALUE_SEPARATOR && separator < 0) {
+                separator = i;
+            } else if (b == PAIR_SEPARATOR) {
+                int nameEnd = separator < 0 ? i : separator;
+                if (nameEnd > pairStart) {
+                    if (maxParameters > 0 && form.size == maxParameters) {
+                        log.warn("Form body has more than {} parameters, ignoring the rest", maxParameters);
+                        break;
+                    }
+                    if (maxParameterSize > 0 && i - pairStart > maxParameterSize) {
+                        log.warn("Skipping form parameter larger than {} bytes", maxParameterSize);
+                    } else {
+                        form.add(form.decode(pairStart, nameEnd), separator < 0 ? i : separator + 1, i);
+                    }
+                }
+                pairStart = i + 1;
+                separator = -1;
+            }
+        }
+        return form;
+    }
+
+
+    /**
+     * @return The number of parameters in the form, a name that appears more than once is counted every time
+     */
+    int size() {
+        return size;
+    }
+
+
+    /**
+     * @param index The position of the parameter in the body
+     * @return The decoded name of the parameter
+     */
+    String getName(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+
+    /**
+     * Returns the decoded value of a parameter, decoding it from the body the first time it is requested
+     * @param index The position of the parameter in the body
+     * @return The decoded value, an empty string if the parameter does not have a value
+     */
+    String getValue(int index) {
+        checkIndex(index);
+        if (values[index] == null) {
+            values[index] = decode(valueBounds[index * 2], valueBounds[index * 2 + 1]);
+        }
+        return values[index];
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private void add(String name, int valueStart, int valueEnd) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            valueBounds = Arrays.copyOf(valueBounds, size * 4);
+        }
+        names[size] = name;
+        valueBounds[size * 2] = valueStart;
+        valueBounds[size * 2 + 1] = valueEnd;
+        size++;
+    }
+
+
+    private String decode(int start, int end) {
+        int length = 0;
+        byte[] buffer = null;
+        for (int i = start; i < end; i++) {
+            byte b = body[i];
+            if (buffer == null) {
+                if (b != '+' && b != '%') {
+                    continue;
+                }
+                // first byte that needs decoding, copy what was scanned so far
+                buffer = getDecodeBuffer(end - start);
+                length = i - start;
+                System.arraycopy(body, start, buffer, 0, length);
+            }
+            if (b == '+') {
+                buffer[length++] = ' ';
+            } else if (b == '%' && i + 2 < end && hexValue(body[i + 1]) >= 0 && hexValue(body[i + 2]) >= 0) {
+                buffer[length++] = (byte) ((hexValue(body[i + 1]) << 4) + hexValue(body[i + 2]));
+                i += 2;
+            } else {
+                buffer[length++] = b;
+            }
+        }
+        if (buffer == null) {
+            return new String(body, start, end - start, charset);
+        }
+        return new String(buffer, 0, length, charset);
+    }
+
+
+    private byte[] getDecodeBuffer(int capacity) {
+        if (decodeBuffer == null || decodeBuffer.length < capacity) {
+            decodeBuffer = new byte[Math.max(capacity, 64)];
+        }
+        return decodeBuffer;
+    }
+
+
+    private static int hexValue(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
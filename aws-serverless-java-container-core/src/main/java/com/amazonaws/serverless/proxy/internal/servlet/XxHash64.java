@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import java.io.OutputStream;
+
+
+/**
+ * Streaming implementation of the 64 bit xxHash algorithm (XXH64). The hash is fed by writing to the stream, which
+ * lets the response body buffer be hashed in place with {@link ResponseBodyBuffer#writeTo(OutputStream)}. xxHash is
+ * not a cryptographic hash, it is used to tell response bodies apart for entity tags.
+ */
+final class XxHash64 extends OutputStream {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE_SIZE = 32;
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final long seed;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long totalLength;
+    // input that does not fill a stripe yet
+    private final byte[] pending = new byte[STRIPE_SIZE];
+    private int pendingSize;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    XxHash64() {
+        this(0L);
+    }
+
+
+    XxHash64(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+
+    //-------------------------------------------------------------
+    // Implementation - OutputStream
+    //-------------------------------------------------------------
+
+    @Override
+    public void write(int b) {
+        pending[pendingSize++] = (byte) b;
+        totalLength++;
+        if (pendingSize == STRIPE_SIZE) {
+            processStripe(pending, 0);
+            pendingSize = 0;
+        }
+    }
+
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        totalLength += len;
+        int end = off + len;
+
+        if (pendingSize > 0) {
+            int toCopy = Math.min(STRIPE_SIZE - pendingSize, len);
+            System.arraycopy(b, off, pending, pendingSize, toCopy);
+            pendingSize += toCopy;
+            off += toCopy;
+            if (pendingSize < STRIPE_SIZE) {
+                return;
+            }
+            processStripe(pending, 0);
+            pendingSize = 0;
+        }
+
+        while (end - off >= STRIPE_SIZE) {
+            processStripe(b, off);
+            off += STRIPE_SIZE;
+        }
+
+        if (off < end) {
+            System.arraycopy(b, off, pending, 0, end - off);
+            pendingSize = end - off;
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Clears the state so that a new value can be hashed
+     */
+    void reset() {
+        v1 = seed + PRIME64_1 + PRIME64_2;
+        v2 = seed + PRIME64_2;
+        v3 = seed;
+        v4 = seed - PRIME64_1;
+        totalLength = 0;
+        pendingSize = 0;
+    }
+
+
+    /**
+     * Computes the hash of the data written so far. The state is not modified, more data can be written afterwards.
+     * @return The 64 bit hash
+     */
+    long getValue() {
+        long hash;
+        if (totalLength >= STRIPE_SIZE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME64_5;
+        }
+        hash += totalLength;
+
+        int position = 0;
+        while (position + 8 <= pendingSize) {
+            hash ^= round(0, readLongLE(pending, position));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            position += 8;
+        }
+        if (position + 4 <= pendingSize) {
+            hash ^= (readIntLE(pending, position) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            position += 4;
+        }
+        while (position < pendingSize) {
+            hash ^= (pending[position] & 0xFF) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            position++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private void processStripe(byte[] b, int off) {
+        v1 = round(v1, readLongLE(b, off));
+        v2 = round(v2, readLongLE(b, off + 8));
+        v3 = round(v3, readLongLE(b, off + 16));
+        v4 = round(v4, readLongLE(b, off + 24));
+    }
+
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME64_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME64_1;
+    }
+
+
+    private static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME64_1 + PRIME64_4;
+    }
+
+
+    private static long readLongLE(byte[] b, int off) {
+        return (b[off] & 0xFFL)
+                | (b[off + 1] & 0xFFL) << 8
+                | (b[off + 2] & 0xFFL) << 16
+                | (b[off + 3] & 0xFFL) << 24
+                | (b[off + 4] & 0xFFL) << 32
+                | (b[off + 5] & 0xFFL) << 40
+                | (b[off + 6] & 0xFFL) << 48
+                | (b[off + 7] & 0xFFL) << 56;
+    }
+
+
+    private static int readIntLE(byte[] b, int off) {
+        return (b[off] & 0xFF)
+                | (b[off + 1] & 0xFF) << 8
+                | (b[off + 2] & 0xFF) << 16
+                | (b[off + 3] & 0xFF) << 24;
+    }
+}
@@ -12,40 +12,64 @@
  */
 package com.amazonaws.serverless.proxy.internal.testutils;
 
-import java.util.LinkedHashMap;
+import com.amazonaws.serverless.proxy.metrics.LatencyHistogram;
+import com.amazonaws.serverless.proxy.metrics.MetricsRegistry;
+
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Named timers used by the container handlers to measure the phases of a request. Times are taken with
+ * <code>System.nanoTime()</code> and every completed timer is recorded in the histogram with the same name in the
+ * default {@link MetricsRegistry}, the timer itself only keeps the last sample. The timer is enabled and disabled
+ * together with the default registry.
+ *
+ * Start times are kept per thread, so a timer started concurrently by two threads measures each thread separately.
+ * Nested starts of the same timer on one thread are matched with their stops in reverse order. A stop without a
+ * matching start on the same thread records nothing.
+ */
 public final class Timer {
-    private volatile static Map<String, TimerInfo> timers = new LinkedHashMap<>();
-    private volatile static boolean enabled = false;
+    private static final Map<String, TimerInfo> timers = new ConcurrentHashMap<>();
 
     public static void start(String timerName) {
-        if (!enabled) {
+        if (!MetricsRegistry.getDefault().isEnabled()) {
             return;
         }
 
-        timers.put(timerName, new TimerInfo(System.currentTimeMillis()));
+        TimerInfo info = timers.get(timerName);
+        if (info == null) {
+            info = timers.computeIfAbsent(timerName, name -> new TimerInfo(MetricsRegistry.getDefault().histogram(name)));
+        }
+        info.start(System.nanoTime());
     }
 
+    /**
+     * Stops the timer and records its duration
+     * @param timerName The name of the timer
+     * @return The stop time in nanoseconds, as returned by <code>System.nanoTime()</code>. 0 if the timer is disabled
+     *         or was not started on this thread
+     */
     public static long stop(String timerName) {
-        if (!enabled) {
-            return 0L;
-        }
-
         TimerInfo info = timers.get(timerName);
         if (info == null) {
-            throw new IllegalArgumentException("Could not find timer " + timerName);
+            // the timer was never started while enabled, there is nothing to record
+            return 0L;
+        }
+        if (!MetricsRegistry.getDefault().isEnabled()) {
+            // drop the start time so that it cannot be matched with a stop once the timer is enabled again
+            info.discard();
+            return 0L;
         }
 
-        long stopTime = System.currentTimeMillis();
-        info.stop(stopTime);
-
-        return stopTime;
+        long stopTime = System.nanoTime();
+        return info.stop(stopTime) ? stopTime : 0L;
     }
 
 
     public static Map<String, TimerInfo> getTimers() {
-        return timers;
+        return Collections.unmodifiableMap(timers);
     }
 
     public static TimerInfo getTimer(String timerName) {
@@ -53,38 +77,99 @@ public final class Timer {
     }
 
     public static void enable() {
-        enabled = true;
+        MetricsRegistry.getDefault().enable();
     }
 
     public static void disable() {
-        enabled = false;
+        MetricsRegistry.getDefault().disable();
     }
 
-    private static class TimerInfo {
+    /**
+     * The last sample of a timer, all times are in nanoseconds
+     */
+    public static final class TimerInfo {
+        private final LatencyHistogram histogram;
+        private final ThreadLocal<StartTimes> startTimes = ThreadLocal.withInitial(StartTimes::new);
         private long startTime;
         private long stopTime;
         private long duration;
 
-        public TimerInfo(long start) {
-            startTime = start;
+        TimerInfo(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        void start(long start) {
+            startTimes.get().push(start);
         }
 
-        public void stop(long stop) {
-            stopTime = stop;
-            duration = stopTime - startTime;
+        /**
+         * @return false if the timer was not started on this thread
+         */
+        boolean stop(long stop) {
+            StartTimes started = startTimes.get();
+            if (started.isEmpty()) {
+                return false;
+            }
+            long start = started.pop();
+            histogram.record(stop - start);
+            synchronized (this) {
+                startTime = start;
+                stopTime = stop;
+                duration = stop - start;
+            }
+            return true;
         }
 
-        public long getStartTime() {
+        void discard() {
+            StartTimes started = startTimes.get();
+            if (!started.isEmpty()) {
+                started.pop();
+            }
+        }
+
+        public synchronized long getStartTime() {
             return startTime;
         }
 
-        public long getStopTime() {
+        public synchronized long getStopTime() {
             return stopTime;
         }
 
 
-        public long getDuration() {
+        public synchronized long getDuration() {
             return duration;
         }
     }
+
+    /**
+     * The start times of one timer on one thread, innermost start last. A start whose stop is skipped by an
+     * exception stays at the bottom of the stack, the depth is capped so that such starts do not accumulate.
+     */
+    private static final class StartTimes {
+        private static final int MAX_DEPTH = 16;
+
+        private long[] times = new long[2];
+        private int depth;
+
+        private void push(long time) {
+            if (depth == times.length) {
+                if (times.length < MAX_DEPTH) {
+                    times = Arrays.copyOf(times, times.length * 2);
+                } else {
+                    // drop the oldest start
+                    System.arraycopy(times, 1, times, 0, depth - 1);
+                    depth--;
+                }
+            }
+            times[depth++] = time;
+        }
+
+        private long pop() {
+            return times[--depth];
+        }
+
+        private boolean isEmpty() {
+            return depth == 0;
+        }
+    }
 }
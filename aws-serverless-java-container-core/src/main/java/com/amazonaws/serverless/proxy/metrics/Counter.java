@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.metrics;
+
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock-free monotonic counter backed by a <code>LongAdder</code>. Counters are created and owned by the
+ * {@link MetricsRegistry}.
+ */
+public final class Counter {
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Public
+    //-------------------------------------------------------------
+
+    public void increment() {
+        count.increment();
+    }
+
+
+    public void add(long value) {
+        count.add(value);
+    }
+
+
+    /**
+     * @return The sum of all increments since the counter was created or last reset
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+
+    public void reset() {
+        count.reset();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.metrics;
+
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Writes the metrics of each invocation as a single line in the CloudWatch Embedded Metric Format. Lambda forwards the
+ * function output to CloudWatch Logs, which extracts the metrics from the log line without an agent or calls to the
+ * CloudWatch API. By default lines are written to <code>System.out</code>:
+ * <pre>
+ * handler.setMetricsSink(new EmfMetricsSink("PetStore"));
+ * </pre>
+ *
+ * Every line contains the duration of each {@link InvocationMetrics.Phase} in microseconds, the response size, a
+ * cold start and an error count, dimensioned by function name. The status code and request id are included as
+ * properties so they can be queried with CloudWatch Logs Insights. The line is built in memory and written to the
+ * stream with a single write and flush.
+ */
+public class EmfMetricsSink implements MetricsSink {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    static final String UNKNOWN_FUNCTION = "unknown";
+    private static final int INITIAL_LINE_CAPACITY = 1024;
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private static Logger log = LoggerFactory.getLogger(EmfMetricsSink.class);
+
+    private final String namespace;
+    private final OutputStream out;
+    private final StringBuilder line = new StringBuilder(INITIAL_LINE_CAPACITY);
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    /**
+     * Creates a sink that writes to the standard output
+     * @param namespace The CloudWatch metrics namespace
+     */
+    public EmfMetricsSink(String namespace) {
+        this(namespace, System.out);
+    }
+
+
+    /**
+     * Creates a sink that writes to the given stream
+     * @param namespace The CloudWatch metrics namespace
+     * @param out The stream the lines are written to
+     */
+    public EmfMetricsSink(String namespace, OutputStream out) {
+        if (namespace == null || namespace.isEmpty()) {
+            throw new IllegalArgumentException("The metrics namespace cannot be empty");
+        }
+        this.namespace = namespace;
+        this.out = out;
+    }
+
+
+    //-------------------------------------------------------------
+    // Implementation - MetricsSink
+    //-------------------------------------------------------------
+
+    @Override
+    public synchronized void emit(InvocationMetrics metrics, Context lambdaContext) {
+        line.setLength(0);
+        format(metrics, lambdaContext, System.currentTimeMillis(), line);
+        try {
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            log.warn("Could not write invocation metrics", e);
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    void format(InvocationMetrics metrics, Context lambdaContext, long timestamp, StringBuilder json) {
+        String functionName = lambdaContext != null && lambdaContext.getFunctionName() != null
+                ? lambdaContext.getFunctionName() : UNKNOWN_FUNCTION;
+        String requestId = lambdaContext != null ? lambdaContext.getAwsRequestId() : null;
+        boolean hasResponseSize = metrics.getResponseSize() >= 0;
+
+        json.append("{\"_aws\":{\"Timestamp\":").append(timestamp)
+                .append(",\"CloudWatchMetrics\":[{\"Namespace\":");
+        appendString(json, namespace);
+        json.append(",\"Dimensions\":[[\"FunctionName\"]],\"Metrics\":[");
+        // phases that did not run are left out, a 0 value would skew the statistics of the metric
+        for (InvocationMetrics.Phase phase : InvocationMetrics.Phase.values()) {
+            if (metrics.hasRun(phase)) {
+                appendMetricDefinition(json, phase.getMetricName(), "Microseconds");
+                json.append(',');
+            }
+        }
+        if (hasResponseSize) {
+            appendMetricDefinition(json, "ResponseSize", "Bytes");
+            json.append(',');
+        }
+        appendMetricDefinition(json, "ColdStart", "Count");
+        json.append(',');
+        appendMetricDefinition(json, "Error", "Count");
+        json.append("]}]},\"FunctionName\":");
+        appendString(json, functionName);
+
+        if (requestId != null) {
+            json.append(",\"RequestId\":");
+            appendString(json, requestId);
+        }
+        if (metrics.getStatusCode() >= 0) {
+            json.append(",\"StatusCode\":").append(metrics.getStatusCode());
+        }
+        for (InvocationMetrics.Phase phase : InvocationMetrics.Phase.values()) {
+            if (metrics.hasRun(phase)) {
+                json.append(",\"").append(phase.getMetricName()).append("\":");
+                appendMicros(json, metrics.getDuration(phase));
+            }
+        }
+        if (hasResponseSize) {
+            json.append(",\"ResponseSize\":").append(metrics.getResponseSize());
+        }
+        json.append(",\"ColdStart\":").append(metrics.isColdStart() ? 1 : 0)
+                .append(",\"Error\":").append(metrics.isError() ? 1 : 0)
+                .append("}\n");
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private static void appendMetricDefinition(StringBuilder json, String name, String unit) {
+        json.append("{\"Name\":\"").append(name).append("\",\"Unit\":\"").append(unit).append("\"}");
+    }
+
+
+    /**
+     * Appends a duration in nanoseconds as a decimal number of microseconds without going through a double
+     */
+    private static void appendMicros(StringBuilder json, long nanos) {
+        long fraction = nanos % 1000;
+        json.append(nanos / 1000).append('.');
+        if (fraction < 100) {
+            json.append('0');
+        }
+        if (fraction < 10) {
+            json.append('0');
+        }
+        json.append(fraction);
+    }
+
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.metrics;
+
+
+/**
+ * Measurements collected by the container handler for a single invocation and passed to the {@link MetricsSink}. The
+ * handler reuses the same object for every invocation, sinks must not keep a reference to it after
+ * {@link MetricsSink#emit(InvocationMetrics, com.amazonaws.services.lambda.runtime.Context)} returns.
+ */
+public final class InvocationMetrics {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    /**
+     * The phases of the request pipeline in <code>LambdaContainerHandler</code>. The filter chain resolution happens
+     * while the request is handled, its duration is also included in {@link #HANDLE_REQUEST}.
+     */
+    public enum Phase {
+        SECURITY_CONTEXT("SecurityContextTime"),
+        READ_REQUEST("ReadRequestTime"),
+        FILTER_CHAIN("FilterChainTime"),
+        HANDLE_REQUEST("HandleRequestTime"),
+        WRITE_RESPONSE("WriteResponseTime"),
+        SERIALIZE_RESPONSE("SerializeResponseTime");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final long[] durations = new long[PHASES.length];
+    // one bit per phase ordinal, set once the phase has been measured
+    private int completedPhases;
+    private int statusCode;
+    private long responseSize;
+    private boolean coldStart;
+    private boolean error;
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    public InvocationMetrics() {
+        reset();
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Public
+    //-------------------------------------------------------------
+
+    /**
+     * Adds the time elapsed since the given start to the duration of a phase
+     * @param phase The phase that just completed
+     * @param startNanos The start of the phase, as returned by <code>System.nanoTime()</code>
+     * @return The current <code>System.nanoTime()</code>, which can be used as the start of the next phase
+     */
+    public long lap(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        durations[phase.ordinal()] += now - startNanos;
+        completedPhases |= 1 << phase.ordinal();
+        return now;
+    }
+
+
+    /**
+     * @param phase The request phase
+     * @return true if the phase ran during this invocation. Cached responses skip most phases, and the streaming and
+     *         <code>proxy</code> modes have no serialization phase
+     */
+    public boolean hasRun(Phase phase) {
+        return (completedPhases & (1 << phase.ordinal())) != 0;
+    }
+
+
+    /**
+     * @param phase The request phase
+     * @return The total duration of the phase in nanoseconds, -1 if the phase did not run
+     */
+    public long getDuration(Phase phase) {
+        return hasRun(phase) ? durations[phase.ordinal()] : -1L;
+    }
+
+
+    /**
+     * Clears all measurements so the object can be used for the next invocation
+     */
+    public void reset() {
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = 0L;
+        }
+        completedPhases = 0;
+        statusCode = -1;
+        responseSize = -1L;
+        coldStart = false;
+        error = false;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Getter/Setter
+    //-------------------------------------------------------------
+
+    /**
+     * @return The HTTP status code of the response, -1 if it is not known
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+
+    /**
+     * @return The size of the response body in bytes, -1 if it is not known
+     */
+    public long getResponseSize() {
+        return responseSize;
+    }
+
+
+    public void setResponseSize(long responseSize) {
+        this.responseSize = responseSize;
+    }
+
+
+    /**
+     * @return true if this is the first invocation handled by the JVM
+     */
+    public boolean isColdStart() {
+        return coldStart;
+    }
+
+
+    public void setColdStart(boolean coldStart) {
+        this.coldStart = coldStart;
+    }
+
+
+    /**
+     * @return true if the invocation was handled by the exception handler
+     */
+    public boolean isError() {
+        return error;
+    }
+
+
+    public void setError(boolean error) {
+        this.error = error;
+    }
+}
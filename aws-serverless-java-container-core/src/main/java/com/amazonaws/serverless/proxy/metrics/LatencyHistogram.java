@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.metrics;
+
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock-free histogram of non-negative values, normally durations in nanoseconds. Values are counted in log-linear
+ * buckets: every power of two range is split in {@value #SUB_BUCKETS} linear sub-buckets, which bounds the error of
+ * the reported percentiles to 12.5% of the value while using a fixed array of {@value #BUCKETS} counters for the full
+ * <code>long</code> range. Recording a value is a handful of atomic increments and never allocates.
+ *
+ * Percentiles are computed from a non-atomic view of the buckets, values recorded while the percentile is computed may
+ * or may not be included.
+ */
+public final class LatencyHistogram {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0L);
+
+
+    //-------------------------------------------------------------
+    // Constructors
+    //-------------------------------------------------------------
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Public
+    //-------------------------------------------------------------
+
+    /**
+     * Records a value in the histogram. Negative values, for example from a clock going backwards, are recorded as 0.
+     * @param value The value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        buckets.incrementAndGet(bucketIndex(v));
+        count.increment();
+        total.add(v);
+        max.accumulate(v);
+    }
+
+
+    /**
+     * Returns an approximation of the given percentile. The returned value is the upper bound of the bucket that
+     * contains the percentile, capped to the largest recorded value.
+     * @param percentile The percentile between 0 and 100, for example 50 for the median or 99
+     * @return The approximate value at the percentile, 0 if the histogram is empty
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long[] snapshot = new long[BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            recorded += snapshot[i];
+        }
+        if (recorded == 0) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+
+    /**
+     * @return The number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+
+    /**
+     * @return The sum of all recorded values
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+
+    /**
+     * @return The largest recorded value, 0 if the histogram is empty
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+
+    /**
+     * @return The average of the recorded values, 0 if the histogram is empty
+     */
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0.0 : (double) getTotal() / n;
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+
+    /**
+     * Clears all recorded values
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.metrics;
+
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * Thread-safe registry of the histograms and counters produced by the container. The framework implementations and the
+ * core library record the duration of each phase of a request through the
+ * {@link com.amazonaws.serverless.proxy.internal.testutils.Timer} facade, which feeds the histograms of the
+ * {@link #getDefault() default registry}.
+ *
+ * Metrics are only recorded while the registry is enabled, it is disabled by default. Recording does not allocate or
+ * lock, so the registry can be left enabled in production:
+ * <pre>
+ * MetricsRegistry.getDefault().enable();
+ * ...
+ * LatencyHistogram handle = MetricsRegistry.getDefault().histogram("SPRING_HANDLE_REQUEST");
+ * log.info("p99 " + handle.getPercentile(99) + "ns over " + handle.getCount() + " requests");
+ * </pre>
+ */
+public final class MetricsRegistry {
+
+    //-------------------------------------------------------------
+    // Variables - Private - Static
+    //-------------------------------------------------------------
+
+    private static final MetricsRegistry defaultRegistry = new MetricsRegistry();
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private volatile boolean enabled = false;
+
+
+    //-------------------------------------------------------------
+    // Methods - Public - Static
+    //-------------------------------------------------------------
+
+    /**
+     * @return The registry used by the container handlers and the <code>Timer</code>
+     */
+    public static MetricsRegistry getDefault() {
+        return defaultRegistry;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Public
+    //-------------------------------------------------------------
+
+    /**
+     * Returns the histogram with the given name, creating it the first time it is requested. Callers on a hot path
+     * should keep a reference to the histogram, it is never replaced by the registry.
+     * @param name The name of the histogram
+     * @return The histogram registered with the name
+     */
+    public LatencyHistogram histogram(String name) {
+        // avoid the bin lock computeIfAbsent takes even when the key is present
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, LatencyHistogram::new);
+        }
+        return histogram;
+    }
+
+
+    /**
+     * Returns the counter with the given name, creating it the first time it is requested. Callers on a hot path
+     * should keep a reference to the counter, it is never replaced by the registry.
+     * @param name The name of the counter
+     * @return The counter registered with the name
+     */
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(name, Counter::new);
+        }
+        return counter;
+    }
+
+
+    /**
+     * @return A read-only view of the registered histograms by name
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+
+    /**
+     * @return A read-only view of the registered counters by name
+     */
+    public Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+
+    /**
+     * Clears the values of all histograms and counters. The metrics stay registered, references held by callers remain
+     * valid.
+     */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(Counter::reset);
+    }
+
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    public void enable() {
+        enabled = true;
+    }
+
+
+    public void disable() {
+        enabled = false;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.metrics;
+
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+
+/**
+ * Receives the measurements of each invocation at the end of the request. You can set the sink using the
+ * {@link com.amazonaws.serverless.proxy.internal.LambdaContainerHandler#setMetricsSink(MetricsSink)} method. When no
+ * sink is set the container handler does not collect per-invocation metrics.
+ */
+public interface MetricsSink {
+    /**
+     * Called once the response has been written and serialized. Implementations should not throw, the sink runs after
+     * the response was produced and an exception cannot change it anymore.
+     * @param metrics The measurements for the invocation, only valid for the duration of the call
+     * @param lambdaContext The Lambda context for the invocation
+     */
+    void emit(InvocationMetrics metrics, Context lambdaContext);
+}
@@ -15,6 +15,7 @@ package com.amazonaws.serverless.proxy.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -114,6 +115,7 @@ public class AwsProxyRequest {
     }
 
 
+    @JsonDeserialize(using = MultiValuedTreeMap.StringValuesDeserializer.class)
     public void setMultiValueQueryStringParameters(
             MultiValuedTreeMap<String, String> multiValueQueryStringParameters) {
         this.multiValueQueryStringParameters = multiValueQueryStringParameters;
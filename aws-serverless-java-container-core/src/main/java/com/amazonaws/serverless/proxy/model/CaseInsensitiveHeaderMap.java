@@ -0,0 +1,454 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package com.amazonaws.serverless.proxy.model;
+
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+
+/**
+ * Storage for {@link Headers}: a map with case-insensitive <code>String</code> keys that uses open addressing instead of
+ * the red-black tree of a <code>TreeMap</code>. Entries are kept in flat arrays in insertion order, together with the
+ * hash of the lower case key, and a separate table of entry positions is probed linearly. A lookup hashes the name
+ * once and compares it ignoring case only with entries that have the same hash.
+ *
+ * Keys are compared with the same rules as <code>String.CASE_INSENSITIVE_ORDER</code>, the spelling of the key that
+ * was stored first is kept. Iteration follows insertion order. Removing an entry compacts the arrays, which is linear
+ * in the number of headers; headers are rarely removed.
+ */
+final class CaseInsensitiveHeaderMap extends AbstractMap<String, List<String>> implements Serializable {
+
+    //-------------------------------------------------------------
+    // Constants
+    //-------------------------------------------------------------
+
+    private static final long serialVersionUID = 42L;
+
+    // the position table starts with room for 8 entries, most requests and responses have fewer headers
+    private static final int INITIAL_TABLE_SIZE = 16;
+
+
+    //-------------------------------------------------------------
+    // Variables - Private
+    //-------------------------------------------------------------
+
+    private String[] keys;
+    private int[] hashes;
+    private List<String>[] values;
+    private int size;
+    // positions in the entry arrays plus one, 0 marks an empty slot. Never more than half full
+    private int[] table;
+
+    private transient Set<Map.Entry<String, List<String>>> entrySet;
+
+
+    //-------------------------------------------------------------
+    // Implementation - Map
+    //-------------------------------------------------------------
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+
+    @Override
+    public List<String> get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+
+    @Override
+    public List<String> put(String key, List<String> value) {
+        if (key == null) {
+            throw new NullPointerException("Header names cannot be null");
+        }
+        int hash = hash(key);
+        int index = find(key, hash);
+        if (index >= 0) {
+            List<String> previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        append(key, hash, value);
+        return null;
+    }
+
+
+    @Override
+    public List<String> remove(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        List<String> previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+
+
+    @Override
+    public void clear() {
+        size = 0;
+        keys = null;
+        hashes = null;
+        values = null;
+        table = null;
+    }
+
+
+    @Override
+    public Set<Map.Entry<String, List<String>>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Package
+    //-------------------------------------------------------------
+
+    /**
+     * Computes the hash of a header name as if all of its characters were lower case. ASCII characters, which is what
+     * header names are made of, are folded without calling into <code>Character</code>.
+     * @param key The header name
+     * @return A hash that is the same for all spellings of the name
+     */
+    static int hash(String key) {
+        int hash = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            } else if (c >= 0x80) {
+                // same folding as String.CASE_INSENSITIVE_ORDER
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+            hash = 31 * hash + c;
+        }
+        return hash;
+    }
+
+
+    //-------------------------------------------------------------
+    // Methods - Private
+    //-------------------------------------------------------------
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String) || size == 0) {
+            return -1;
+        }
+        String name = (String) key;
+        return find(name, hash(name));
+    }
+
+
+    private int find(String key, int hash) {
+        if (table == null) {
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+            if (hashes[index] == hash && keys[index].equalsIgnoreCase(key)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private void append(String key, int hash, List<String> value) {
+        if (table == null) {
+            table = new int[INITIAL_TABLE_SIZE];
+            keys = new String[INITIAL_TABLE_SIZE / 2];
+            hashes = new int[INITIAL_TABLE_SIZE / 2];
+            values = new List[INITIAL_TABLE_SIZE / 2];
+        } else if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            table = new int[table.length * 2];
+            for (int i = 0; i < size; i++) {
+                insert(hashes[i], i);
+            }
+        }
+        keys[size] = key;
+        hashes[size] = hash;
+        values[size] = value;
+        insert(hash, size);
+        size++;
+    }
+
+
+    private void insert(int hash, int index) {
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+
+    private void removeAt(int index) {
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(hashes, index + 1, hashes, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+        }
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        // positions after the removed entry shifted, rebuild the table rather than patching it
+        Arrays.fill(table, 0);
+        for (int i = 0; i < size; i++) {
+            insert(hashes[i], i);
+        }
+    }
+
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+
+    //-------------------------------------------------------------
+    // Inner Class - EntrySet
+    //-------------------------------------------------------------
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, List<String>>> {
+        @Override
+        public Iterator<Map.Entry<String, List<String>>> iterator() {
+            return new Iterator<Map.Entry<String, List<String>>>() {
+                private int next;
+                private int last = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Map.Entry<String, List<String>> next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next++;
+                    return new Entry(last);
+                }
+
+                @Override
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    removeAt(last);
+                    next = last;
+                    last = -1;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            CaseInsensitiveHeaderMap.this.clear();
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Inner Class - Entry
+    //-------------------------------------------------------------
+
+    private final class Entry implements Map.Entry<String, List<String>> {
+        private final String key;
+        private final int index;
+
+        private Entry(int index) {
+            this.key = keys[index];
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public List<String> getValue() {
+            return values[index];
+        }
+
+        @Override
+        public List<String> setValue(List<String> value) {
+            List<String> previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return key.equals(other.getKey())
+                    && (getValue() == null ? other.getValue() == null : getValue().equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ (getValue() == null ? 0 : getValue().hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+
+    //-------------------------------------------------------------
+    // Inner Class - Values
+    //-------------------------------------------------------------
+
+    /**
+     * The values of a header. The first value is stored inline, which covers almost every header, further values go
+     * in a flat array.
+     */
+    static final class Values extends AbstractList<String> implements RandomAccess, Serializable {
+        private static final long serialVersionUID = 42L;
+
+        private String first;
+        // the values after the first one
+        private String[] more;
+        private int size;
+
+        @Override
+        public String get(int index) {
+            checkIndex(index, size);
+            return index == 0 ? first : more[index - 1];
+        }
+
+        @Override
+        public String set(int index, String value) {
+            checkIndex(index, size);
+            String previous;
+            if (index == 0) {
+                previous = first;
+                first = value;
+            } else {
+                previous = more[index - 1];
+                more[index - 1] = value;
+            }
+            return previous;
+        }
+
+        @Override
+        public void add(int index, String value) {
+            checkIndex(index, size + 1);
+            modCount++;
+            if (size == 0) {
+                first = value;
+                size = 1;
+                return;
+            }
+            if (more == null) {
+                more = new String[2];
+            } else if (size - 1 == more.length) {
+                more = Arrays.copyOf(more, more.length * 2);
+            }
+            if (index == 0) {
+                System.arraycopy(more, 0, more, 1, size - 1);
+                more[0] = first;
+                first = value;
+            } else {
+                System.arraycopy(more, index - 1, more, index, size - index);
+                more[index - 1] = value;
+            }
+            size++;
+        }
+
+        @Override
+        public String remove(int index) {
+            checkIndex(index, size);
+            modCount++;
+            String previous = get(index);
+            if (index == 0) {
+                first = size > 1 ? more[0] : null;
+                if (size > 1) {
+                    System.arraycopy(more, 1, more, 0, size - 2);
+                }
+            } else {
+                System.arraycopy(more, index, more, index - 1, size - index - 1);
+            }
+            if (size > 1) {
+                more[size - 2] = null;
+            }
+            size--;
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            modCount++;
+            first = null;
+            more = null;
+            size = 0;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private static void checkIndex(int index, int limit) {
+            if (index < 0 || index >= limit) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+        }
+    }
+}
@@ -16,8 +16,10 @@ import com.amazonaws.serverless.proxy.internal.servlet.AwsProxyHttpServletReques
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Configuration parameters for the framework
@@ -27,6 +29,11 @@ public class ContainerConfig {
     public static final String DEFAULT_CONTENT_CHARSET = "ISO-8859-1";
     private static final List<String> DEFAULT_FILE_PATHS = new ArrayList<String>() {{ add("/tmp"); add("/var/task"); }};
     private static final int MAX_INIT_TIMEOUT_MS = 20_000;
+    public static final int DEFAULT_RESPONSE_BUFFER_INITIAL_CAPACITY = 1024;
+    public static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
+    public static final int DEFAULT_FILTER_CHAIN_CACHE_SIZE = 512;
+    public static final int DEFAULT_MAX_FORM_PARAMETERS = 1000;
+    public static final int DEFAULT_MAX_FORM_PARAMETER_SIZE = 2 * 1024 * 1024;
 
     public static ContainerConfig defaultConfig() {
         ContainerConfig configuration = new ContainerConfig();
@@ -40,6 +47,17 @@ public class ContainerConfig {
         configuration.setDefaultContentCharset(DEFAULT_CONTENT_CHARSET);
         configuration.setInitializationTimeout(MAX_INIT_TIMEOUT_MS);
         configuration.setDisableExceptionMapper(false);
+        configuration.setStreamResponse(false);
+        configuration.setResponseBufferInitialCapacity(DEFAULT_RESPONSE_BUFFER_INITIAL_CAPACITY);
+        configuration.setRecycleRequestObjects(false);
+        configuration.setCompressResponses(false);
+        configuration.setCompressionMinSize(DEFAULT_COMPRESSION_MIN_SIZE);
+        configuration.setGenerateETags(false);
+        configuration.setFilterChainCacheSize(DEFAULT_FILTER_CHAIN_CACHE_SIZE);
+        configuration.setMaxFormParameters(DEFAULT_MAX_FORM_PARAMETERS);
+        configuration.setMaxFormParameterSize(DEFAULT_MAX_FORM_PARAMETER_SIZE);
+        configuration.addCompressibleContentTypes("text/html", "text/plain", "text/css", "text/csv", "text/xml",
+                "text/javascript", "application/json", "application/javascript", "application/xml", "image/svg+xml");
 
         return configuration;
     }
@@ -60,11 +78,29 @@ public class ContainerConfig {
     private final HashSet<String> binaryContentTypes;
     private int initializationTimeout;
     private boolean disableExceptionMapper;
+    private boolean streamResponse;
+    private int responseBufferInitialCapacity;
+    private boolean recycleRequestObjects;
+    private boolean compressResponses;
+    private int compressionMinSize;
+    private final HashSet<String> compressibleContentTypes;
+    private boolean generateETags;
+    private final HashMap<String, String> mimeTypes;
+    private int filterChainCacheSize;
+    private int maxFormParameters;
+    private int maxFormParameterSize;
 
     public ContainerConfig() {
         validFilePaths = new ArrayList<>();
         customDomainNames = new ArrayList<>();
         binaryContentTypes = new HashSet<>();
+        responseBufferInitialCapacity = DEFAULT_RESPONSE_BUFFER_INITIAL_CAPACITY;
+        compressionMinSize = DEFAULT_COMPRESSION_MIN_SIZE;
+        compressibleContentTypes = new HashSet<>();
+        mimeTypes = new HashMap<>();
+        filterChainCacheSize = DEFAULT_FILTER_CHAIN_CACHE_SIZE;
+        maxFormParameters = DEFAULT_MAX_FORM_PARAMETERS;
+        maxFormParameterSize = DEFAULT_MAX_FORM_PARAMETER_SIZE;
     }
 
 
@@ -328,4 +364,255 @@ public class ContainerConfig {
     public void setDisableExceptionMapper(boolean disable) {
         this.disableExceptionMapper = disable;
     }
+
+    /**
+     * Whether the <code>proxyStream</code> method of the container handler writes the response directly to the Lambda
+     * output stream. See {@link #setStreamResponse(boolean)} for details.
+     * @return <code>true</code> if responses are streamed, <code>false</code> otherwise.
+     */
+    public boolean isStreamResponse() {
+        return streamResponse;
+    }
+
+    /**
+     * Tells the container handler to serialize responses straight from the container response object to the Lambda
+     * output stream when handling events with the <code>proxyStream</code> method. This skips the intermediate
+     * response object, saving a copy of the headers and body. Streaming only applies when the configured
+     * {@link com.amazonaws.serverless.proxy.ResponseWriter} extends {@link com.amazonaws.serverless.proxy.StreamingResponseWriter}.
+     * By default, this is set to <code>false</code>.
+     * @param stream Set this value to <code>true</code> to stream responses, <code>false</code> otherwise.
+     */
+    public void setStreamResponse(boolean stream) {
+        this.streamResponse = stream;
+    }
+
+
+    /**
+     * Returns the size in bytes of the first segment allocated by a response body buffer
+     * @return The initial capacity of response body buffers
+     */
+    public int getResponseBufferInitialCapacity() {
+        return responseBufferInitialCapacity;
+    }
+
+
+    /**
+     * Sets the size in bytes of the first segment allocated by a response body buffer. Each following segment doubles in
+     * size, set this close to the size of a typical response to avoid growing the buffer. Defaults to
+     * {@value #DEFAULT_RESPONSE_BUFFER_INITIAL_CAPACITY}.
+     * @param capacity The initial capacity of response body buffers
+     */
+    public void setResponseBufferInitialCapacity(int capacity) {
+        responseBufferInitialCapacity = capacity;
+    }
+
+
+    /**
+     * Whether the container reuses request and response objects across events. See
+     * {@link #setRecycleRequestObjects(boolean)} for details.
+     * @return <code>true</code> if request and response objects are recycled, <code>false</code> otherwise
+     */
+    public boolean isRecycleRequestObjects() {
+        return recycleRequestObjects;
+    }
+
+
+    /**
+     * Tells the request readers and servlet container handlers to keep one servlet request and response object per
+     * handler and reset them between events instead of allocating new ones. Lambda only sends one event at a time to a
+     * container so the objects are never shared, requests that started an async context are never reused. Applications
+     * must not keep references to the request or response objects after an event is handled.
+     * By default, this is set to <code>false</code>.
+     * @param recycle Set this value to <code>true</code> to recycle request and response objects, <code>false</code> otherwise.
+     */
+    public void setRecycleRequestObjects(boolean recycle) {
+        this.recycleRequestObjects = recycle;
+    }
+
+
+    /**
+     * Whether the response writer compresses response bodies for clients that accept it. See
+     * {@link #setCompressResponses(boolean)} for details.
+     * @return <code>true</code> if responses can be compressed, <code>false</code> otherwise
+     */
+    public boolean isCompressResponses() {
+        return compressResponses;
+    }
+
+
+    /**
+     * Tells the response writer to compress response bodies with gzip or deflate, based on the <code>Accept-Encoding</code>
+     * header of the request. Only responses with a compressible content type, see {@link #addCompressibleContentTypes(String...)},
+     * and a body of at least {@link #getCompressionMinSize()} bytes are compressed. Compressed bodies are always returned
+     * base64 encoded, the API Gateway or ALB integration must be configured to decode binary responses for the client
+     * to receive the compressed bytes. By default, this is set to <code>false</code>.
+     * @param compress Set this value to <code>true</code> to compress responses, <code>false</code> otherwise.
+     */
+    public void setCompressResponses(boolean compress) {
+        this.compressResponses = compress;
+    }
+
+
+    /**
+     * Returns the minimum size in bytes of a response body for it to be compressed
+     * @return The minimum body size for compression
+     */
+    public int getCompressionMinSize() {
+        return compressionMinSize;
+    }
+
+
+    /**
+     * Sets the minimum size in bytes of a response body for it to be compressed. Small bodies do not get much smaller
+     * and the base64 encoding of the compressed bytes adds a third to their size. Defaults to
+     * {@value #DEFAULT_COMPRESSION_MIN_SIZE}.
+     * @param size The minimum body size for compression
+     */
+    public void setCompressionMinSize(int size) {
+        this.compressionMinSize = size;
+    }
+
+
+    /**
+     * Configure specified content type(s) as compressible
+     * @param contentTypes list of exact content types that can be compressed
+     */
+    public void addCompressibleContentTypes(String... contentTypes) {
+        if (contentTypes != null) {
+            compressibleContentTypes.addAll(Arrays.asList(contentTypes));
+        }
+    }
+
+
+    /**
+     * Determine if specified content type has been configured as compressible
+     * @param contentType content type to query, without parameters
+     * @return <code>true</code> if responses of this type can be compressed
+     */
+    public boolean isCompressibleContentType(String contentType) {
+        return contentType != null && compressibleContentTypes.contains(contentType.trim());
+    }
+
+
+    /**
+     * Whether the response writer generates entity tags for responses. See {@link #setGenerateETags(boolean)} for
+     * details.
+     * @return <code>true</code> if entity tags are generated, <code>false</code> otherwise
+     */
+    public boolean isGenerateETags() {
+        return generateETags;
+    }
+
+
+    /**
+     * Tells the response writer to hash the body of successful <code>GET</code> and <code>HEAD</code> responses and
+     * return the hash as a strong <code>ETag</code> header, unless the application set its own. When the
+     * <code>If-None-Match</code> header of the request matches the tag the writer returns a <code>304 Not Modified</code>
+     * response without a body instead. The application still handles the request in full, this only saves the cost of
+     * serializing and transferring the body. By default, this is set to <code>false</code>.
+     * @param generate Set this value to <code>true</code> to generate entity tags, <code>false</code> otherwise.
+     */
+    public void setGenerateETags(boolean generate) {
+        this.generateETags = generate;
+    }
+
+
+    /**
+     * Registers the MIME type returned by <code>ServletContext.getMimeType</code> for files with the given extension.
+     * The servlet context uses a built-in table of common types, types registered here take precedence over it.
+     * @param extension The file extension without the leading dot, for example <code>webmanifest</code>. Extensions
+     *                  are case insensitive
+     * @param mimeType The MIME type for the extension
+     */
+    public void addMimeType(String extension, String mimeType) {
+        if (extension != null && mimeType != null) {
+            mimeTypes.put(extension.toLowerCase(Locale.ENGLISH), mimeType);
+        }
+    }
+
+
+    /**
+     * Removes the MIME type registered for a file extension with {@link #addMimeType(String, String)}. The servlet
+     * context falls back to its built-in table for the extension.
+     * @param extension The file extension without the leading dot
+     */
+    public void removeMimeType(String extension) {
+        if (extension != null) {
+            mimeTypes.remove(extension.toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+
+    /**
+     * Returns the MIME type registered for a file extension with {@link #addMimeType(String, String)}
+     * @param extension The file extension without the leading dot
+     * @return The registered MIME type, null if no type was registered for the extension
+     */
+    public String getCustomMimeType(String extension) {
+        if (extension == null || mimeTypes.isEmpty()) {
+            return null;
+        }
+        return mimeTypes.get(extension.toLowerCase(Locale.ENGLISH));
+    }
+
+
+    /**
+     * Returns the maximum number of request paths for which the filter chain manager caches the resolved filter chain
+     * @return The size of the filter chain cache
+     */
+    public int getFilterChainCacheSize() {
+        return filterChainCacheSize;
+    }
+
+
+    /**
+     * Sets the maximum number of request paths for which the filter chain manager caches the resolved filter chain.
+     * When the cache is full the least recently used path is evicted. Paths that resolve to the same filters share the
+     * same chain, so each entry only costs the key. Values below 1 disable the cache. Defaults to
+     * {@value #DEFAULT_FILTER_CHAIN_CACHE_SIZE}.
+     * @param size The maximum number of cached paths
+     */
+    public void setFilterChainCacheSize(int size) {
+        filterChainCacheSize = size;
+    }
+
+
+    /**
+     * Returns the maximum number of parameters read from an <code>application/x-www-form-urlencoded</code> body
+     * @return The maximum number of form parameters
+     */
+    public int getMaxFormParameters() {
+        return maxFormParameters;
+    }
+
+
+    /**
+     * Sets the maximum number of parameters read from an <code>application/x-www-form-urlencoded</code> body. The
+     * parameters after the limit are ignored and a warning is logged. Values below 1 disable the limit. Defaults to
+     * {@value #DEFAULT_MAX_FORM_PARAMETERS}.
+     * @param maxParameters The maximum number of form parameters
+     */
+    public void setMaxFormParameters(int maxParameters) {
+        maxFormParameters = maxParameters;
+    }
+
+
+    /**
+     * Returns the maximum size in bytes of a single encoded <code>name=value</code> pair in a url encoded form body
+     * @return The maximum size of a form parameter
+     */
+    public int getMaxFormParameterSize() {
+        return maxFormParameterSize;
+    }
+
+
+    /**
+     * Sets the maximum size in bytes of a single encoded <code>name=value</code> pair in a url encoded form body.
+     * Larger parameters are skipped and a warning is logged. Values below 1 disable the limit. Defaults to
+     * {@value #DEFAULT_MAX_FORM_PARAMETER_SIZE}.
+     * @param size The maximum size of a form parameter, in bytes
+     */
+    public void setMaxFormParameterSize(int size) {
+        maxFormParameterSize = size;
+    }
 }
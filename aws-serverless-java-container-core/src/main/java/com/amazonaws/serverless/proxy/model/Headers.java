@@ -12,11 +12,49 @@
  */
 package com.amazonaws.serverless.proxy.model;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Case-insensitive multi valued map for request and response headers. Keys are stored in an open addressing hash
+ * table rather than a tree, see {@link CaseInsensitiveHeaderMap}, and the values of a header keep the first value
+ * inline. Names match ignoring case like <code>String.CASE_INSENSITIVE_ORDER</code> and are iterated in the order
+ * they were added.
+ */
+@JsonDeserialize(using = Headers.HeadersDeserializer.class)
 public class Headers extends MultiValuedTreeMap<String, String> {
 
     private static final long serialVersionUID = 42L;
 
     public Headers() {
-        super(String.CASE_INSENSITIVE_ORDER);
+        super(new CaseInsensitiveHeaderMap());
+    }
+
+    @Override
+    protected List<String> createValueList() {
+        return new CaseInsensitiveHeaderMap.Values();
+    }
+
+    /**
+     * Reads the multi value headers object from the event directly from the parser tokens into a new
+     * <code>Headers</code> object.
+     */
+    public static class HeadersDeserializer extends StdDeserializer<Headers> {
+        private static final long serialVersionUID = 42L;
+
+        public HeadersDeserializer() {
+            super(Headers.class);
+        }
+
+        @Override
+        public Headers deserialize(JsonParser jsonParser, DeserializationContext deserializationContext)
+                throws IOException {
+            return readStringValues(jsonParser, deserializationContext, new Headers());
+        }
     }
 }
@@ -12,10 +12,15 @@
  */
 package com.amazonaws.serverless.proxy.model;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import javax.ws.rs.core.MultivaluedMap;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -46,6 +51,14 @@ public class MultiValuedTreeMap<Key, Value> implements MultivaluedMap<Key, Value
         map = new TreeMap<>(comparator);
     }
 
+    /**
+     * Creates a multi valued map on top of the given storage, subclasses use this to replace the tree map
+     * @param map The map that holds the keys and value lists
+     */
+    protected MultiValuedTreeMap(Map<Key, List<Value>> map) {
+        this.map = map;
+    }
+
     @Override
     public void add(Key key, Value value) {
         List<Value> values = findKey(key);
@@ -183,10 +196,18 @@ public class MultiValuedTreeMap<Key, Value> implements MultivaluedMap<Key, Value
         return true;
     }
 
+    /**
+     * Creates the list that holds the values of a new key
+     * @return An empty, mutable list
+     */
+    protected List<Value> createValueList() {
+        return new ArrayList<>();
+    }
+
     private List<Value> findKey(Key key) {
         List<Value> values = this.get(key);
         if (values == null) {
-            values = new ArrayList<>();
+            values = createValueList();
             put(key, values);
         }
         return values;
@@ -223,4 +244,67 @@ public class MultiValuedTreeMap<Key, Value> implements MultivaluedMap<Key, Value
         }
         return "[" + result.toString() + "]";
     }
+
+    /**
+     * Reads a JSON object of string arrays, the format API Gateway and ALB use for multi value headers and query
+     * string parameters, straight from the parser tokens into the given map. This skips the generic map and collection
+     * deserializers Jackson would otherwise use and does not allocate intermediate containers. Scalar values are
+     * accepted as single-value lists.
+     * @param p The parser, positioned on the <code>START_OBJECT</code> token or the first field name
+     * @param ctx The current deserialization context
+     * @param target The map to populate
+     * @param <T> The type of the map
+     * @return The populated map
+     * @throws IOException If the parser encounters malformed content or the token structure is not an object of arrays
+     */
+    static <T extends MultiValuedTreeMap<String, String>> T readStringValues(JsonParser p, DeserializationContext ctx, T target)
+            throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String key = p.getCurrentName();
+            token = p.nextToken();
+            List<String> values = target.createValueList();
+            if (token == JsonToken.START_ARRAY) {
+                for (token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken()) {
+                    if (token == null || !token.isScalarValue()) {
+                        // nested objects and arrays are not valid values
+                        return ctx.reportInputMismatch(target.getClass(), "Unexpected token (%s) in the values of \"%s\", expected a scalar value", token, key);
+                    }
+                    values.add(token == JsonToken.VALUE_NULL ? null : p.getValueAsString());
+                }
+            } else if (token == JsonToken.VALUE_NULL) {
+                continue;
+            } else if (token.isScalarValue()) {
+                values.add(p.getValueAsString());
+            } else {
+                return ctx.reportInputMismatch(target.getClass(), "Unexpected token (%s) for \"%s\", expected an array or a scalar value", token, key);
+            }
+            target.put(key, values);
+        }
+        if (token != JsonToken.END_OBJECT) {
+            return ctx.reportInputMismatch(target.getClass(), "Unexpected token (%s), expected a field name", token);
+        }
+        return target;
+    }
+
+    /**
+     * Streaming deserializer for <code>MultiValuedTreeMap&lt;String, String&gt;</code> properties such as the
+     * multi value query string parameters in the proxy events.
+     */
+    public static class StringValuesDeserializer extends StdDeserializer<MultiValuedTreeMap<String, String>> {
+        private static final long serialVersionUID = 42L;
+
+        public StringValuesDeserializer() {
+            super(MultiValuedTreeMap.class);
+        }
+
+        @Override
+        public MultiValuedTreeMap<String, String> deserialize(JsonParser jsonParser, DeserializationContext deserializationContext)
+                throws IOException {
+            return readStringValues(jsonParser, deserializationContext, new MultiValuedTreeMap<>());
+        }
+    }
 }
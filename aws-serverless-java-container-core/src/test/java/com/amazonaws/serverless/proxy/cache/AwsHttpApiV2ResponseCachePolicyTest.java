@@ -0,0 +1,83 @@
+package com.amazonaws.serverless.proxy.cache;
+
+
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.model.HttpApiV2AuthorizerMap;
+import com.amazonaws.serverless.proxy.model.HttpApiV2JwtAuthorizer;
+import com.amazonaws.serverless.proxy.model.HttpApiV2ProxyRequest;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+
+public class AwsHttpApiV2ResponseCachePolicyTest {
+    private final AwsHttpApiV2ResponseCachePolicy policy = new AwsHttpApiV2ResponseCachePolicy("Accept");
+
+    @Test
+    public void getCacheKey_jwtSubject_keyedOnSubject() {
+        String alice = policy.getCacheKey(jwtRequest("alice"));
+        String bob = policy.getCacheKey(jwtRequest("bob"));
+        assertNotNull(alice);
+        assertNotEquals(alice, bob);
+        assertEquals(alice, policy.getCacheKey(jwtRequest("alice")));
+        assertNotEquals(alice, policy.getCacheKey(request("/pets", null)));
+    }
+
+    @Test
+    public void getCacheKey_jwtWithoutSubjectOrOtherAuthorizer_returnsNull() {
+        assertNull(policy.getCacheKey(jwtRequest(null)));
+
+        HttpApiV2ProxyRequest lambdaAuthorizer = request("/pets", null);
+        HttpApiV2AuthorizerMap authorizer = new HttpApiV2AuthorizerMap();
+        authorizer.put("lambda", Collections.singletonMap("tenant", "1"));
+        lambdaAuthorizer.getRequestContext().setAuthorizer(authorizer);
+        assertNull(policy.getCacheKey(lambdaAuthorizer));
+    }
+
+    @Test
+    public void getCacheKey_cookiesField_requiresCookieVaryHeader() {
+        HttpApiV2ProxyRequest request = request("/pets", null);
+        request.setCookies(Collections.singletonList("session=1"));
+        assertNull(policy.getCacheKey(request));
+
+        AwsHttpApiV2ResponseCachePolicy cookiePolicy = new AwsHttpApiV2ResponseCachePolicy("Cookie");
+        String key = cookiePolicy.getCacheKey(request);
+        assertNotNull(key);
+        request.setCookies(Collections.singletonList("session=2"));
+        assertNotEquals(key, cookiePolicy.getCacheKey(request));
+    }
+
+    @Test
+    public void getCacheKey_rawQueryString_keyedOnEncodedQuery() {
+        String encoded = policy.getCacheKey(request("/pets", "a=1%26b%3D2"));
+        String separate = policy.getCacheKey(request("/pets", "a=1&b=2"));
+        assertNotNull(encoded);
+        assertNotEquals(encoded, separate);
+        assertNotEquals(policy.getCacheKey(request("/pets%3Fa=1", null)), policy.getCacheKey(request("/pets", "a=1")));
+        assertEquals(policy.getCacheKey(request("/pets", null)), policy.getCacheKey(request("/pets", "")));
+    }
+
+    private static HttpApiV2ProxyRequest request(String rawPath, String rawQueryString) {
+        HttpApiV2ProxyRequest request = new AwsProxyRequestBuilder("/pets", "GET").toHttpApiV2Request();
+        request.setRawPath(rawPath);
+        request.setRawQueryString(rawQueryString);
+        return request;
+    }
+
+    private static HttpApiV2ProxyRequest jwtRequest(String subject) {
+        HttpApiV2ProxyRequest request = request("/pets", null);
+        HttpApiV2JwtAuthorizer jwt = new HttpApiV2JwtAuthorizer();
+        jwt.setClaims(new HashMap<>());
+        if (subject != null) {
+            jwt.getClaims().put("sub", subject);
+        }
+        HttpApiV2AuthorizerMap authorizer = new HttpApiV2AuthorizerMap();
+        authorizer.putJwtAuthorizer(jwt);
+        request.getRequestContext().setAuthorizer(authorizer);
+        return request;
+    }
+}
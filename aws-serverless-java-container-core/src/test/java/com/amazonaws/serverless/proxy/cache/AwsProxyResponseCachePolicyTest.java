@@ -0,0 +1,101 @@
+package com.amazonaws.serverless.proxy.cache;
+
+
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.serverless.proxy.model.Headers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class AwsProxyResponseCachePolicyTest {
+    private final AwsProxyResponseCachePolicy policy = new AwsProxyResponseCachePolicy("Accept");
+
+    @Test
+    public void getCacheKey_sameRequest_sameKey() {
+        String key = policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").queryString("limit", "10").header("Accept", "application/json").build());
+        assertNotNull(key);
+        assertEquals(key, policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").queryString("limit", "10").header("Accept", "application/json").build()));
+    }
+
+    @Test
+    public void getCacheKey_differentQueryOrVaryHeader_differentKey() {
+        String key = policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").queryString("limit", "10").build());
+        assertNotEquals(key, policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").queryString("limit", "20").build()));
+        assertNotEquals(key, policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").queryString("limit", "10").header("Accept", "text/xml").build()));
+        // headers that are not part of the key do not change it
+        assertEquals(key, policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").queryString("limit", "10").header("X-Trace", "1").build()));
+    }
+
+    @Test
+    public void getCacheKey_separatorsInDecodedValues_differentKey() {
+        // ?a=1%26b%3D2 and ?a=1&b=2 are decoded to different parameters that join to the same text
+        String encoded = policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").queryString("a", "1&b=2").build());
+        String separate = policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").queryString("a", "1").queryString("b", "2").build());
+        assertNotNull(encoded);
+        assertNotEquals(encoded, separate);
+
+        // an encoded question mark in the path is not a query string
+        String path = policy.getCacheKey(new AwsProxyRequestBuilder("/pets?limit=10", "GET").build());
+        String query = policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").queryString("limit", "10").build());
+        assertNotNull(path);
+        assertNotEquals(path, query);
+    }
+
+    @Test
+    public void getCacheKey_differentPrincipal_differentKey() {
+        String alice = policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").authorizerPrincipal("alice").build());
+        String bob = policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").authorizerPrincipal("bob").build());
+        assertNotNull(alice);
+        assertNotEquals(alice, bob);
+        assertNotEquals(alice, policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").build()));
+    }
+
+    @Test
+    public void getCacheKey_notCacheableRequests_returnsNull() {
+        assertNull(policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "POST").build()));
+        assertNull(policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").header("Authorization", "Bearer abc").build()));
+        assertNull(policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").header("Cookie", "session=1").build()));
+        assertNull(policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").header("Cache-Control", "no-cache").build()));
+        assertNull(policy.getCacheKey(new AwsProxyRequestBuilder("/pets", "GET").authorizerContextValue("tenant", "1").build()));
+    }
+
+    @Test
+    public void getTimeToLive_cacheControl_honorsDirectives() {
+        AwsProxyRequest request = new AwsProxyRequestBuilder("/pets", "GET").build();
+        assertEquals(60_000, policy.getTimeToLive(request, response(200, "Cache-Control", "public, max-age=60")));
+        assertEquals(10_000, policy.getTimeToLive(request, response(200, "Cache-Control", "max-age=60, s-maxage=10")));
+        assertEquals(0, policy.getTimeToLive(request, response(200, "Cache-Control", "no-store")));
+        assertEquals(0, policy.getTimeToLive(request, response(200, "Cache-Control", "private, max-age=60")));
+        assertEquals(0, policy.getTimeToLive(request, response(200, null, null)));
+        assertEquals(0, policy.getTimeToLive(request, response(404, "Cache-Control", "max-age=60")));
+
+        policy.setDefaultTimeToLive(5000);
+        assertEquals(5000, policy.getTimeToLive(request, response(200, null, null)));
+    }
+
+    @Test
+    public void getTimeToLive_cookiesOrUnknownVary_notCached() {
+        AwsProxyRequest request = new AwsProxyRequestBuilder("/pets", "GET").build();
+        AwsProxyResponse cookie = response(200, "Cache-Control", "max-age=60");
+        cookie.getMultiValueHeaders().add("Set-Cookie", "session=1");
+        assertEquals(0, policy.getTimeToLive(request, cookie));
+
+        AwsProxyResponse vary = response(200, "Cache-Control", "max-age=60");
+        vary.getMultiValueHeaders().add("Vary", "Accept");
+        assertEquals(60_000, policy.getTimeToLive(request, vary));
+        vary.getMultiValueHeaders().add("Vary", "Accept-Language");
+        assertEquals(0, policy.getTimeToLive(request, vary));
+    }
+
+    private static AwsProxyResponse response(int status, String header, String value) {
+        Headers headers = new Headers();
+        if (header != null) {
+            headers.add(header, value);
+        }
+        return new AwsProxyResponse(status, headers, "body");
+    }
+}
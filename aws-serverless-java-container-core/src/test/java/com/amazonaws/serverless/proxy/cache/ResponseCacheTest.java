@@ -0,0 +1,79 @@
+package com.amazonaws.serverless.proxy.cache;
+
+
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+
+public class ResponseCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final ResponseCache<AwsProxyRequest, AwsProxyResponse> cache =
+            new ResponseCache<>(new AwsProxyResponseCachePolicy(), 3, 100, now::get);
+
+    @Test
+    public void get_storedEntry_returnsValueUntilExpired() {
+        CachedResponse value = response(3);
+        cache.put("a", value, 1000);
+
+        assertSame(value, cache.get("a"));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertSame(value.getValue(), cache.get("a").getValue());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    public void put_tooManyEntries_evictsLeastRecentlyUsed() {
+        cache.put("a", response(1), 1000);
+        cache.put("b", response(1), 1000);
+        cache.put("c", response(1), 1000);
+        // a becomes the most recently used entry
+        assertNotNull(cache.get("a"));
+
+        cache.put("d", response(1), 1000);
+        assertEquals(3, cache.size());
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+    }
+
+    @Test
+    public void put_tooManyBytes_evictsUntilWithinBounds() {
+        cache.put("a", response(40), 1000);
+        cache.put("b", response(40), 1000);
+        cache.put("c", response(40), 1000);
+
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.getTotalBytes());
+
+        cache.put("b", response(10), 1000);
+        assertEquals(50, cache.getTotalBytes());
+    }
+
+    @Test
+    public void put_noTimeToLiveOrTooLarge_notStored() {
+        cache.put("a", response(1), 0);
+        cache.put("b", response(101), 1000);
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_noPolicy_throwsIllegalArgumentException() {
+        new ResponseCache<AwsProxyRequest, AwsProxyResponse>(null, 10, 10);
+    }
+
+    private static CachedResponse response(int size) {
+        return new CachedResponse(new byte[size], 200, size, null);
+    }
+}
@@ -2,11 +2,15 @@ package com.amazonaws.serverless.proxy.internal;
 
 import com.amazonaws.serverless.exceptions.ContainerInitializationException;
 import com.amazonaws.serverless.proxy.*;
+import com.amazonaws.serverless.proxy.cache.AwsProxyResponseCachePolicy;
+import com.amazonaws.serverless.proxy.cache.CachedResponse;
+import com.amazonaws.serverless.proxy.cache.ResponseCache;
 import com.amazonaws.serverless.proxy.internal.servlet.AwsHttpServletResponse;
 import com.amazonaws.serverless.proxy.internal.servlet.AwsProxyHttpServletRequestReader;
 import com.amazonaws.serverless.proxy.internal.servlet.AwsProxyHttpServletResponseWriter;
 import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
 import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.metrics.InvocationMetrics;
 import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
 import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
 import com.amazonaws.services.lambda.runtime.Context;
@@ -14,6 +18,12 @@ import org.apache.http.impl.execchain.RequestAbortedException;
 import org.junit.Test;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.*;
@@ -21,6 +31,8 @@ import static org.junit.Assert.*;
 public class LambdaContainerHandlerTest {
     private boolean isRuntimeException = false;
     private boolean throwException = false;
+    private int handledRequests = 0;
+    private String entityTag = null;
 
     ExceptionContainerHandlerTest handler = new ExceptionContainerHandlerTest(
             AwsProxyRequest.class, AwsProxyResponse.class,
@@ -69,6 +81,234 @@ public class LambdaContainerHandlerTest {
         assertEquals("OK", resp.getBody());
     }
 
+    @Test
+    public void streamResponse_noException_writesSameResponse() throws IOException {
+        throwException = false;
+        LambdaContainerHandler.getContainerConfig().setDisableExceptionMapper(false);
+        AwsProxyRequest request = new AwsProxyRequestBuilder("/test", "GET").build();
+        try {
+            LambdaContainerHandler.getContainerConfig().setStreamResponse(true);
+            AwsProxyResponse streamed = proxyStream(request);
+            LambdaContainerHandler.getContainerConfig().setStreamResponse(false);
+            AwsProxyResponse buffered = proxyStream(request);
+
+            assertEquals(buffered.getStatusCode(), streamed.getStatusCode());
+            assertEquals("OK", streamed.getBody());
+            assertEquals(buffered.getBody(), streamed.getBody());
+            assertFalse(streamed.isBase64Encoded());
+            assertNull(streamed.getStatusDescription());
+            assertEquals(buffered.getMultiValueHeaders().keySet(), streamed.getMultiValueHeaders().keySet());
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setStreamResponse(false);
+        }
+    }
+
+    @Test
+    public void streamResponse_exception_writesExceptionHandlerResponse() throws IOException {
+        isRuntimeException = true;
+        throwException = true;
+        LambdaContainerHandler.getContainerConfig().setDisableExceptionMapper(false);
+        try {
+            LambdaContainerHandler.getContainerConfig().setStreamResponse(true);
+            AwsProxyResponse resp = proxyStream(new AwsProxyRequestBuilder("/test", "GET").build());
+            assertEquals(502, resp.getStatusCode());
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setStreamResponse(false);
+        }
+    }
+
+    @Test
+    public void streamResponse_outputFails_throwsWithoutFlushingOutput() throws IOException {
+        throwException = false;
+        LambdaContainerHandler.getContainerConfig().setDisableExceptionMapper(false);
+        List<String> calls = new ArrayList<>();
+        OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Connection reset");
+            }
+
+            @Override
+            public void flush() {
+                calls.add("flush");
+            }
+
+            @Override
+            public void close() {
+                calls.add("close");
+            }
+        };
+        try {
+            LambdaContainerHandler.getContainerConfig().setStreamResponse(true);
+            handler.proxyStream(new ByteArrayInputStream(LambdaContainerHandler.getObjectMapper().writeValueAsBytes(
+                    new AwsProxyRequestBuilder("/test", "GET").build())), output, new MockLambdaContext());
+            fail("Expected the write to fail");
+        } catch (IOException e) {
+            assertEquals("Connection reset", e.getMessage());
+            assertFalse(calls.contains("close"));
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setStreamResponse(false);
+        }
+    }
+
+    @Test
+    public void metricsSink_proxyStream_emitsOneMeasurementPerInvocation() throws IOException {
+        throwException = false;
+        LambdaContainerHandler.getContainerConfig().setDisableExceptionMapper(false);
+        List<String> emitted = new ArrayList<>();
+        handler.setMetricsSink((metrics, context) -> emitted.add(metrics.getStatusCode() + ":" + metrics.isError() + ":"
+                + (metrics.getDuration(InvocationMetrics.Phase.HANDLE_REQUEST) > 0) + ":"
+                + (metrics.getDuration(InvocationMetrics.Phase.SERIALIZE_RESPONSE) > 0)));
+        try {
+            proxyStream(new AwsProxyRequestBuilder("/test", "GET").build());
+            assertEquals(1, emitted.size());
+            assertEquals("200:false:true:true", emitted.get(0));
+
+            throwException = true;
+            isRuntimeException = true;
+            handler.proxy(new AwsProxyRequestBuilder("/test", "GET").build(), new MockLambdaContext());
+            assertEquals(2, emitted.size());
+            // the status of the exception handler response, not of the servlet response
+            assertEquals("502:true:false:false", emitted.get(1));
+        } finally {
+            handler.setMetricsSink(null);
+        }
+    }
+
+    @Test
+    public void accessLog_proxyStream_formatsOneLineAfterResponseIsWritten() throws IOException {
+        throwException = false;
+        LambdaContainerHandler.getContainerConfig().setDisableExceptionMapper(false);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        List<Integer> writtenBytes = new ArrayList<>();
+        handler.setLogFormatter((req, res, ctx) -> {
+            writtenBytes.add(output.size());
+            return "access";
+        });
+        try {
+            handler.proxyStream(new ByteArrayInputStream(LambdaContainerHandler.getObjectMapper().writeValueAsBytes(
+                    new AwsProxyRequestBuilder("/test", "GET").build())), output, new MockLambdaContext());
+
+            assertEquals(1, writtenBytes.size());
+            // the whole response was serialized before the line was formatted
+            assertEquals(output.size(), (int) writtenBytes.get(0));
+            assertTrue(output.size() > 0);
+
+            // proxy returns before the line is logged, it is logged when the next invocation starts
+            handler.proxy(new AwsProxyRequestBuilder("/test", "GET").build(), new MockLambdaContext());
+            assertEquals(1, writtenBytes.size());
+            handler.proxy(new AwsProxyRequestBuilder("/test", "GET").build(), new MockLambdaContext());
+            assertEquals(2, writtenBytes.size());
+            handler.flushAccessLog();
+            assertEquals(3, writtenBytes.size());
+            handler.flushAccessLog();
+            assertEquals(3, writtenBytes.size());
+        } finally {
+            handler.setLogFormatter(null);
+        }
+    }
+
+    @Test
+    public void responseCache_repeatedGet_servedWithoutFramework() throws IOException {
+        throwException = false;
+        LambdaContainerHandler.getContainerConfig().setDisableExceptionMapper(false);
+        AwsProxyResponseCachePolicy policy = new AwsProxyResponseCachePolicy();
+        policy.setDefaultTimeToLive(60_000);
+        handler.setResponseCache(new ResponseCache<>(policy, 10, 1024 * 1024));
+        try {
+            AwsProxyResponse first = proxyStream(new AwsProxyRequestBuilder("/test", "GET").build());
+            AwsProxyResponse streamHit = proxyStream(new AwsProxyRequestBuilder("/test", "GET").build());
+            AwsProxyResponse proxyHit = handler.proxy(new AwsProxyRequestBuilder("/test", "GET").build(), new MockLambdaContext());
+            assertEquals(1, handledRequests);
+            assertEquals("OK", first.getBody());
+            assertEquals("OK", streamHit.getBody());
+            assertEquals(200, proxyHit.getStatusCode());
+            assertEquals("OK", proxyHit.getBody());
+
+            handler.proxy(new AwsProxyRequestBuilder("/other", "GET").build(), new MockLambdaContext());
+            handler.proxy(new AwsProxyRequestBuilder("/other", "GET").build(), new MockLambdaContext());
+            proxyStream(new AwsProxyRequestBuilder("/test", "POST").build());
+            assertEquals(3, handledRequests);
+        } finally {
+            handler.setResponseCache(null);
+        }
+    }
+
+    @Test
+    public void responseCache_matchingIfNoneMatch_returnsNotModified() throws IOException {
+        throwException = false;
+        LambdaContainerHandler.getContainerConfig().setDisableExceptionMapper(false);
+        AwsProxyResponseCachePolicy policy = new AwsProxyResponseCachePolicy();
+        policy.setDefaultTimeToLive(60_000);
+        handler.setResponseCache(new ResponseCache<>(policy, 10, 1024 * 1024));
+        entityTag = "\"v1\"";
+        try {
+            proxyStream(new AwsProxyRequestBuilder("/test", "GET").build());
+            AwsProxyResponse notModified = proxyStream(new AwsProxyRequestBuilder("/test", "GET").header("If-None-Match", "W/\"v1\"").build());
+            AwsProxyResponse changed = handler.proxy(new AwsProxyRequestBuilder("/test", "GET").header("If-None-Match", "\"v0\"").build(), new MockLambdaContext());
+            AwsProxyResponse suffixed = handler.proxy(new AwsProxyRequestBuilder("/test", "GET").header("If-None-Match", "\"v1-beta\"").build(), new MockLambdaContext());
+
+            assertEquals(1, handledRequests);
+            assertEquals(304, notModified.getStatusCode());
+            assertNull(notModified.getBody());
+            assertEquals("\"v1\"", notModified.getMultiValueHeaders().getFirst("ETag"));
+            assertNull(notModified.getMultiValueHeaders().getFirst("Content-Type"));
+            assertEquals(200, changed.getStatusCode());
+            assertEquals("OK", changed.getBody());
+            assertEquals(200, suffixed.getStatusCode());
+        } finally {
+            entityTag = null;
+            handler.setResponseCache(null);
+        }
+    }
+
+    @Test
+    public void responseCache_hit_recordsAccessLogAndMetrics() throws IOException {
+        throwException = false;
+        LambdaContainerHandler.getContainerConfig().setDisableExceptionMapper(false);
+        AwsProxyResponseCachePolicy policy = new AwsProxyResponseCachePolicy();
+        policy.setDefaultTimeToLive(60_000);
+        handler.setResponseCache(new ResponseCache<>(policy, 10, 1024 * 1024));
+        entityTag = "\"v1\"";
+        List<String> logged = new ArrayList<>();
+        List<String> emitted = new ArrayList<>();
+        handler.setLogFormatter((req, res, ctx) -> {
+            logged.add(req.getRequestURI() + ":" + res.getStatus());
+            return "access";
+        });
+        handler.setMetricsSink((metrics, context) -> emitted.add(metrics.getStatusCode() + ":" + metrics.getResponseSize()));
+        try {
+            proxyStream(new AwsProxyRequestBuilder("/test", "GET").build());
+            proxyStream(new AwsProxyRequestBuilder("/test", "GET").build());
+            handler.proxy(new AwsProxyRequestBuilder("/test", "GET").header("If-None-Match", "\"v1\"").build(), new MockLambdaContext());
+            handler.flushAccessLog();
+
+            assertEquals(1, handledRequests);
+            assertEquals(3, logged.size());
+            assertEquals("/test:200", logged.get(1));
+            assertEquals("/test:304", logged.get(2));
+            assertEquals(3, emitted.size());
+            assertEquals("200:2", emitted.get(1));
+            assertEquals("304:0", emitted.get(2));
+        } finally {
+            entityTag = null;
+            handler.setLogFormatter(null);
+            handler.setMetricsSink(null);
+            handler.setResponseCache(null);
+        }
+    }
+
+    private AwsProxyResponse proxyStream(AwsProxyRequest request) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        handler.proxyStream(new ByteArrayInputStream(LambdaContainerHandler.getObjectMapper().writeValueAsBytes(request)), output, new MockLambdaContext());
+        return LambdaContainerHandler.getObjectMapper().readValue(output.toByteArray(), AwsProxyResponse.class);
+    }
+
     public class ExceptionContainerHandlerTest extends LambdaContainerHandler<AwsProxyRequest, AwsProxyResponse, HttpServletRequest, AwsHttpServletResponse> {
 
         public static final String RUNTIME_MESSAGE = "test RuntimeException";
@@ -85,6 +325,7 @@ public class LambdaContainerHandlerTest {
 
         @Override
         protected void handleRequest(HttpServletRequest containerRequest, AwsHttpServletResponse containerResponse, Context lambdaContext) throws Exception {
+            handledRequests++;
             if (throwException) {
                 if (isRuntimeException) {
                     throw new RuntimeException(RUNTIME_MESSAGE);
@@ -93,10 +334,20 @@ public class LambdaContainerHandlerTest {
                 }
             }
             containerResponse.setStatus(200);
+            if (entityTag != null) {
+                containerResponse.setHeader("ETag", entityTag);
+            }
             containerResponse.getWriter().print("OK");
             containerResponse.flushBuffer();
         }
 
+        @Override
+        protected AwsHttpServletResponse getCachedContainerResponse(HttpServletRequest request, CachedResponse cached) {
+            AwsHttpServletResponse response = getContainerResponse(request, new CountDownLatch(1));
+            response.setStatus(cached.getStatusCode());
+            return response;
+        }
+
         @Override
         public void initialize() throws ContainerInitializationException {
 
@@ -42,6 +42,17 @@ public class SecurityUtilsTest {
         }
     }
 
+    @Test
+    public void crlf_stringBuilder_removesLineBreaksInPlace() {
+        StringBuilder line = new StringBuilder("\r\nGET /pets\r\n HTTP/1.1\n\r");
+        SecurityUtils.crlf(line);
+        assertEquals("GET /pets HTTP/1.1", line.toString());
+
+        StringBuilder clean = new StringBuilder("GET /pets");
+        SecurityUtils.crlf(clean);
+        assertEquals("GET /pets", clean.toString());
+    }
+
     @Test
     public void getValidFilePath_nullOrEmpty_returnsNull() {
         assertNull(SecurityUtils.getValidFilePath(""));
@@ -17,6 +17,8 @@ import java.time.ZoneId;
 import static com.amazonaws.serverless.proxy.RequestReader.API_GATEWAY_CONTEXT_PROPERTY;
 import static com.amazonaws.serverless.proxy.RequestReader.API_GATEWAY_EVENT_PROPERTY;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
@@ -84,4 +86,47 @@ public class ApacheCombinedServletLogFormatterTest {
     assertThat(actual, containsString("[13/07/2019:13:11:34Z]"));
   }
 
+  @Test
+  public void stripsLineBreaksFromRequestValues() {
+    // given
+    when(mockServletRequest.getHeader(eq("user-agent")))
+        .thenReturn("agent\r\nfake log line");
+
+    // when
+    String actual = sut.format(mockServletRequest, mockServletResponse, null);
+
+    // then
+    assertThat(actual, containsString("\"agentfake log line\""));
+    assertFalse(actual.contains("\n"));
+  }
+
+  @Test
+  public void appendsToExistingBuilder() {
+    // given
+    StringBuilder logLine = new StringBuilder("prefix ");
+
+    // when
+    sut.format(mockServletRequest, mockServletResponse, null, logLine);
+    sut.format(mockServletRequest, mockServletResponse, null, logLine.append(' '));
+
+    // then
+    String line = sut.format(mockServletRequest, mockServletResponse, null);
+    assertEquals("prefix " + line + " " + line, logLine.toString());
+    assertThat(line, containsString("[07/02/1991:01:02:03Z]"));
+  }
+
+  @Test
+  public void logsWrittenStatusAndBodySize() {
+    // given
+    AwsHttpServletResponse response = new AwsHttpServletResponse(mockServletRequest, null);
+    response.setStatus(200);
+    response.setAwsWrittenResponse(304, 0);
+
+    // when
+    String actual = sut.format(mockServletRequest, response, null);
+
+    // then
+    assertThat(actual, containsString("\" 304 - "));
+  }
+
 }
@@ -1,7 +1,9 @@
 package com.amazonaws.serverless.proxy.internal.servlet;
 
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
 import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
 import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.model.ContainerConfig;
 import com.amazonaws.services.lambda.runtime.Context;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -109,6 +111,43 @@ public class AwsFilterChainManagerTest {
         assertTrue(cacheKey.equals(secondCacheKey));
     }
 
+    @Test
+    public void cacheKey_compare_sameHashDifferentPath() {
+        FilterChainManager.TargetCacheKey cacheKey = new FilterChainManager.TargetCacheKey();
+        cacheKey.setDispatcherType(DispatcherType.REQUEST);
+        cacheKey.setTargetPath("/Aa");
+
+        FilterChainManager.TargetCacheKey secondCacheKey = new FilterChainManager.TargetCacheKey();
+        secondCacheKey.setDispatcherType(DispatcherType.REQUEST);
+        secondCacheKey.setTargetPath("/BB");
+
+        // "Aa" and "BB" have the same String hash code
+        assertEquals(cacheKey.hashCode(), secondCacheKey.hashCode());
+        assertFalse(cacheKey.equals(secondCacheKey));
+    }
+
+    @Test
+    public void filterChain_cacheFull_evictsLeastRecentlyUsedPath() {
+        AwsServletContext context = new AwsServletContext(null);
+        context.addFilter("Filter1", new MockFilter())
+               .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/pets/*");
+        AwsFilterChainManager manager = new AwsFilterChainManager(context);
+
+        LambdaContainerHandler.getContainerConfig().setFilterChainCacheSize(2);
+        try {
+            FilterChainHolder first = manager.getFilterChain(getRequest("/pets/1"), null);
+            FilterChainHolder second = manager.getFilterChain(getRequest("/pets/2"), null);
+            manager.getFilterChain(getRequest("/pets/3"), null);
+
+            assertEquals(2, manager.getFilterChainCacheSize());
+            // paths that match the same filters share the same chain
+            assertSame(first.getFilters(), second.getFilters());
+            assertEquals(1, second.filterCount());
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setFilterChainCacheSize(ContainerConfig.DEFAULT_FILTER_CHAIN_CACHE_SIZE);
+        }
+    }
+
     @Test
     public void filterChain_getFilterChain_subsetOfFilters() {
         AwsProxyHttpServletRequest req = new AwsProxyHttpServletRequest(
@@ -226,6 +265,10 @@ public class AwsFilterChainManagerTest {
         assertEquals("Filter5", fcHolder.getFilter(2).getFilterName());
     }
 
+    private static AwsProxyHttpServletRequest getRequest(String path) {
+        return new AwsProxyHttpServletRequest(new AwsProxyRequestBuilder(path, "GET").build(), lambdaContext, null);
+    }
+
     private static class MockFilter implements Filter {
 
         @Override
@@ -7,14 +7,19 @@ import com.amazonaws.serverless.proxy.model.ContainerConfig;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.Cookie;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.List;
 
@@ -183,4 +188,41 @@ public class AwsHttpServletRequestTest {
         assertTrue(parsedString.contains("json=%7B%22name%22%3A%22faisal%22%7D"));
         assertTrue(parsedString.contains("&") && parsedString.indexOf("&") > 0 && parsedString.indexOf("&") < parsedString.length());
     }
+
+    @Test
+    public void inputStream_base64BodyWithLineBreaks_decodesBody() throws IOException {
+        byte[] body = new byte[4096];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i % 256);
+        }
+        AwsProxyRequest proxyRequest = new AwsProxyRequestBuilder("/test", "POST")
+                .binaryBody(new ByteArrayInputStream(body)).build();
+        assertTrue(proxyRequest.getBody().contains("\r\n"));
+
+        AwsProxyHttpServletRequest request = new AwsProxyHttpServletRequest(proxyRequest, mockContext, null, config);
+        assertArrayEquals(body, IOUtils.toByteArray(request.getInputStream()));
+        assertSame(request.getInputStream(), request.getInputStream());
+    }
+
+    @Test
+    public void inputStream_base64FormBody_parsesParameters() {
+        String form = "one=two&three=four";
+        AwsProxyRequest proxyRequest = new AwsProxyRequestBuilder("/test", "POST")
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED)
+                .body(Base64.getEncoder().encodeToString(form.getBytes(StandardCharsets.UTF_8))).build();
+        proxyRequest.setIsBase64Encoded(true);
+
+        AwsProxyHttpServletRequest request = new AwsProxyHttpServletRequest(proxyRequest, mockContext, null, config);
+        assertEquals("two", request.getParameter("one"));
+        assertEquals("four", request.getParameter("three"));
+    }
+
+    @Test
+    public void asciiStringInputStream_nonAsciiCharacters_ignoredByDecoder() throws IOException {
+        String encoded = Base64.getEncoder().encodeToString("hello".getBytes(StandardCharsets.UTF_8));
+        String withInvalidChars = encoded.substring(0, 2) + "\u20ac" + encoded.substring(2);
+
+        byte[] decoded = IOUtils.toByteArray(Base64.getMimeDecoder().wrap(new AwsHttpServletRequest.AsciiStringInputStream(withInvalidChars)));
+        assertEquals("hello", new String(decoded, StandardCharsets.UTF_8));
+    }
 }
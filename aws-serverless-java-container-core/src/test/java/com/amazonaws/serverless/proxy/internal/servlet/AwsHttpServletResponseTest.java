@@ -325,4 +325,75 @@ public class AwsHttpServletResponseTest {
 
         return cal;
     }
+
+    @Test
+    public void recycle_writtenResponse_resetsState() throws IOException {
+        AwsHttpServletResponse resp = new AwsHttpServletResponse(null, new CountDownLatch(1));
+        resp.setStatus(404);
+        resp.setContentType(MediaType.TEXT_PLAIN);
+        resp.setCharacterEncoding("UTF-8");
+        resp.getWriter().print("first");
+        resp.flushBuffer();
+        Headers firstHeaders = resp.getAwsResponseHeaders();
+        assertTrue(resp.isCommitted());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        resp.recycle(null, latch);
+        assertFalse(resp.isCommitted());
+        assertEquals(200, resp.getStatus());
+        assertNull(resp.getContentType());
+        assertNull(resp.getAwsResponseBodyString());
+        assertEquals(0, resp.getAwsResponseBodySize());
+        assertNotSame(firstHeaders, resp.getAwsResponseHeaders());
+        assertEquals(MediaType.TEXT_PLAIN + "; charset=UTF-8", firstHeaders.getFirst(HttpHeaders.CONTENT_TYPE));
+
+        resp.getWriter().print("second");
+        resp.flushBuffer();
+        assertEquals("second", resp.getAwsResponseBodyString());
+        assertEquals(0, latch.getCount());
+    }
+
+    @Test
+    public void bufferSize_setBeforeWriting_returnsRequestedCapacity() throws IOException {
+        AwsHttpServletResponse resp = new AwsHttpServletResponse(null, new CountDownLatch(1));
+        resp.setBufferSize(4096);
+        assertEquals(4096, resp.getBufferSize());
+
+        resp.getWriter().print("body");
+        assertEquals(4096, resp.getBufferSize());
+        resp.flushBuffer();
+        assertEquals("body", resp.getAwsResponseBodyString());
+    }
+
+    @Test
+    public void bufferSize_setAfterWriting_throwsAndKeepsContent() throws IOException {
+        AwsHttpServletResponse resp = new AwsHttpServletResponse(null, new CountDownLatch(1));
+        resp.getOutputStream().write(new byte[] { 'a', 'b' });
+        try {
+            resp.setBufferSize(4096);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals(2, resp.getAwsResponseBodySize());
+        }
+    }
+
+    @Test
+    public void awsResponseBody_beforeAndAfterFlush_decodedOnDemand() throws IOException {
+        AwsHttpServletResponse resp = new AwsHttpServletResponse(null, new CountDownLatch(1));
+        resp.getWriter().print("first");
+        assertFalse(resp.hasAwsResponseBody());
+        assertNull(resp.getAwsResponseBodyString());
+
+        resp.flushBuffer();
+        assertTrue(resp.hasAwsResponseBody());
+        assertEquals("first", resp.getAwsResponseBodyString());
+
+        resp.getWriter().print(" second");
+        resp.flushBuffer();
+        assertEquals("first second", resp.getAwsResponseBodyString());
+
+        resp.reset();
+        assertFalse(resp.hasAwsResponseBody());
+        assertNull(resp.getAwsResponseBodyString());
+    }
 }
@@ -11,12 +11,14 @@ import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.junit.Test;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Map;
 import java.util.Random;
@@ -123,4 +125,34 @@ public class AwsProxyHttpServletRequestFormTest {
         assertEquals(2, params.size());
         assertEquals(true, params.containsKey(PART_KEY_1));
     }
+
+    @Test
+    public void postForm_getParameterThenInputStream_bodyStillReadable() throws IOException {
+        HttpServletRequest request = new AwsProxyHttpServletRequest(getBase64FormRequest(), null, null);
+
+        assertEquals(PART_VALUE_2, request.getParameter(PART_KEY_2));
+        ServletInputStream body = request.getInputStream();
+        assertEquals(ENCODED_FORM_ENTITY.length(), body.available());
+        assertEquals(ENCODED_FORM_ENTITY, IOUtils.toString(body, "UTF-8"));
+    }
+
+    @Test
+    public void postForm_getInputStreamThenParameter_bodyStillReadable() throws IOException {
+        HttpServletRequest request = new AwsProxyHttpServletRequest(getBase64FormRequest(), null, null);
+
+        ServletInputStream body = request.getInputStream();
+        // the size of the lazily decoded body is not known before it is read
+        assertEquals(0, body.available());
+        assertEquals(PART_VALUE_2, request.getParameter(PART_KEY_2));
+        assertEquals(ENCODED_FORM_ENTITY, IOUtils.toString(body, "UTF-8"));
+        assertEquals(PART_VALUE_2, request.getParameter(PART_KEY_2));
+    }
+
+    private AwsProxyRequest getBase64FormRequest() {
+        AwsProxyRequest proxyRequest = new AwsProxyRequestBuilder("/form", "POST")
+                                               .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED).build();
+        proxyRequest.setBody(Base64.getEncoder().encodeToString(ENCODED_FORM_ENTITY.getBytes(StandardCharsets.UTF_8)));
+        proxyRequest.setIsBase64Encoded(true);
+        return proxyRequest;
+    }
 }
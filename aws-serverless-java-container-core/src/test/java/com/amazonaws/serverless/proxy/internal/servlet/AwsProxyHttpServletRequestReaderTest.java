@@ -14,6 +14,7 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.SecurityContext;
 import java.lang.reflect.Method;
 
+import static com.amazonaws.serverless.proxy.RequestReader.API_GATEWAY_EVENT_PROPERTY;
 import static org.junit.Assert.*;
 
 
@@ -164,4 +165,45 @@ public class AwsProxyHttpServletRequestReaderTest {
             fail("Failed to read request with null headers");
         }
     }
+
+    @Test
+    public void readRequest_recycleRequestObjects_reusesAndResetsRequest() throws InvalidRequestEventException {
+        ContainerConfig config = ContainerConfig.defaultConfig();
+        config.setRecycleRequestObjects(true);
+        AwsProxyHttpServletRequestReader recyclingReader = new AwsProxyHttpServletRequestReader();
+
+        HttpServletRequest first = recyclingReader.readRequest(new AwsProxyRequestBuilder("/first", "GET")
+                .header(TEST_HEADER_KEY, TEST_HEADER_VALUE).build(), null, null, config);
+        first.setAttribute("custom", "value");
+
+        AwsProxyRequest secondEvent = new AwsProxyRequestBuilder("/second", "POST").build();
+        HttpServletRequest second = recyclingReader.readRequest(secondEvent, null, null, config);
+        assertSame(first, second);
+        assertNull(second.getAttribute("custom"));
+        assertNull(second.getHeader(TEST_HEADER_KEY));
+        assertEquals("POST", second.getMethod());
+        assertEquals("/second", second.getRequestURI());
+        assertSame(secondEvent, second.getAttribute(API_GATEWAY_EVENT_PROPERTY));
+    }
+
+    @Test
+    public void readRequest_recycleAfterAsyncStarted_allocatesNewRequest() throws InvalidRequestEventException {
+        ContainerConfig config = ContainerConfig.defaultConfig();
+        config.setRecycleRequestObjects(true);
+        AwsProxyHttpServletRequestReader recyclingReader = new AwsProxyHttpServletRequestReader();
+
+        HttpServletRequest first = recyclingReader.readRequest(new AwsProxyRequestBuilder("/first", "GET").build(), null, null, config);
+        first.startAsync();
+
+        HttpServletRequest second = recyclingReader.readRequest(new AwsProxyRequestBuilder("/second", "GET").build(), null, null, config);
+        assertNotSame(first, second);
+        assertEquals("/first", first.getRequestURI());
+    }
+
+    @Test
+    public void readRequest_recycleDisabled_allocatesNewRequest() throws InvalidRequestEventException {
+        HttpServletRequest first = reader.readRequest(new AwsProxyRequestBuilder("/first", "GET").build(), null, null, ContainerConfig.defaultConfig());
+        HttpServletRequest second = reader.readRequest(new AwsProxyRequestBuilder("/second", "GET").build(), null, null, ContainerConfig.defaultConfig());
+        assertNotSame(first, second);
+    }
 }
@@ -0,0 +1,337 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import com.amazonaws.serverless.exceptions.InvalidResponseObjectException;
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+
+import org.junit.Test;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+
+public class AwsProxyHttpServletResponseWriterTest {
+    private static final int BINARY_BODY_SIZE = 1024;
+
+    private AwsProxyHttpServletResponseWriter writer = new AwsProxyHttpServletResponseWriter();
+
+    @Test
+    public void writeResponse_binaryBody_noLineBreaks() throws IOException, InvalidResponseObjectException {
+        byte[] body = getBinaryBody();
+        AwsHttpServletResponse resp = getResponse(MediaType.APPLICATION_OCTET_STREAM, body);
+
+        AwsProxyResponse awsResponse = writer.writeResponse(resp, new MockLambdaContext());
+        assertTrue(awsResponse.isBase64Encoded());
+        assertFalse(awsResponse.getBody().contains("\n"));
+        assertArrayEquals(body, Base64.getDecoder().decode(awsResponse.getBody()));
+    }
+
+    @Test
+    public void writeResponse_streamBinaryBody_sameAsObjectResponse() throws IOException, InvalidResponseObjectException {
+        byte[] body = getBinaryBody();
+        AwsHttpServletResponse resp = getResponse(MediaType.APPLICATION_OCTET_STREAM, body);
+
+        AwsProxyResponse streamed = streamResponse(resp);
+        AwsProxyResponse awsResponse = writer.writeResponse(resp, new MockLambdaContext());
+
+        assertTrue(streamed.isBase64Encoded());
+        assertEquals(awsResponse.getBody(), streamed.getBody());
+        assertArrayEquals(body, Base64.getDecoder().decode(streamed.getBody()));
+    }
+
+    @Test
+    public void writeResponse_streamTextBody_writesHeadersAndBody() throws IOException, InvalidResponseObjectException {
+        AwsHttpServletResponse resp = getResponse(MediaType.TEXT_PLAIN, "hello".getBytes());
+        resp.addHeader("X-Custom", "1");
+        resp.addHeader("X-Custom", "2");
+
+        AwsProxyResponse streamed = streamResponse(resp);
+        assertFalse(streamed.isBase64Encoded());
+        assertEquals("hello", streamed.getBody());
+        assertEquals(200, streamed.getStatusCode());
+        assertEquals(2, streamed.getMultiValueHeaders().get("x-custom").size());
+        assertEquals(MediaType.TEXT_PLAIN, streamed.getMultiValueHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+    }
+
+    @Test
+    public void writeResponse_streamLargeTextBody_sameAsObjectResponse() throws IOException, InvalidResponseObjectException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < ResponseBodyBuffer.MAX_SEGMENT_SIZE * 2) {
+            text.append("caf\u00e9 \"\ud83d\ude00\"\n");
+        }
+        AwsHttpServletResponse resp = getResponse(MediaType.TEXT_PLAIN, text.toString().getBytes(StandardCharsets.UTF_8));
+        resp.setCharacterEncoding("UTF-8");
+        resp.flushBuffer();
+
+        AwsProxyResponse streamed = streamResponse(resp);
+        AwsProxyResponse awsResponse = writer.writeResponse(resp, new MockLambdaContext());
+
+        assertFalse(streamed.isBase64Encoded());
+        assertEquals(text.toString(), streamed.getBody());
+        assertEquals(awsResponse.getBody(), streamed.getBody());
+    }
+
+    @Test
+    public void writeResponse_streamOutputFails_doesNotCompleteJson() throws IOException, InvalidResponseObjectException {
+        byte[] body = new byte[64 * 1024];
+        AwsHttpServletResponse resp = getResponse(MediaType.APPLICATION_OCTET_STREAM, body);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream output = new OutputStream() {
+            private boolean failed;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (!failed) {
+                    failed = true;
+                    throw new IOException("Connection reset");
+                }
+                written.write(b, off, len);
+            }
+        };
+
+        try {
+            writer.writeResponse(resp, new MockLambdaContext(), output);
+            fail("Expected the write to fail");
+        } catch (IOException e) {
+            assertEquals("Connection reset", e.getMessage());
+        }
+        assertEquals(0, written.size());
+    }
+
+    @Test
+    public void writeResponse_compressibleBodyAcceptsGzip_returnsCompressedBody() throws IOException, InvalidResponseObjectException {
+        byte[] body = getTextBody();
+        LambdaContainerHandler.getContainerConfig().setCompressResponses(true);
+        try {
+            AwsHttpServletResponse resp = getResponse(MediaType.APPLICATION_JSON, body, "gzip, deflate, br");
+            resp.setContentLength(body.length);
+
+            AwsProxyResponse awsResponse = writer.writeResponse(resp, new MockLambdaContext());
+            AwsProxyResponse streamed = streamResponse(resp);
+
+            assertTrue(awsResponse.isBase64Encoded());
+            assertEquals("gzip", awsResponse.getMultiValueHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(HttpHeaders.ACCEPT_ENCODING, awsResponse.getMultiValueHeaders().getFirst(HttpHeaders.VARY));
+            assertNull(awsResponse.getMultiValueHeaders().get(HttpHeaders.CONTENT_LENGTH));
+            assertArrayEquals(body, gunzip(Base64.getDecoder().decode(awsResponse.getBody())));
+
+            assertTrue(streamed.isBase64Encoded());
+            assertEquals(awsResponse.getBody(), streamed.getBody());
+            assertEquals("gzip", streamed.getMultiValueHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            // the response object itself is not modified
+            assertNull(resp.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(Base64.getDecoder().decode(streamed.getBody()).length, resp.getAwsWrittenBodySize());
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setCompressResponses(false);
+        }
+    }
+
+    @Test
+    public void writeResponse_compressibleBodyNoAcceptEncoding_returnsTextBodyWithVary() throws IOException, InvalidResponseObjectException {
+        byte[] body = getTextBody();
+        LambdaContainerHandler.getContainerConfig().setCompressResponses(true);
+        try {
+            AwsHttpServletResponse resp = getResponse(MediaType.APPLICATION_JSON, body, null);
+
+            AwsProxyResponse awsResponse = writer.writeResponse(resp, new MockLambdaContext());
+            assertFalse(awsResponse.isBase64Encoded());
+            assertEquals(new String(body), awsResponse.getBody());
+            assertNull(awsResponse.getMultiValueHeaders().get(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(HttpHeaders.ACCEPT_ENCODING, awsResponse.getMultiValueHeaders().getFirst(HttpHeaders.VARY));
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setCompressResponses(false);
+        }
+    }
+
+    @Test
+    public void writeResponse_smallBodyAcceptsGzip_returnsUncompressedBody() throws IOException, InvalidResponseObjectException {
+        LambdaContainerHandler.getContainerConfig().setCompressResponses(true);
+        try {
+            AwsHttpServletResponse resp = getResponse(MediaType.APPLICATION_JSON, "{}".getBytes(), "gzip");
+
+            AwsProxyResponse awsResponse = writer.writeResponse(resp, new MockLambdaContext());
+            assertFalse(awsResponse.isBase64Encoded());
+            assertEquals("{}", awsResponse.getBody());
+            assertNull(awsResponse.getMultiValueHeaders().get(HttpHeaders.CONTENT_ENCODING));
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setCompressResponses(false);
+        }
+    }
+
+    @Test
+    public void writeResponse_compressionDisabled_returnsUncompressedBody() throws IOException, InvalidResponseObjectException {
+        AwsHttpServletResponse resp = getResponse(MediaType.APPLICATION_JSON, getTextBody(), "gzip");
+
+        AwsProxyResponse awsResponse = writer.writeResponse(resp, new MockLambdaContext());
+        assertFalse(awsResponse.isBase64Encoded());
+        assertNull(awsResponse.getMultiValueHeaders().get(HttpHeaders.CONTENT_ENCODING));
+        assertNull(awsResponse.getMultiValueHeaders().get(HttpHeaders.VARY));
+    }
+
+    @Test
+    public void writeResponse_generateETags_setsStrongETag() throws IOException, InvalidResponseObjectException {
+        LambdaContainerHandler.getContainerConfig().setGenerateETags(true);
+        try {
+            AwsHttpServletResponse resp = getResponse(MediaType.APPLICATION_JSON, getTextBody(), null);
+
+            AwsProxyResponse awsResponse = writer.writeResponse(resp, new MockLambdaContext());
+            String etag = awsResponse.getMultiValueHeaders().getFirst(HttpHeaders.ETAG);
+            assertNotNull(etag);
+            assertTrue(etag.matches("\"[0-9a-f]{16}\""));
+            assertEquals(200, awsResponse.getStatusCode());
+            assertEquals(etag, writer.writeResponse(getResponse(MediaType.APPLICATION_JSON, getTextBody(), null), new MockLambdaContext())
+                    .getMultiValueHeaders().getFirst(HttpHeaders.ETAG));
+            assertNotEquals(etag, writer.writeResponse(getResponse(MediaType.APPLICATION_JSON, "{}".getBytes(), null), new MockLambdaContext())
+                    .getMultiValueHeaders().getFirst(HttpHeaders.ETAG));
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setGenerateETags(false);
+        }
+    }
+
+    @Test
+    public void writeResponse_ifNoneMatchesETag_returnsNotModified() throws IOException, InvalidResponseObjectException {
+        LambdaContainerHandler.getContainerConfig().setGenerateETags(true);
+        try {
+            String etag = writer.writeResponse(getResponse(MediaType.APPLICATION_JSON, getTextBody(), null), new MockLambdaContext())
+                    .getMultiValueHeaders().getFirst(HttpHeaders.ETAG);
+
+            AwsHttpServletResponse resp = getResponse(MediaType.APPLICATION_JSON, getTextBody(), null, "\"other\", W/" + etag);
+            resp.addHeader("Cache-Control", "max-age=60");
+            AwsProxyResponse notModified = writer.writeResponse(resp, new MockLambdaContext());
+            AwsProxyResponse streamed = streamResponse(resp);
+
+            assertEquals(304, notModified.getStatusCode());
+            assertNull(notModified.getBody());
+            assertEquals(etag, notModified.getMultiValueHeaders().getFirst(HttpHeaders.ETAG));
+            assertEquals("max-age=60", notModified.getMultiValueHeaders().getFirst("Cache-Control"));
+            assertNull(notModified.getMultiValueHeaders().get(HttpHeaders.CONTENT_TYPE));
+            assertEquals(304, streamed.getStatusCode());
+            assertNull(streamed.getBody());
+            // the servlet response keeps the status set by the application, the written status is recorded for metrics
+            assertEquals(200, resp.getStatus());
+            assertEquals(304, resp.getAwsWrittenStatus());
+            assertEquals(0, resp.getAwsWrittenBodySize());
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setGenerateETags(false);
+        }
+    }
+
+    @Test
+    public void writeResponse_compressedWithETag_appendsEncodingAndMatchesIfNoneMatch() throws IOException, InvalidResponseObjectException {
+        LambdaContainerHandler.getContainerConfig().setGenerateETags(true);
+        LambdaContainerHandler.getContainerConfig().setCompressResponses(true);
+        try {
+            AwsProxyResponse compressed = writer.writeResponse(getResponse(MediaType.APPLICATION_JSON, getTextBody(), "gzip"), new MockLambdaContext());
+            String etag = compressed.getMultiValueHeaders().getFirst(HttpHeaders.ETAG);
+            assertTrue(etag.matches("\"[0-9a-f]{16}-gzip\""));
+
+            AwsProxyResponse notModified = writer.writeResponse(getResponse(MediaType.APPLICATION_JSON, getTextBody(), "gzip", etag), new MockLambdaContext());
+            assertEquals(304, notModified.getStatusCode());
+            assertEquals(HttpHeaders.ACCEPT_ENCODING, notModified.getMultiValueHeaders().getFirst(HttpHeaders.VARY));
+        } finally {
+            LambdaContainerHandler.getContainerConfig().setGenerateETags(false);
+            LambdaContainerHandler.getContainerConfig().setCompressResponses(false);
+        }
+    }
+
+    @Test
+    public void matches_ifNoneMatchValues_usesWeakComparison() {
+        String etag = "\"0123456789abcdef\"";
+        assertTrue(EntityTags.matches("*", etag));
+        assertTrue(EntityTags.matches(etag, etag));
+        assertTrue(EntityTags.matches("W/" + etag, etag));
+        assertTrue(EntityTags.matches("\"a\", \"0123456789abcdef-deflate\"", etag));
+        assertFalse(EntityTags.matches(null, etag));
+        assertFalse(EntityTags.matches("\"0123456789abcdef0\"", etag));
+        assertFalse(EntityTags.matches("\"0123456789abcde\"", etag));
+        assertFalse(EntityTags.matches("\"0123456789abcdef-gzip", etag));
+    }
+
+    @Test
+    public void matches_applicationTagWithHyphenatedSuffix_doesNotMatch() {
+        assertFalse(EntityTags.matches("\"v1-beta\"", "\"v1\""));
+        assertFalse(EntityTags.matches("\"v1-gzip\"", "\"v1\""));
+        assertTrue(EntityTags.matches("W/\"v1\"", "\"v1\""));
+        // only the codings the writer adds are ignored on generated tags
+        assertFalse(EntityTags.matches("\"0123456789abcdef-beta\"", "\"0123456789abcdef\""));
+        assertTrue(EntityTags.matches("\"0123456789abcdef\"", "\"0123456789abcdef-gzip\""));
+    }
+
+    private AwsProxyResponse streamResponse(AwsHttpServletResponse resp) throws IOException, InvalidResponseObjectException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writer.writeResponse(resp, new MockLambdaContext(), output);
+        return LambdaContainerHandler.getObjectMapper().readValue(output.toByteArray(), AwsProxyResponse.class);
+    }
+
+    private AwsHttpServletResponse getResponse(String contentType, byte[] body) throws IOException {
+        return getResponse(contentType, body, null);
+    }
+
+    private AwsHttpServletResponse getResponse(String contentType, byte[] body, String acceptEncoding) throws IOException {
+        return getResponse(contentType, body, acceptEncoding, null);
+    }
+
+    private AwsHttpServletResponse getResponse(String contentType, byte[] body, String acceptEncoding, String ifNoneMatch) throws IOException {
+        AwsProxyRequestBuilder request = new AwsProxyRequestBuilder("/test", "GET");
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        AwsProxyHttpServletRequest req = new AwsProxyHttpServletRequest(request.build(), new MockLambdaContext(), null);
+        AwsHttpServletResponse resp = new AwsHttpServletResponse(req, new CountDownLatch(1));
+        resp.setContentType(contentType);
+        resp.getOutputStream().write(body);
+        resp.flushBuffer();
+        return resp;
+    }
+
+    private byte[] getBinaryBody() {
+        byte[] body = new byte[BINARY_BODY_SIZE];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i % 256);
+        }
+        return body;
+    }
+
+    private byte[] getTextBody() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"pet ").append(i).append("\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] gunzip(byte[] compressed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -2,6 +2,7 @@ package com.amazonaws.serverless.proxy.internal.servlet;
 
 import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
 import com.amazonaws.serverless.proxy.internal.servlet.filters.UrlPathValidator;
+import com.amazonaws.serverless.proxy.model.ContainerConfig;
 
 import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
 import org.junit.BeforeClass;
@@ -71,10 +72,35 @@ public class AwsServletContextTest {
     }
 
     @Test
-    public void getMimeType_unknownExtension_expectAppOctetStream() {
+    public void getMimeType_unknownExtension_expectNull() {
         AwsServletContext ctx = new AwsServletContext(null);
         String mimeType = ctx.getMimeType("myfile.unkext");
-        assertEquals("application/octet-stream", mimeType);
+        assertNull(mimeType);
+    }
+
+    @Test
+    public void getMimeType_upperCaseExtension_expectMime() {
+        AwsServletContext ctx = new AwsServletContext(null);
+        assertEquals("image/png", ctx.getMimeType("/static/LOGO.PNG"));
+        assertEquals("text/javascript", ctx.getMimeType("/static/app.min.js"));
+        assertNull(ctx.getMimeType("/static.d/README"));
+    }
+
+    @Test
+    public void getMimeType_customType_overridesTable() {
+        AwsServletContext ctx = new AwsServletContext(null);
+        ContainerConfig config = LambdaContainerHandler.getContainerConfig();
+        String previousJs = config.getCustomMimeType("js");
+        String previousCustom = config.getCustomMimeType("customext");
+        config.addMimeType("JS", "application/javascript");
+        config.addMimeType("customext", "application/x-custom");
+        try {
+            assertEquals("application/javascript", ctx.getMimeType("app.js"));
+            assertEquals("application/x-custom", ctx.getMimeType("myfile.CustomExt"));
+        } finally {
+            restoreMimeType(config, "js", previousJs);
+            restoreMimeType(config, "customext", previousCustom);
+        }
     }
 
 
@@ -222,6 +248,35 @@ public class AwsServletContextTest {
         assertEquals(srv2, ctx.getServletForPath("/srv3"));
     }
 
+    @Test
+    public void servletMappings_specPrecedence_expectMostSpecificServlet() {
+        AwsServletContext ctx = new AwsServletContext(null);
+        TestServlet exact = new TestServlet("exact");
+        TestServlet prefix = new TestServlet("prefix");
+        TestServlet longPrefix = new TestServlet("longPrefix");
+        TestServlet extension = new TestServlet("extension");
+        TestServlet fallback = new TestServlet("fallback");
+
+        ctx.addServlet("fallback", fallback).addMapping("/");
+        ctx.addServlet("extension", extension).addMapping("*.jsp");
+        ctx.addServlet("prefix", prefix).addMapping("/pets/*");
+        ctx.addServlet("longPrefix", longPrefix).addMapping("/pets/dogs/*");
+        ctx.addServlet("exact", exact).addMapping("/pets/list");
+
+        assertEquals(exact, ctx.getServletForPath("/pets/list"));
+        assertEquals(prefix, ctx.getServletForPath("/pets"));
+        assertEquals(prefix, ctx.getServletForPath("/pets/cats/index.jsp"));
+        assertEquals(longPrefix, ctx.getServletForPath("/pets/dogs/1"));
+        assertEquals(extension, ctx.getServletForPath("/index.jsp"));
+        assertEquals(fallback, ctx.getServletForPath("/index.html"));
+        assertEquals(fallback, ctx.getServletForPath(""));
+
+        ServletRegistration registration = ctx.getServletRegistration(extension);
+        assertNotNull(registration);
+        assertEquals("extension", registration.getName());
+        assertNull(ctx.getServletRegistration(new TestServlet("unregistered")));
+    }
+
     @Test
     public void addServlet_callsDefaultConstructor() throws ServletException {
         AwsServletContext ctx = new AwsServletContext(null);
@@ -231,6 +286,14 @@ public class AwsServletContextTest {
         assertEquals("", ((TestServlet)ctx.getServlet("srv1")).getId());
     }
 
+    private static void restoreMimeType(ContainerConfig config, String extension, String mimeType) {
+        if (mimeType == null) {
+            config.removeMimeType(extension);
+        } else {
+            config.addMimeType(extension, mimeType);
+        }
+    }
+
     public static class TestServlet implements Servlet {
         private String id;
 
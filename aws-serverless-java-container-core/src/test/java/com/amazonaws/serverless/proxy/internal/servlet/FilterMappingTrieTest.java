@@ -0,0 +1,110 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import org.junit.Test;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class FilterMappingTrieTest {
+    private static final AwsServletContext SERVLET_CONTEXT = new AwsServletContext(null);
+    private static final AwsFilterChainManager CHAIN_MANAGER = new AwsFilterChainManager(SERVLET_CONTEXT);
+
+    private static final String[] PATTERNS = {
+            "/*", "*", "/", "/echo", "/echo/*", "/Echo/Test", "/echo/test", "/echo/test/deep", "/users/*/", "*.do",
+            "/*.do", "/a/b/c/*", "//", "/a//b"
+    };
+    private static final String[] TARGETS = {
+            "/", "", "/echo", "/ECHO", "/echo/", "/echo/test", "/Echo/Test", "/echo/test/deep/deeper", "/echo/other",
+            "/users", "/users/1/orders", "/index.do", "*.do", "/*.do", "/a/b", "/a/b/c", "/a/b/d/e", "/a/b/c/d/e", "//",
+            "/a//b", "/a//c", "/*", "/*/x", "<script>alert('message');</script>", "/other"
+    };
+
+    @Test
+    public void match_singlePatterns_sameAsPathMatches() {
+        for (String pattern : PATTERNS) {
+            FilterHolder holder = holder("filter", null, pattern);
+            FilterMappingTrie trie = FilterMappingTrie.compile(registrations(holder));
+            for (String target : TARGETS) {
+                boolean expected = CHAIN_MANAGER.pathMatches(target, pattern);
+                assertEquals(target + " with " + pattern, expected, trie.match(target, DispatcherType.REQUEST).contains(holder));
+            }
+        }
+    }
+
+    @Test
+    public void match_multiplePatterns_registrationOrderAndOnePerPattern() {
+        FilterHolder first = holder("first", null, "/echo/*");
+        FilterHolder second = holder("second", null, "/*", "/echo/test", "/other");
+        FilterHolder third = holder("third", null, "/users/*");
+        FilterMappingTrie trie = FilterMappingTrie.compile(registrations(first, second, third));
+
+        assertEquals(Arrays.asList(first, second, second), trie.match("/echo/test", DispatcherType.REQUEST));
+        assertEquals(Arrays.asList(second, third), trie.match("/users/12", DispatcherType.REQUEST));
+    }
+
+    @Test
+    public void match_dispatcherTypes_onlyRegisteredTypes() {
+        FilterHolder request = holder("request", EnumSet.of(DispatcherType.REQUEST), "/*");
+        FilterHolder error = holder("error", EnumSet.of(DispatcherType.ERROR), "/*");
+        FilterHolder any = holder("any", null, "/*");
+        any.getRegistration().getDispatcherTypes().clear();
+        FilterMappingTrie trie = FilterMappingTrie.compile(registrations(request, error, any));
+
+        assertEquals(Arrays.asList(request, any), trie.match("/test", DispatcherType.REQUEST));
+        assertEquals(Arrays.asList(error, any), trie.match("/test", DispatcherType.ERROR));
+    }
+
+    @Test
+    public void signature_newPattern_changes() {
+        FilterHolder holder = holder("filter", null, "/echo/*");
+        Map<String, FilterHolder> registrations = registrations(holder);
+        FilterMappingTrie trie = FilterMappingTrie.compile(registrations);
+        assertEquals(trie.getSignature(), FilterMappingTrie.signature(registrations));
+
+        holder.getRegistration().addMappingForUrlPatterns(null, true, "/users/*");
+        assertNotEquals(trie.getSignature(), FilterMappingTrie.signature(registrations));
+    }
+
+
+    private static FilterHolder holder(String name, EnumSet<DispatcherType> types, String... patterns) {
+        FilterHolder holder = new FilterHolder(name, new NoOpFilter(), SERVLET_CONTEXT);
+        holder.getRegistration().addMappingForUrlPatterns(types, true, patterns);
+        return holder;
+    }
+
+    private static Map<String, FilterHolder> registrations(FilterHolder... holders) {
+        Map<String, FilterHolder> registrations = new LinkedHashMap<>();
+        for (FilterHolder holder : holders) {
+            registrations.put(holder.getFilterName(), holder);
+        }
+        return registrations;
+    }
+
+    private static class NoOpFilter implements Filter {
+        @Override
+        public void init(FilterConfig filterConfig) {
+        }
+
+        @Override
+        public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) {
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import org.junit.Test;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class HttpApiV2HeadersTest {
+
+    @Test
+    public void getFirst_commaSeparatedValue_expectFirstValueOnly() {
+        HttpApiV2Headers headers = new HttpApiV2Headers(event("x-forwarded-for", "1.1.1.1,2.2.2.2"));
+
+        assertEquals("1.1.1.1", headers.getFirst("X-Forwarded-For"));
+        assertEquals(Arrays.asList("1.1.1.1", "2.2.2.2"), headers.get("x-forwarded-for"));
+        assertNull(headers.getFirst("x-missing"));
+        assertNull(headers.get("X-Missing"));
+    }
+
+    @Test
+    public void get_acceptAndDateHeaders_expectValuesNotSplit() {
+        Map<String, String> event = event("accept-language", "fr-CH, fr;q=0.9");
+        event.put("date", "Wed, 21 Oct 2015 07:28:00 GMT");
+        HttpApiV2Headers headers = new HttpApiV2Headers(event);
+
+        assertEquals("fr-CH, fr;q=0.9", headers.getFirst(HttpHeaders.ACCEPT_LANGUAGE));
+        assertEquals(Collections.singletonList("Wed, 21 Oct 2015 07:28:00 GMT"), headers.get(HttpHeaders.DATE));
+    }
+
+    @Test
+    public void getFirst_mixedCaseEventNames_expectCaseInsensitiveLookup() {
+        HttpApiV2Headers headers = new HttpApiV2Headers(event("Content-Type", "text/plain"));
+
+        assertTrue(headers.containsKey("content-type"));
+        assertEquals("text/plain", headers.getFirst("CONTENT-TYPE"));
+        assertFalse(headers.containsKey("content-length"));
+    }
+
+    @Test
+    public void putSingle_existingHeader_overridesWithoutChangingEvent() {
+        Map<String, String> event = event("content-type", "text/plain");
+        HttpApiV2Headers headers = new HttpApiV2Headers(event);
+
+        headers.putSingle(HttpHeaders.CONTENT_TYPE, "text/plain; charset=UTF-8");
+        headers.putSingle("X-Custom", "value");
+
+        assertEquals("text/plain; charset=UTF-8", headers.getFirst("content-type"));
+        assertEquals("text/plain", event.get("content-type"));
+        assertEquals(2, headers.keySet().size());
+        assertTrue(headers.keySet().contains("X-Custom"));
+    }
+
+    @Test
+    public void getFirst_nullEvent_expectEmpty() {
+        HttpApiV2Headers headers = new HttpApiV2Headers(null);
+
+        assertNull(headers.getFirst(HttpHeaders.HOST));
+        assertTrue(headers.keySet().isEmpty());
+    }
+
+
+    private static Map<String, String> event(String name, String value) {
+        Map<String, String> event = new HashMap<>();
+        event.put(name, value);
+        return event;
+    }
+}
@@ -0,0 +1,44 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+
+public class MimeTypesTest {
+
+    @Test
+    public void table_extensions_sortedLowerCaseAndUnique() {
+        assertEquals(0, MimeTypes.TABLE.length % 2);
+        for (int i = 0; i < MimeTypes.TABLE.length; i += 2) {
+            String extension = MimeTypes.TABLE[i];
+            assertEquals(extension.toLowerCase(Locale.ENGLISH), extension);
+            if (i > 0) {
+                assertTrue(extension + " is out of order", MimeTypes.TABLE[i - 2].compareTo(extension) < 0);
+            }
+            assertEquals(MimeTypes.TABLE[i + 1], MimeTypes.forExtension(extension));
+        }
+    }
+
+    @Test
+    public void forExtension_unknownOrEmpty_returnsNull() {
+        assertNull(MimeTypes.forExtension(null));
+        assertNull(MimeTypes.forExtension(""));
+        assertNull(MimeTypes.forExtension("unkext"));
+        assertNull(MimeTypes.forExtension("0"));
+        assertNull(MimeTypes.forExtension("zzz"));
+    }
+
+    @Test
+    public void getExtension_paths_returnsLastSegmentExtension() {
+        assertEquals("html", MimeTypes.getExtension("/var/task/static/index.html"));
+        assertEquals("gz", MimeTypes.getExtension("file:///tmp/archive.tar.gz"));
+        assertNull(MimeTypes.getExtension("/var/task.d/README"));
+        assertNull(MimeTypes.getExtension("C:\\folder.d\\README"));
+        assertNull(MimeTypes.getExtension("file."));
+        assertNull(MimeTypes.getExtension(null));
+    }
+}
@@ -0,0 +1,102 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import javax.servlet.http.Part;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class MultipartParserTest {
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    @Test
+    public void parse_fieldsAndFile_expectPartsInOrder() throws IOException {
+        String body = "preamble\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"title\"\r\n"
+                + "\r\n"
+                + "hello\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"C:\\Users\\me\\notes.txt\"\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "\r\n"
+                + "line 1\r\nline 2\r\n"
+                + "--" + BOUNDARY + "--\r\n"
+                + "epilogue";
+        List<Part> parts = parse(body);
+
+        assertEquals(2, parts.size());
+        assertEquals("title", parts.get(0).getName());
+        assertNull(parts.get(0).getSubmittedFileName());
+        assertEquals("hello", read(parts.get(0)));
+
+        Part file = parts.get(1);
+        assertEquals("file", file.getName());
+        assertEquals("notes.txt", file.getSubmittedFileName());
+        assertEquals("text/plain", file.getContentType());
+        assertEquals("text/plain", file.getHeader("content-type"));
+        assertEquals("line 1\r\nline 2", read(file));
+        assertEquals(14, file.getSize());
+    }
+
+    @Test
+    public void parse_sameNameAndEmptyParts_expectAllParts() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"tag\"\r\n\r\n"
+                + "a\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"tag\"\r\n\r\n"
+                + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "\r\n"
+                + "no headers\r\n"
+                + "--" + BOUNDARY + "--";
+        List<Part> parts = parse(body);
+
+        assertEquals(3, parts.size());
+        assertEquals("tag", parts.get(1).getName());
+        assertEquals("a", read(parts.get(0)));
+        assertEquals("", read(parts.get(1)));
+        assertEquals(0, parts.get(1).getSize());
+        assertNull(parts.get(2).getName());
+        assertEquals("no headers", read(parts.get(2)));
+    }
+
+    @Test(expected = IOException.class)
+    public void parse_missingClosingBoundary_throwsIOException() throws IOException {
+        parse("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\nvalue");
+    }
+
+    @Test
+    public void getBoundary_quotedAndUnquoted_expectValue() {
+        assertEquals("abc", MultipartParser.getBoundary("multipart/form-data; boundary=abc"));
+        assertEquals("a;b c", MultipartParser.getBoundary("multipart/form-data; charset=UTF-8; Boundary=\"a;b c\""));
+        assertNull(MultipartParser.getBoundary("multipart/form-data"));
+        assertNull(MultipartParser.getBoundary(null));
+    }
+
+    @Test
+    public void parseParameters_escapedQuote_expectUnescaped() {
+        Map<String, String> parameters = MultipartParser.parseParameters("form-data; name=\"say \\\"hi\\\"\"; filename=a.txt");
+
+        assertEquals("say \"hi\"", parameters.get("name"));
+        assertEquals("a.txt", parameters.get("filename"));
+    }
+
+
+    private static List<Part> parse(String body) throws IOException {
+        return MultipartParser.parse(body.getBytes(StandardCharsets.UTF_8), BOUNDARY, StandardCharsets.UTF_8);
+    }
+
+    private static String read(Part part) throws IOException {
+        return IOUtils.toString(part.getInputStream(), "UTF-8");
+    }
+}
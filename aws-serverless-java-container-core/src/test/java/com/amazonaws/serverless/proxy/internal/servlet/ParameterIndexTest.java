@@ -0,0 +1,78 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import com.amazonaws.serverless.proxy.model.MultiValuedTreeMap;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class ParameterIndexTest {
+
+    @Test
+    public void getValues_queryAndForm_expectQueryValuesFirst() {
+        MultiValuedTreeMap<String, String> query = new MultiValuedTreeMap<>();
+        query.add("name", "query");
+        ParameterIndex index = new ParameterIndex(query, form("name=form&other=value"), true);
+
+        assertArrayEquals(new String[] { "query", "form" }, index.getValues("name"));
+        assertEquals("query", index.getFirst("name"));
+        assertEquals("value", index.getFirst("other"));
+        assertNull(index.getValues("missing"));
+        assertNull(index.getFirst("missing"));
+    }
+
+    @Test
+    public void getFirst_caseInsensitiveQuery_expectFirstMatchingName() {
+        MultiValuedTreeMap<String, String> query = new MultiValuedTreeMap<>();
+        query.add("Name", "first");
+        query.add("name", "second");
+
+        ParameterIndex insensitive = new ParameterIndex(query, null, false);
+        ParameterIndex sensitive = new ParameterIndex(query, null, true);
+
+        assertEquals("first", insensitive.getFirst("NAME"));
+        assertNull(sensitive.getFirst("NAME"));
+        assertEquals("second", sensitive.getFirst("name"));
+    }
+
+    @Test
+    public void getFirst_formNamesDifferentCase_expectMergedAndDecoded() {
+        ParameterIndex index = new ParameterIndex(null, form("Greeting=hello+world&greeting=caf%C3%A9"), true);
+
+        assertArrayEquals(new String[] { "hello world", "café" }, index.getValues("GREETING"));
+        assertEquals(Collections.singleton("Greeting"), index.getNames());
+    }
+
+    @Test
+    public void getParameterMap_multipleCalls_expectSameUnmodifiableMapWithQueryNamesFirst() {
+        MultiValuedTreeMap<String, String> query = new MultiValuedTreeMap<>();
+        query.add("c", "2");
+        query.add("b", "1");
+        ParameterIndex index = new ParameterIndex(query, form("e=3&a=5&b=4"), true);
+
+        Map<String, String[]> parameters = index.getParameterMap();
+        assertSame(parameters, index.getParameterMap());
+        // the query map is sorted, form names keep the order of the body
+        assertEquals(Arrays.asList("b", "c", "e", "a"), new ArrayList<>(parameters.keySet()));
+        assertArrayEquals(new String[] { "1", "4" }, parameters.get("b"));
+        try {
+            parameters.put("d", new String[0]);
+            fail("Expected an unmodifiable map");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+
+    private static UrlEncodedForm form(String body) {
+        return UrlEncodedForm.parse(body.getBytes(StandardCharsets.US_ASCII), StandardCharsets.UTF_8, 0, 0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+
+public class ResponseBodyBufferTest {
+    private static final int INITIAL_CAPACITY = 32;
+
+    @Test
+    public void write_multipleSegments_keepsContentAndSize() throws IOException {
+        byte[] body = getBody(ResponseBodyBuffer.MAX_SEGMENT_SIZE * 2 + 17);
+        ResponseBodyBuffer buffer = new ResponseBodyBuffer(INITIAL_CAPACITY);
+        buffer.write(body[0]);
+        buffer.write(body, 1, body.length - 1);
+
+        assertEquals(body.length, buffer.size());
+        assertArrayEquals(body, buffer.toByteArray());
+        assertArrayEquals(body, IOUtils.toByteArray(buffer.toInputStream()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffer.writeTo(out);
+        assertArrayEquals(body, out.toByteArray());
+    }
+
+    @Test
+    public void write_directByteBuffer_copiesRemainingBytes() {
+        byte[] body = getBody(ResponseBodyBuffer.MAX_SEGMENT_SIZE + 33);
+        ByteBuffer source = ByteBuffer.allocateDirect(body.length + 10);
+        source.position(10);
+        source.put(body);
+        source.position(10);
+
+        ResponseBodyBuffer buffer = new ResponseBodyBuffer(INITIAL_CAPACITY);
+        buffer.write(source);
+
+        assertFalse(source.hasRemaining());
+        assertEquals(body.length, buffer.size());
+        assertArrayEquals(body, buffer.toByteArray());
+    }
+
+    @Test
+    public void toInputStream_singleByteReads_readsAllSegments() throws IOException {
+        byte[] body = getBody(INITIAL_CAPACITY * 5);
+        ResponseBodyBuffer buffer = new ResponseBodyBuffer(INITIAL_CAPACITY);
+        buffer.write(body);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int b;
+        InputStream is = buffer.toInputStream();
+        while ((b = is.read()) != -1) {
+            out.write(b);
+        }
+        assertArrayEquals(body, out.toByteArray());
+    }
+
+    @Test
+    public void reset_writeAgain_onlyContainsNewContent() throws IOException {
+        ResponseBodyBuffer buffer = new ResponseBodyBuffer(INITIAL_CAPACITY);
+        buffer.write(getBody(INITIAL_CAPACITY * 10));
+        buffer.reset();
+        assertEquals(0, buffer.size());
+        assertEquals("", buffer.toString(StandardCharsets.UTF_8));
+
+        buffer.write("hello".getBytes(StandardCharsets.UTF_8));
+        assertEquals(5, buffer.size());
+        assertEquals("hello", buffer.toString(StandardCharsets.UTF_8));
+
+        buffer.release();
+        assertEquals(0, buffer.size());
+        buffer.write("again".getBytes(StandardCharsets.UTF_8));
+        assertEquals("again", buffer.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void isValidUtf8_sequenceAcrossSegments_validatesContent() throws IOException {
+        String text = "Τη γλώσσα μου έδωσαν ελληνική, το σπίτι φτωχικό στις αμμουδιές του Ομήρου.";
+        ResponseBodyBuffer buffer = new ResponseBodyBuffer(INITIAL_CAPACITY);
+        buffer.write(text.getBytes(StandardCharsets.UTF_8));
+        assertTrue(buffer.isValidUtf8());
+        assertEquals(text, buffer.toString(StandardCharsets.UTF_8));
+
+        buffer.reset();
+        buffer.write(new byte[] { 'a', (byte) 0xCE });
+        assertFalse(buffer.isValidUtf8());
+
+        buffer.reset();
+        buffer.write(new byte[] { (byte) 0xFF, 'a' });
+        assertFalse(buffer.isValidUtf8());
+    }
+
+    private byte[] getBody(int size) {
+        byte[] body = new byte[size];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i % 251);
+        }
+        return body;
+    }
+}
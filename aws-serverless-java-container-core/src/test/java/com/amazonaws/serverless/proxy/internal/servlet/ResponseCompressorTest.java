@@ -0,0 +1,111 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import com.amazonaws.serverless.proxy.model.Headers;
+
+import org.junit.Test;
+
+import javax.ws.rs.core.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.*;
+
+
+public class ResponseCompressorTest {
+
+    @Test
+    public void negotiate_missingHeader_returnsNull() {
+        assertNull(ResponseCompressor.negotiate(null));
+        assertNull(ResponseCompressor.negotiate(""));
+        assertNull(ResponseCompressor.negotiate("br, identity"));
+    }
+
+    @Test
+    public void negotiate_gzipAndDeflate_prefersGzip() {
+        assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("deflate, gzip"));
+        assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("GZIP"));
+        assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("x-gzip"));
+        assertEquals(ResponseCompressor.DEFLATE, ResponseCompressor.negotiate(" deflate "));
+    }
+
+    @Test
+    public void negotiate_qualityValues_picksHighestWeight() {
+        assertEquals(ResponseCompressor.DEFLATE, ResponseCompressor.negotiate("gzip;q=0.5, deflate;q=0.8"));
+        assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("gzip ; q=1.0, deflate;q=0.8"));
+        assertEquals(ResponseCompressor.DEFLATE, ResponseCompressor.negotiate("gzip;q=0, deflate"));
+        assertNull(ResponseCompressor.negotiate("gzip;q=0, deflate;q=0"));
+        assertNull(ResponseCompressor.negotiate("gzip;q=abc"));
+    }
+
+    @Test
+    public void negotiate_wildcard_appliesToUnlistedCodings() {
+        assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("*"));
+        assertEquals(ResponseCompressor.DEFLATE, ResponseCompressor.negotiate("gzip;q=0, *"));
+        assertNull(ResponseCompressor.negotiate("*;q=0"));
+    }
+
+    @Test
+    public void getHeaders_existingVary_appendsAcceptEncoding() {
+        Headers headers = new Headers();
+        headers.putSingle(HttpHeaders.VARY, "Origin");
+        headers.putSingle(HttpHeaders.CONTENT_LENGTH, "2048");
+
+        Headers out = ResponseCompressor.getHeaders(headers, ResponseCompressor.DEFLATE);
+        assertEquals(Arrays.asList("Origin", HttpHeaders.ACCEPT_ENCODING), out.get(HttpHeaders.VARY));
+        assertEquals(ResponseCompressor.DEFLATE, out.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(out.get(HttpHeaders.CONTENT_LENGTH));
+        assertEquals(1, headers.get(HttpHeaders.VARY).size());
+        assertEquals("2048", headers.getFirst(HttpHeaders.CONTENT_LENGTH));
+
+        headers.putSingle(HttpHeaders.VARY, "origin, accept-encoding");
+        assertEquals(1, ResponseCompressor.getHeaders(headers, null).get(HttpHeaders.VARY).size());
+    }
+
+    @Test
+    public void compress_deflate_producesZlibStream() throws IOException, DataFormatException {
+        byte[] body = new byte[200_000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) ('a' + (i % 7));
+        }
+        AwsHttpServletResponse resp = new AwsHttpServletResponse(null, new CountDownLatch(1));
+        resp.getOutputStream().write(body);
+        ResponseCompressor compressor = new ResponseCompressor();
+
+        ResponseBodyBuffer compressed = compressor.compress(resp, ResponseCompressor.DEFLATE);
+        assertTrue(compressed.size() < body.length / 10);
+        assertArrayEquals(body, inflate(compressed.toByteArray()));
+
+        // the deflater is reused for the next response
+        ResponseBodyBuffer second = compressor.compress(resp, ResponseCompressor.DEFLATE);
+        assertArrayEquals(compressed.toByteArray(), second.toByteArray());
+    }
+
+    @Test
+    public void compress_gzip_readableByGzipInputStream() throws IOException {
+        byte[] body = "hello hello hello hello".getBytes(StandardCharsets.UTF_8);
+        AwsHttpServletResponse resp = new AwsHttpServletResponse(null, new CountDownLatch(1));
+        resp.getOutputStream().write(body);
+
+        ResponseBodyBuffer compressed = new ResponseCompressor().compress(resp, ResponseCompressor.GZIP);
+        assertArrayEquals(body, AwsProxyHttpServletResponseWriterTest.gunzip(compressed.toByteArray()));
+    }
+
+    private byte[] inflate(byte[] compressed) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!inflater.finished()) {
+            out.write(buffer, 0, inflater.inflate(buffer));
+        }
+        inflater.end();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,236 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import com.amazonaws.serverless.exceptions.InvalidResponseObjectException;
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.serverless.proxy.model.ContainerConfig;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+
+public class StaticAssetFilterTest {
+    private static final String SCRIPT = "function hello() { return 'hello'; }\n";
+    private static final String PAGE = "<html><body>hello</body></html>";
+
+    private static Path root;
+
+    @BeforeClass
+    public static void createAssets() throws IOException {
+        root = Files.createTempDirectory("static-assets");
+        Files.createDirectories(root.resolve("js"));
+        Files.write(root.resolve("index.html"), PAGE.getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("js/app.js"), SCRIPT.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(SCRIPT.getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(root.resolve("js/app.js.gz"), gzipped.toByteArray());
+    }
+
+    @AfterClass
+    public static void deleteAssets() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void init_rootDirectory_indexesFilesWithoutVariants() throws ServletException {
+        StaticAssetFilter filter = getFilter("/static");
+        assertEquals(2, filter.size());
+    }
+
+    @Test(expected = ServletException.class)
+    public void init_rootOutsideValidPaths_throwsServletException() throws ServletException {
+        Map<String, String> params = new HashMap<>();
+        params.put(StaticAssetFilter.PARAM_ROOT, "/etc");
+        new StaticAssetFilter().init(mockFilterConfig(params));
+    }
+
+    @Test
+    public void doFilter_knownAsset_writesFileWithoutCallingChain() throws IOException, ServletException {
+        StaticAssetFilter filter = getFilter("/static");
+        AtomicInteger chainCalls = new AtomicInteger();
+        AwsHttpServletResponse resp = serve(filter, "/static/index.html", "GET", null, null, chainCalls);
+
+        assertEquals(0, chainCalls.get());
+        assertEquals(HttpServletResponse.SC_OK, resp.getStatus());
+        assertEquals(PAGE, new String(resp.getAwsResponseBodyBytes(), StandardCharsets.UTF_8));
+        assertEquals(String.valueOf(PAGE.length()), resp.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertTrue(resp.getContentType().startsWith("text/html"));
+        assertNotNull(resp.getHeader(HttpHeaders.ETAG));
+        assertNotNull(resp.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    public void doFilter_unknownPathOrPost_callsChain() throws IOException, ServletException {
+        StaticAssetFilter filter = getFilter("/static");
+        AtomicInteger chainCalls = new AtomicInteger();
+
+        serve(filter, "/static/missing.html", "GET", null, null, chainCalls);
+        AwsHttpServletResponse post = serve(filter, "/static/index.html", "POST", null, null, chainCalls);
+
+        assertEquals(2, chainCalls.get());
+        assertEquals(0, post.getAwsResponseBodySize());
+    }
+
+    @Test
+    public void doFilter_acceptsGzip_servesPrecompressedVariant() throws IOException, ServletException {
+        StaticAssetFilter filter = getFilter("/static");
+        AwsHttpServletResponse plain = serve(filter, "/static/js/app.js", "GET", null, null, new AtomicInteger());
+        AwsHttpServletResponse gzipped = serve(filter, "/static/js/app.js", "GET", "gzip, deflate", null, new AtomicInteger());
+
+        assertEquals(SCRIPT, new String(plain.getAwsResponseBodyBytes(), StandardCharsets.UTF_8));
+        assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, plain.getHeader(HttpHeaders.VARY));
+
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(SCRIPT, new String(AwsProxyHttpServletResponseWriterTest.gunzip(gzipped.getAwsResponseBodyBytes()),
+                                        StandardCharsets.UTF_8));
+        assertEquals(EntityTags.forEncoding(plain.getHeader(HttpHeaders.ETAG), "gzip"), gzipped.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void doFilter_earlierVaryHeader_keepsValue() throws IOException, ServletException {
+        StaticAssetFilter filter = getFilter("/static");
+        AwsProxyHttpServletRequest req = new AwsProxyHttpServletRequest(new AwsProxyRequestBuilder("/static/js/app.js", "GET").build(),
+                                                                         new MockLambdaContext(), null);
+        AwsHttpServletResponse resp = new AwsHttpServletResponse(req, new CountDownLatch(1));
+        resp.setHeader(HttpHeaders.VARY, "Origin");
+        filter.doFilter(req, resp, (chainReq, chainResp) -> fail("The asset should be served by the filter"));
+
+        assertEquals(Arrays.asList("Origin", HttpHeaders.ACCEPT_ENCODING), new ArrayList<>(resp.getHeaders(HttpHeaders.VARY)));
+    }
+
+    @Test
+    public void doFilter_compressedByWriterWithoutVariant_tagsEncodedRepresentation() throws IOException, ServletException,
+                                                                                           InvalidResponseObjectException {
+        StaticAssetFilter filter = getFilter("/static");
+        ContainerConfig config = LambdaContainerHandler.getContainerConfig();
+        config.setCompressResponses(true);
+        config.setCompressionMinSize(0);
+        try {
+            AwsHttpServletResponse plain = serve(filter, "/static/index.html", "GET", null, null, new AtomicInteger());
+            AwsHttpServletResponse gzipped = serve(filter, "/static/index.html", "GET", "gzip", null, new AtomicInteger());
+            String identityTag = gzipped.getHeader(HttpHeaders.ETAG);
+            // the container handler flushes the response after the filter chain
+            plain.flushBuffer();
+            gzipped.flushBuffer();
+
+            AwsProxyResponse plainResponse = new AwsProxyHttpServletResponseWriter().writeResponse(plain, new MockLambdaContext());
+            AwsProxyResponse gzippedResponse = new AwsProxyHttpServletResponseWriter().writeResponse(gzipped, new MockLambdaContext());
+
+            assertEquals(identityTag, plainResponse.getMultiValueHeaders().getFirst(HttpHeaders.ETAG));
+            assertEquals("gzip", gzippedResponse.getMultiValueHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(EntityTags.forEncoding(identityTag, "gzip"), gzippedResponse.getMultiValueHeaders().getFirst(HttpHeaders.ETAG));
+            assertEquals(PAGE, new String(AwsProxyHttpServletResponseWriterTest.gunzip(Base64.getDecoder().decode(gzippedResponse.getBody())),
+                                          StandardCharsets.UTF_8));
+        } finally {
+            config.setCompressResponses(false);
+            config.setCompressionMinSize(ContainerConfig.DEFAULT_COMPRESSION_MIN_SIZE);
+        }
+    }
+
+    @Test
+    public void doFilter_matchingIfNoneMatch_returnsNotModified() throws IOException, ServletException {
+        StaticAssetFilter filter = getFilter("/static");
+        AwsHttpServletResponse first = serve(filter, "/static/js/app.js", "GET", "gzip", null, new AtomicInteger());
+
+        AwsHttpServletResponse second = serve(filter, "/static/js/app.js", "GET", null, first.getHeader(HttpHeaders.ETAG), new AtomicInteger());
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, second.getStatus());
+        assertEquals(0, second.getAwsResponseBodySize());
+    }
+
+    @Test
+    public void doFilter_headRequest_setsHeadersWithoutBody() throws IOException, ServletException {
+        StaticAssetFilter filter = getFilter("");
+        AwsHttpServletResponse resp = serve(filter, "/index.html", "HEAD", null, null, new AtomicInteger());
+
+        assertEquals(HttpServletResponse.SC_OK, resp.getStatus());
+        assertEquals(String.valueOf(PAGE.length()), resp.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals(0, resp.getAwsResponseBodySize());
+    }
+
+
+    private static StaticAssetFilter getFilter(String prefix) throws ServletException {
+        Map<String, String> params = new HashMap<>();
+        params.put(StaticAssetFilter.PARAM_ROOT, root.toString());
+        params.put(StaticAssetFilter.PARAM_PATH_PREFIX, prefix);
+        StaticAssetFilter filter = new StaticAssetFilter();
+        filter.init(mockFilterConfig(params));
+        return filter;
+    }
+
+    private static AwsHttpServletResponse serve(StaticAssetFilter filter, String path, String method, String acceptEncoding,
+                                                String ifNoneMatch, AtomicInteger chainCalls) throws IOException, ServletException {
+        AwsProxyRequestBuilder request = new AwsProxyRequestBuilder(path, method);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        AwsProxyHttpServletRequest req = new AwsProxyHttpServletRequest(request.build(), new MockLambdaContext(), null);
+        AwsHttpServletResponse resp = new AwsHttpServletResponse(req, new CountDownLatch(1));
+        filter.doFilter(req, resp, (chainReq, chainResp) -> chainCalls.incrementAndGet());
+        return resp;
+    }
+
+    private static FilterConfig mockFilterConfig(Map<String, String> initParams) {
+        ServletContext servletContext = new AwsServletContext(null);
+        return new FilterConfig() {
+            @Override
+            public String getFilterName() {
+                return "StaticAssets";
+            }
+
+            @Override
+            public ServletContext getServletContext() {
+                return servletContext;
+            }
+
+            @Override
+            public String getInitParameter(String s) {
+                return initParams.get(s);
+            }
+
+            @Override
+            public Enumeration<String> getInitParameterNames() {
+                return Collections.enumeration(initParams.keySet());
+            }
+        };
+    }
+}
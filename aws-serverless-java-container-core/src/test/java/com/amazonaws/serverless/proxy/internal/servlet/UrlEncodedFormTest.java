@@ -0,0 +1,67 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+
+public class UrlEncodedFormTest {
+
+    @Test
+    public void parse_valueWithEquals_expectValueAfterFirstSeparator() {
+        UrlEncodedForm form = parse("token=abc==&empty=&flag", 0, 0);
+
+        assertEquals(3, form.size());
+        assertEquals("token", form.getName(0));
+        assertEquals("abc==", form.getValue(0));
+        assertEquals("empty", form.getName(1));
+        assertEquals("", form.getValue(1));
+        assertEquals("flag", form.getName(2));
+        assertEquals("", form.getValue(2));
+    }
+
+    @Test
+    public void parse_encodedNamesAndValues_expectDecoded() {
+        UrlEncodedForm form = parse("first+name=Jo%C3%ABl&a%26b=1%2B1%3D2", 0, 0);
+
+        assertEquals("first name", form.getName(0));
+        assertEquals("Joël", form.getValue(0));
+        assertEquals("a&b", form.getName(1));
+        assertEquals("1+1=2", form.getValue(1));
+    }
+
+    @Test
+    public void parse_malformedPercentAndEmptyPairs_expectKeptAsIs() {
+        UrlEncodedForm form = parse("&&=novalue&pct=100%&bad=%zz&tail=%4", 0, 0);
+
+        assertEquals(3, form.size());
+        assertEquals("100%", form.getValue(0));
+        assertEquals("%zz", form.getValue(1));
+        assertEquals("%4", form.getValue(2));
+    }
+
+    @Test
+    public void parse_limits_expectExtraAndOversizedParametersIgnored() {
+        UrlEncodedForm counted = parse("a=1&b=2&c=3", 2, 0);
+        assertEquals(2, counted.size());
+        assertEquals("b", counted.getName(1));
+
+        UrlEncodedForm sized = parse("a=1&large=0123456789&b=2", 0, 5);
+        assertEquals(2, sized.size());
+        assertEquals("a", sized.getName(0));
+        assertEquals("b", sized.getName(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getValue_outOfRange_throwsException() {
+        parse("a=1", 0, 0).getValue(1);
+    }
+
+
+    private static UrlEncodedForm parse(String body, int maxParameters, int maxParameterSize) {
+        return UrlEncodedForm.parse(body.getBytes(StandardCharsets.US_ASCII), StandardCharsets.UTF_8, maxParameters, maxParameterSize);
+    }
+}
@@ -0,0 +1,61 @@
+package com.amazonaws.serverless.proxy.internal.servlet;
+
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+
+public class XxHash64Test {
+
+    @Test
+    public void getValue_referenceInputs_matchesReferenceHashes() {
+        assertEquals(0xEF46DB3751D8E999L, hash(""));
+        assertEquals(0xD24EC4F1A98C6E5BL, hash("a"));
+        assertEquals(0x44BC2CF5AD770999L, hash("abc"));
+        assertEquals(0xFBCEA83C8A378BF1L, hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void write_splitInput_sameHashAsSingleWrite() {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        XxHash64 whole = new XxHash64();
+        whole.write(data, 0, data.length);
+
+        for (int chunk : new int[] { 1, 7, 31, 32, 33, 500 }) {
+            XxHash64 split = new XxHash64();
+            for (int off = 0; off < data.length; off += chunk) {
+                split.write(data, off, Math.min(chunk, data.length - off));
+            }
+            assertEquals("chunk size " + chunk, whole.getValue(), split.getValue());
+        }
+
+        XxHash64 bytes = new XxHash64();
+        for (byte b : data) {
+            bytes.write(b);
+        }
+        assertEquals(whole.getValue(), bytes.getValue());
+    }
+
+    @Test
+    public void reset_afterWrite_hashesFromScratch() {
+        XxHash64 hash = new XxHash64();
+        byte[] data = "some response body that is longer than one stripe".getBytes(StandardCharsets.US_ASCII);
+        hash.write(data, 0, data.length);
+        hash.reset();
+
+        assertEquals(0xEF46DB3751D8E999L, hash.getValue());
+    }
+
+    private static long hash(String value) {
+        byte[] data = value.getBytes(StandardCharsets.US_ASCII);
+        XxHash64 hash = new XxHash64();
+        hash.write(data, 0, data.length);
+        return hash.getValue();
+    }
+}
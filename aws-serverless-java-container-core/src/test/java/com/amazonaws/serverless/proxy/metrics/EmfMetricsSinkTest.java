@@ -0,0 +1,66 @@
+package com.amazonaws.serverless.proxy.metrics;
+
+
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+
+public class EmfMetricsSinkTest {
+    @Test
+    public void emit_invocationMetrics_writesEmfLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EmfMetricsSink sink = new EmfMetricsSink("Test\"Namespace", out);
+        InvocationMetrics metrics = new InvocationMetrics();
+        metrics.lap(InvocationMetrics.Phase.HANDLE_REQUEST, System.nanoTime() - 1_234_567);
+        metrics.setStatusCode(201);
+        metrics.setResponseSize(42);
+        metrics.setColdStart(true);
+
+        sink.emit(metrics, new MockLambdaContext());
+
+        String line = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(line.endsWith("}\n"));
+        assertEquals(1, line.split("\n").length);
+
+        JsonNode json = LambdaContainerHandler.getObjectMapper().readTree(line);
+        JsonNode directive = json.get("_aws").get("CloudWatchMetrics").get(0);
+        assertEquals("Test\"Namespace", directive.get("Namespace").asText());
+        assertEquals("FunctionName", directive.get("Dimensions").get(0).get(0).asText());
+        // only the phase that ran is reported
+        assertEquals(4, directive.get("Metrics").size());
+        for (JsonNode definition : directive.get("Metrics")) {
+            assertTrue(json.has(definition.get("Name").asText()));
+        }
+
+        assertEquals(EmfMetricsSink.UNKNOWN_FUNCTION, json.get("FunctionName").asText());
+        assertEquals(201, json.get("StatusCode").asInt());
+        assertEquals(42, json.get("ResponseSize").asLong());
+        assertEquals(1, json.get("ColdStart").asInt());
+        assertEquals(0, json.get("Error").asInt());
+        assertTrue(json.get("HandleRequestTime").asDouble() >= 1234.567);
+        assertFalse(json.has("ReadRequestTime"));
+        assertFalse(json.has("SerializeResponseTime"));
+    }
+
+    @Test
+    public void emit_unknownResponse_omitsResponseSizeAndStatus() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new EmfMetricsSink("Test", out).emit(new InvocationMetrics(), null);
+
+        JsonNode json = LambdaContainerHandler.getObjectMapper().readTree(out.toByteArray());
+        assertFalse(json.has("ResponseSize"));
+        assertFalse(json.has("StatusCode"));
+        assertFalse(json.has("RequestId"));
+        assertFalse(json.has("HandleRequestTime"));
+        assertEquals(2, json.get("_aws").get("CloudWatchMetrics").get(0).get("Metrics").size());
+    }
+}
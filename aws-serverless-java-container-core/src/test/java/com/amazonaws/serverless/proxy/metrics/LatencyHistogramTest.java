@@ -0,0 +1,79 @@
+package com.amazonaws.serverless.proxy.metrics;
+
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketIndex_consecutiveValues_bucketsAreContiguous() {
+        int previous = LatencyHistogram.bucketIndex(0);
+        for (long value = 1; value < 1_000_000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(index));
+            previous = index;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void getPercentile_uniformValues_withinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500.0, histogram.getMean(), 0.001);
+        assertEquals(5_000_000, histogram.getPercentile(50), 5_000_000 / 8.0);
+        assertEquals(9_900_000, histogram.getPercentile(99), 9_900_000 / 8.0);
+        assertEquals(10_000_000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void record_negativeValue_recordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(-10);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getTotal());
+    }
+
+    @Test
+    public void reset_recordedValues_histogramIsEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(100);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0.0, histogram.getMean(), 0.0);
+    }
+
+    @Test
+    public void record_concurrentThreads_countsAllValues() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(9_999, histogram.getMax());
+    }
+}
@@ -0,0 +1,110 @@
+package com.amazonaws.serverless.proxy.metrics;
+
+
+import com.amazonaws.serverless.proxy.internal.testutils.Timer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+
+public class MetricsRegistryTest {
+    @After
+    public void disable() {
+        Timer.disable();
+    }
+
+    @Test
+    public void histogram_sameName_returnsSameInstance() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LatencyHistogram histogram = registry.histogram("test");
+        assertSame(histogram, registry.histogram("test"));
+        assertSame(registry.counter("test"), registry.counter("test"));
+        assertEquals(1, registry.getHistograms().size());
+        assertEquals(1, registry.getCounters().size());
+    }
+
+    @Test
+    public void reset_recordedMetrics_keepsRegisteredInstances() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("requests");
+        counter.add(5);
+        registry.histogram("latency").record(100);
+        registry.reset();
+
+        assertSame(counter, registry.counter("requests"));
+        assertEquals(0, counter.getCount());
+        assertEquals(0, registry.histogram("latency").getCount());
+    }
+
+    @Test
+    public void timer_enabled_recordsEverySampleInDefaultRegistry() {
+        LatencyHistogram histogram = MetricsRegistry.getDefault().histogram("TEST_TIMER");
+        histogram.reset();
+        Timer.enable();
+        assertTrue(MetricsRegistry.getDefault().isEnabled());
+        for (int i = 0; i < 3; i++) {
+            Timer.start("TEST_TIMER");
+            assertTrue(Timer.stop("TEST_TIMER") > 0);
+        }
+
+        assertEquals(3, histogram.getCount());
+        assertEquals(Timer.getTimer("TEST_TIMER").getDuration(),
+                Timer.getTimer("TEST_TIMER").getStopTime() - Timer.getTimer("TEST_TIMER").getStartTime());
+    }
+
+    @Test
+    public void timer_stopWithoutStart_recordsNothing() {
+        LatencyHistogram histogram = MetricsRegistry.getDefault().histogram("TEST_UNMATCHED_TIMER");
+        histogram.reset();
+        Timer.enable();
+        Timer.start("TEST_UNMATCHED_TIMER");
+        assertTrue(Timer.stop("TEST_UNMATCHED_TIMER") > 0);
+        assertEquals(0L, Timer.stop("TEST_UNMATCHED_TIMER"));
+
+        assertEquals(1, histogram.getCount());
+    }
+
+    @Test
+    public void timer_startedOnAnotherThread_measuresEachThread() throws InterruptedException {
+        LatencyHistogram histogram = MetricsRegistry.getDefault().histogram("TEST_THREAD_TIMER");
+        histogram.reset();
+        Timer.enable();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            Timer.start("TEST_THREAD_TIMER");
+            started.countDown();
+            try {
+                stopped.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Timer.stop("TEST_THREAD_TIMER");
+        });
+        other.start();
+        started.await();
+
+        // the start on the other thread is not matched by a stop on this one
+        assertEquals(0L, Timer.stop("TEST_THREAD_TIMER"));
+        Timer.start("TEST_THREAD_TIMER");
+        assertTrue(Timer.stop("TEST_THREAD_TIMER") > 0);
+        stopped.countDown();
+        other.join();
+
+        assertEquals(2, histogram.getCount());
+    }
+
+    @Test
+    public void timer_disabled_recordsNothing() {
+        LatencyHistogram histogram = MetricsRegistry.getDefault().histogram("TEST_DISABLED_TIMER");
+        Timer.disable();
+        Timer.start("TEST_DISABLED_TIMER");
+        assertEquals(0L, Timer.stop("TEST_DISABLED_TIMER"));
+        assertEquals(0, histogram.getCount());
+        assertEquals(0L, Timer.stop("NEVER_STARTED"));
+    }
+}
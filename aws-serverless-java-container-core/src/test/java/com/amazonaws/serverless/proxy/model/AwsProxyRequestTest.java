@@ -100,6 +100,43 @@ public class AwsProxyRequestTest {
         assertTrue(serializedRequest.contains("\"isBase64Encoded\":true"));
     }
 
+    @Test
+    public void deserialize_multiValueMaps_readsAllValues() throws IOException {
+        String json = "{\"httpMethod\": \"GET\", \"path\": \"/\", " +
+                "\"multiValueHeaders\": {\"Accept\": [\"text/html\", \"application/json\"], \"X-Single\": \"value\", \"X-Null\": null}, " +
+                "\"multiValueQueryStringParameters\": {\"q\": [\"one\", \"two\"], \"Q\": [\"upper\"]}}";
+        AwsProxyRequest req = new ObjectMapper().readValue(json, AwsProxyRequest.class);
+
+        assertEquals(2, req.getMultiValueHeaders().get("accept").size());
+        assertEquals("application/json", req.getMultiValueHeaders().get("ACCEPT").get(1));
+        assertEquals("value", req.getMultiValueHeaders().getFirst("x-single"));
+        assertNull(req.getMultiValueHeaders().get("x-null"));
+        assertEquals(2, req.getMultiValueQueryStringParameters().get("q").size());
+        assertEquals("upper", req.getMultiValueQueryStringParameters().getFirst("Q"));
+    }
+
+    @Test
+    public void deserialize_nullMultiValueMaps_setsNull() throws IOException {
+        AwsProxyRequest req = new AwsProxyRequestBuilder()
+                .fromJsonString(getRequestJson(true, CUSTOM_HEADER_KEY_LOWER_CASE, CUSTOM_HEADER_VALUE)).build();
+        assertNull(req.getMultiValueQueryStringParameters());
+    }
+
+    @Test(expected = IOException.class)
+    public void deserialize_invalidMultiValueHeaders_throwsException() throws IOException {
+        new ObjectMapper().readValue("{\"multiValueHeaders\": {\"Accept\": {\"a\": 1}}}", AwsProxyRequest.class);
+    }
+
+    @Test(expected = IOException.class)
+    public void deserialize_objectInsideHeaderArray_throwsException() throws IOException {
+        new ObjectMapper().readValue("{\"multiValueHeaders\": {\"Accept\": [\"text/html\", {\"a\": 1}]}}", AwsProxyRequest.class);
+    }
+
+    @Test(expected = IOException.class)
+    public void deserialize_arrayInsideHeaderArray_throwsException() throws IOException {
+        new ObjectMapper().readValue("{\"multiValueHeaders\": {\"Accept\": [[\"text/html\"], \"x\"]}}", AwsProxyRequest.class);
+    }
+
     private String getRequestJson(boolean base64Encoded, String headerKey, String headerValue) {
         return "{\n" +
                 "    \"resource\": \"/api/{proxy+}\",\n" +
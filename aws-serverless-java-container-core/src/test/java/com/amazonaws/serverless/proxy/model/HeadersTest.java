@@ -0,0 +1,96 @@
+package com.amazonaws.serverless.proxy.model;
+
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+
+public class HeadersTest {
+
+    @Test
+    public void get_differentCase_expectSameValuesAndFirstSpelling() {
+        Headers headers = new Headers();
+        headers.add("Content-Type", "application/json");
+        headers.add("CONTENT-TYPE", "text/plain");
+
+        assertEquals(1, headers.size());
+        assertEquals(Arrays.asList("application/json", "text/plain"), headers.get("content-type"));
+        assertTrue(headers.containsKey("cOnTeNt-TyPe"));
+        assertEquals(Collections.singleton("Content-Type"), headers.keySet());
+        assertNull(headers.get("Content-Length"));
+        assertNull(headers.get(null));
+    }
+
+    @Test
+    public void put_manyHeaders_expectAllRetrievableInInsertionOrder() {
+        Headers headers = new Headers();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            names.add("X-Header-" + i);
+            headers.putSingle("X-Header-" + i, "value" + i);
+        }
+
+        assertEquals(100, headers.size());
+        assertEquals(names, new ArrayList<>(headers.keySet()));
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, headers.getFirst("x-header-" + i));
+        }
+    }
+
+    @Test
+    public void remove_middleEntry_expectOthersStillFound() {
+        Headers headers = new Headers();
+        headers.add("Accept", "*/*");
+        headers.add("Host", "example.com");
+        headers.add("User-Agent", "test");
+
+        assertEquals(Collections.singletonList("example.com"), headers.remove("HOST"));
+        assertNull(headers.remove("Host"));
+        assertEquals(2, headers.size());
+        assertEquals("*/*", headers.getFirst("accept"));
+        assertEquals("test", headers.getFirst("user-agent"));
+
+        Iterator<Map.Entry<String, List<String>>> entries = headers.entrySet().iterator();
+        entries.next();
+        entries.remove();
+        assertFalse(headers.containsKey("Accept"));
+        assertEquals(Collections.singletonList("User-Agent"), new ArrayList<>(headers.keySet()));
+    }
+
+    @Test
+    public void values_addFirstAndRemove_expectListSemantics() {
+        Headers headers = new Headers();
+        headers.add("Accept", "b");
+        headers.add("Accept", "c");
+        headers.addFirst("Accept", "a");
+        List<String> values = headers.get("Accept");
+
+        assertEquals(Arrays.asList("a", "b", "c"), values);
+        assertEquals("a", values.remove(0));
+        assertEquals(Arrays.asList("b", "c"), values);
+        values.add(1, "d");
+        assertEquals(Arrays.asList("b", "d", "c"), values);
+        assertEquals("c", values.remove(2));
+        assertEquals(Arrays.asList("b", "d"), values);
+
+        headers.putSingle("Accept", "e");
+        assertEquals(Collections.singletonList("e"), headers.get("accept"));
+    }
+
+    @Test
+    public void hash_nonAsciiName_sameAsCaseInsensitiveOrder() {
+        assertEquals(CaseInsensitiveHeaderMap.hash("X-Ünïcode"), CaseInsensitiveHeaderMap.hash("x-üNÏCODE"));
+
+        Headers headers = new Headers();
+        headers.add("X-Ünïcode", "value");
+        assertEquals("value", headers.getFirst("x-üNÏCODE"));
+    }
+}
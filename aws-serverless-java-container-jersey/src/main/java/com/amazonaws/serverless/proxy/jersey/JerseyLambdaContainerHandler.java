@@ -201,7 +201,7 @@ public class JerseyLambdaContainerHandler<RequestType, ResponseType> extends Aws
 
     @Override
     protected AwsHttpServletResponse getContainerResponse(HttpServletRequest request, CountDownLatch latch) {
-        return new AwsHttpServletResponse(request, latch);
+        return getAwsHttpServletResponse(request, latch);
     }
 
     @Override
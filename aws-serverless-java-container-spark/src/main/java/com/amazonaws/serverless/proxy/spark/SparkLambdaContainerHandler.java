@@ -200,7 +200,7 @@ public class SparkLambdaContainerHandler<RequestType, ResponseType>
 
     @Override
     protected AwsHttpServletResponse getContainerResponse(HttpServletRequest request, CountDownLatch latch) {
-        return new AwsHttpServletResponse(request, latch);
+        return getAwsHttpServletResponse(request, latch);
     }
 
 
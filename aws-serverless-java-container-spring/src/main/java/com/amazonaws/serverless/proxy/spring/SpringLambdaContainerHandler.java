@@ -125,7 +125,7 @@ public class SpringLambdaContainerHandler<RequestType, ResponseType> extends Aws
 
     @Override
     protected AwsHttpServletResponse getContainerResponse(HttpServletRequest request, CountDownLatch latch) {
-        return new AwsHttpServletResponse(request, latch);
+        return getAwsHttpServletResponse(request, latch);
     }
 
 
@@ -158,7 +158,7 @@ public class SpringBootLambdaContainerHandler<RequestType, ResponseType> extends
 
     @Override
     protected AwsHttpServletResponse getContainerResponse(HttpServletRequest request, CountDownLatch latch) {
-        return new AwsHttpServletResponse(request, latch);
+        return getAwsHttpServletResponse(request, latch);
     }
 
     @Override
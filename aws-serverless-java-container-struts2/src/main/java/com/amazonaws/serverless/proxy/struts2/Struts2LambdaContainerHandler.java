@@ -85,7 +85,7 @@ public class Struts2LambdaContainerHandler<RequestType, ResponseType> extends Aw
 
     @Override
     protected AwsHttpServletResponse getContainerResponse(HttpServletRequest request, CountDownLatch latch) {
-        return new AwsHttpServletResponse(request, latch);
+        return getAwsHttpServletResponse(request, latch);
     }
 
     @Override